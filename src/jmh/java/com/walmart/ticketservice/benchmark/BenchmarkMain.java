@@ -0,0 +1,51 @@
+package com.walmart.ticketservice.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the selected benchmarks once per thread count and writes every result
+ * to a single JSON file, so single threaded latency and contended throughput
+ * of each implementation can be compared side by side.
+ * <p>
+ * Usage: {@code BenchmarkMain <result.json> <threads,...> [jmh options]}
+ * 
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class BenchmarkMain {
+
+	private BenchmarkMain() {
+	}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		if (args.length < 2) {
+			System.err.println("usage: BenchmarkMain <result.json> <threads,...> [jmh options]");
+			System.exit(1);
+		}
+		String resultFile = args[0];
+		String[] jmhArgs = new String[args.length - 2];
+		System.arraycopy(args, 2, jmhArgs, 0, jmhArgs.length);
+		Options commandLine = new CommandLineOptions(jmhArgs);
+		Collection<RunResult> results = new ArrayList<>();
+		List<Integer> threadCounts = new ArrayList<>();
+		for (String threads : args[1].split(",")) {
+			threadCounts.add(Integer.parseInt(threads.trim()));
+		}
+		for (int threads : threadCounts) {
+			Options options = new OptionsBuilder().parent(commandLine).threads(threads).build();
+			results.addAll(new Runner(options).run());
+		}
+		ResultFormatFactory.getInstance(ResultFormatType.JSON, resultFile).writeOut(results);
+	}
+}
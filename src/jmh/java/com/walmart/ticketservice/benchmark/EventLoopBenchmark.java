@@ -0,0 +1,73 @@
+package com.walmart.ticketservice.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.service.EventLoopTicketService;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+/**
+ * Hold and reserve through an EventLoopTicketService, comparable with
+ * TicketServiceBenchmark.holdAndReserve at the same thread counts.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventLoopBenchmark {
+
+	@Param({ "lowest", "bitset" })
+	public String venueType;
+
+	@Param({ "noPersistence" })
+	public String repositoryType;
+
+	@Param({ "1024" })
+	public int ringSize;
+
+	@Param({ "5000000" })
+	public int capacity;
+
+	private EventLoopTicketService ticketService;
+
+	private final AtomicInteger customers = new AtomicInteger();
+
+	@Setup(Level.Iteration)
+	public void createService() {
+		ticketService = new EventLoopTicketService(TicketServiceImpl.builder(Fixtures.venue(venueType, capacity),
+				Duration.ofHours(1), Fixtures.repository(repositoryType)), ringSize);
+	}
+
+	@TearDown(Level.Iteration)
+	public void closeService() throws InterruptedException {
+		ticketService.close();
+	}
+
+	@Benchmark
+	public String holdAndReserve() {
+		String email = "customer" + customers.incrementAndGet();
+		SeatHold hold = ticketService.findAndHoldSeats(4, email);
+		return ticketService.reserveSeats(((SuccessfulHold) hold).getSeatHoldId(), email);
+	}
+}
@@ -0,0 +1,69 @@
+package com.walmart.ticketservice.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.model.impl.AtomicSeatVenue;
+import com.walmart.ticketservice.model.impl.BitSetSeatVenue;
+import com.walmart.ticketservice.model.impl.ContiguousSeatVenue;
+import com.walmart.ticketservice.model.impl.LowestSeatPrefenceVenue;
+import com.walmart.ticketservice.repo.SuccessfulHoldRepository;
+import com.walmart.ticketservice.repo.impl.HoldRepoNoPersistence;
+import com.walmart.ticketservice.repo.impl.StripedHoldRepository;
+
+/**
+ * Builds the implementations compared by the benchmarks from their parameter
+ * names.
+ * 
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+final class Fixtures {
+
+	static final int SEATS_PER_ROW = 50;
+
+	private Fixtures() {
+	}
+
+	static Venue venue(String type, int capacity) {
+		switch (type) {
+		case "lowest":
+			return new LowestSeatPrefenceVenue(capacity);
+		case "atomic":
+			return new AtomicSeatVenue(capacity);
+		case "bitset":
+			return new BitSetSeatVenue(capacity);
+		case "contiguous":
+			return new ContiguousSeatVenue(Math.max(1, capacity / SEATS_PER_ROW), SEATS_PER_ROW, true);
+		default:
+			throw new IllegalArgumentException(String.format("unknown venue type %s", type));
+		}
+	}
+
+	static SuccessfulHoldRepository repository(String type) {
+		switch (type) {
+		case "noPersistence":
+			return new HoldRepoNoPersistence();
+		case "striped":
+			return new StripedHoldRepository();
+		default:
+			throw new IllegalArgumentException(String.format("unknown repository type %s", type));
+		}
+	}
+
+	/**
+	 * Issues every seat, then returns a random fraction of them so free seats are
+	 * scattered across the venue.
+	 */
+	static void fragment(Venue venue, double fragmentation, long seed) {
+		int[] all = venue.getNSeats(venue.remainingSeats());
+		Random random = new Random(seed);
+		for (int i = all.length - 1; i > 0; i--) {
+			int swap = random.nextInt(i + 1);
+			int seat = all[i];
+			all[i] = all[swap];
+			all[swap] = seat;
+		}
+		venue.releaseSeats(Arrays.copyOf(all, (int) (all.length * fragmentation)));
+	}
+}
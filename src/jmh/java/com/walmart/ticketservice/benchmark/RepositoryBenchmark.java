@@ -0,0 +1,101 @@
+package com.walmart.ticketservice.benchmark;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.repo.SuccessfulHoldRepository;
+
+/**
+ * Hot paths of each SuccessfulHoldRepository with a configurable number of
+ * outstanding holds. Repositories that are not thread safe are serialized the
+ * way TicketServiceImpl serializes them.
+ * 
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryBenchmark {
+
+	private static final int EMAILS = 1000;
+
+	@Param({ "noPersistence", "striped" })
+	public String repositoryType;
+
+	@Param({ "1000", "100000" })
+	public int outstandingHolds;
+
+	private SuccessfulHoldRepository repository;
+
+	private boolean serialize;
+
+	private final AtomicInteger nextId = new AtomicInteger();
+
+	private final Instant farFuture = Instant.now().plus(Duration.ofDays(1));
+
+	private final int[] seats = { 1, 2, 3, 4 };
+
+	@Setup
+	public void fillRepository() {
+		repository = Fixtures.repository(repositoryType);
+		serialize = "noPersistence".equals(repositoryType);
+		for (int i = 0; i < outstandingHolds; i++) {
+			int id = nextId.incrementAndGet();
+			repository.add(email(id), new SuccessfulHold(farFuture, seats, id));
+		}
+	}
+
+	private static String email(int id) {
+		return "customer" + (id % EMAILS);
+	}
+
+	@Benchmark
+	public boolean addLookupRemove() {
+		int id = nextId.incrementAndGet();
+		String email = email(id);
+		SuccessfulHold hold = new SuccessfulHold(farFuture, seats, id);
+		if (serialize) {
+			synchronized (repository) {
+				return addLookupRemove(id, email, hold);
+			}
+		}
+		return addLookupRemove(id, email, hold);
+	}
+
+	private boolean addLookupRemove(int id, String email, SuccessfulHold hold) {
+		repository.add(email, hold);
+		Optional<SuccessfulHold> found = repository.getById(id, email);
+		return found.isPresent() && repository.remove(email, hold);
+	}
+
+	@Benchmark
+	public Collection<Entry<String, SuccessfulHold>> drainNothingExpired() {
+		if (serialize) {
+			synchronized (repository) {
+				return repository.drainExpired(Instant.now());
+			}
+		}
+		return repository.drainExpired(Instant.now());
+	}
+}
@@ -0,0 +1,96 @@
+package com.walmart.ticketservice.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+/**
+ * End to end cost of TicketServiceImpl operations. The service is rebuilt every
+ * iteration so reservations never sell the venue out during measurement;
+ * capacity should comfortably exceed the operations of one iteration.
+ * 
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketServiceBenchmark {
+
+	@Param({ "lowest", "atomic", "bitset" })
+	public String venueType;
+
+	@Param({ "striped" })
+	public String repositoryType;
+
+	@Param({ "false", "true" })
+	public boolean concurrent;
+
+	@Param({ "5000000" })
+	public int capacity;
+
+	@Param({ "0", "10000" })
+	public int outstandingHolds;
+
+	private TicketServiceImpl ticketService;
+
+	private TicketServiceImpl expiringService;
+
+	private final AtomicInteger customers = new AtomicInteger();
+
+	@Setup(Level.Iteration)
+	public void createService() {
+		ticketService = TicketServiceImpl
+				.builder(Fixtures.venue(venueType, capacity), Duration.ofHours(1),
+						Fixtures.repository(repositoryType))
+				.concurrent(concurrent).build();
+		for (int i = 0; i < outstandingHolds; i++) {
+			ticketService.findAndHoldSeats(2, "outstanding" + i);
+		}
+		// holds expire at once, so every hold also sweeps the previous ones
+		expiringService = TicketServiceImpl
+				.builder(Fixtures.venue(venueType, 10_000), Duration.ZERO, Fixtures.repository(repositoryType))
+				.concurrent(concurrent).build();
+	}
+
+	@Benchmark
+	public String holdAndReserve() {
+		String email = "customer" + customers.incrementAndGet();
+		SeatHold hold = ticketService.findAndHoldSeats(4, email);
+		return ticketService.reserveSeats(((SuccessfulHold) hold).getSeatHoldId(), email);
+	}
+
+	@Benchmark
+	public SeatHold holdAndExpire() {
+		return expiringService.findAndHoldSeats(4, "customer" + customers.incrementAndGet());
+	}
+
+	@Benchmark
+	public int numSeatsAvailable() {
+		return ticketService.numSeatsAvailable();
+	}
+
+	@Benchmark
+	public int estimateSeatsAvailable() {
+		return ticketService.estimateSeatsAvailable();
+	}
+}
@@ -0,0 +1,67 @@
+package com.walmart.ticketservice.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.walmart.ticketservice.model.Venue;
+
+/**
+ * Issue and release cost of each Venue. Every operation returns the seats it
+ * took, so the free structure stays at the configured fragmentation.
+ * 
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VenueBenchmark {
+
+	@Param({ "lowest", "atomic", "bitset", "contiguous" })
+	public String venueType;
+
+	@Param({ "10000", "90000" })
+	public int capacity;
+
+	/**
+	 * Fraction of seats free, scattered at random. 1.0 is an empty venue.
+	 */
+	@Param({ "1.0", "0.1" })
+	public double fragmentation;
+
+	@Param({ "1", "6" })
+	public int groupSize;
+
+	private Venue venue;
+
+	@Setup
+	public void createVenue() {
+		venue = Fixtures.venue(venueType, capacity);
+		Fixtures.fragment(venue, fragmentation, capacity);
+	}
+
+	@Benchmark
+	public int[] getAndReleaseSeats() {
+		int[] seats = venue.getNSeats(groupSize);
+		venue.releaseSeats(seats);
+		return seats;
+	}
+
+	@Benchmark
+	public int remainingSeats() {
+		return venue.remainingSeats();
+	}
+}
@@ -0,0 +1,53 @@
+package com.walmart.ticketservice;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.impl.FailedHold;
+
+/**
+ * Non-blocking counterpart of {@link TicketService}. Each method returns at
+ * once with a future of the result the matching TicketService method would
+ * return and never throws. A hold that can not be served, including one
+ * refused because the service is overloaded or closed, completes with a
+ * {@link FailedHold}. Any other request completes exceptionally with whatever
+ * the matching method would throw, or with the reason it could not be run.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public interface AsyncTicketService {
+
+	/**
+	 * @see TicketService#numSeatsAvailable()
+	 * @return the number of tickets available in the venue
+	 */
+	CompletableFuture<Integer> numSeatsAvailableAsync();
+
+	/**
+	 * @see TicketService#findAndHoldSeats(int, String)
+	 * @param numSeats      the number of seats to find and hold
+	 * @param customerEmail unique identifier for the customer
+	 * @return either a SuccessfulHold or a FailedHold, never exceptional.
+	 */
+	CompletableFuture<SeatHold> findAndHoldSeatsAsync(int numSeats, String customerEmail);
+
+	/**
+	 * @see TicketService#findAndHoldSeats(int, int, String)
+	 * @param numSeats      the number of seats to find and hold
+	 * @param maxPriceTier  highest price tier to hold seats from
+	 * @param customerEmail unique identifier for the customer
+	 * @return either a SuccessfulHold or a FailedHold, never exceptional.
+	 */
+	default CompletableFuture<SeatHold> findAndHoldSeatsAsync(int numSeats, int maxPriceTier, String customerEmail) {
+		return CompletableFuture.completedFuture(new FailedHold("price tiers are not supported"));
+	}
+
+	/**
+	 * @see TicketService#reserveSeats(int, String)
+	 * @param seatHoldId    the seat hold identifier
+	 * @param customerEmail the email address of the customer to which the seat hold
+	 *                      is assigned
+	 * @return a reservation confirmation code
+	 */
+	CompletableFuture<String> reserveSeatsAsync(int seatHoldId, String customerEmail);
+}
@@ -1,6 +1,15 @@
 package com.walmart.ticketservice;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.impl.FailedHold;
+import com.walmart.ticketservice.model.impl.HoldRequest;
+import com.walmart.ticketservice.model.impl.ReserveRequest;
+import com.walmart.ticketservice.model.impl.ReserveResult;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
 
 /**
  * TicketService interface provided as basis for project. Minor changes to
@@ -15,6 +24,19 @@ public interface TicketService {
 	 */
 	int numSeatsAvailable();
 
+	/**
+	 * The number of seats available without waiting on other operations or
+	 * releasing expired holds, for callers that poll. Reflects every completed
+	 * hold and release, but seats of holds that expired since the last expiry
+	 * sweep are still counted as held. The default implementation is
+	 * {@link #numSeatsAvailable()}.
+	 *
+	 * @return the number of tickets available in the venue, possibly stale
+	 */
+	default int estimateSeatsAvailable() {
+		return numSeatsAvailable();
+	}
+
 	/**
 	 * Find and hold the best available seats for a customer. Does not return null
 	 * or throw exceptions for invalid input, instead returns a FailedHold.
@@ -27,6 +49,23 @@ public interface TicketService {
 	 */
 	SeatHold findAndHoldSeats(int numSeats, String customerEmail);
 
+	/**
+	 * Find and hold the best available seats priced at or below a tier. Behaves
+	 * like {@link #findAndHoldSeats(int, String)} otherwise. Services whose venue
+	 * has no price tiers return a FailedHold.
+	 *
+	 * @param numSeats      the number of seats to find and hold
+	 * @param maxPriceTier  highest price tier to hold seats from, tier 0 is the
+	 *                      cheapest
+	 * @param customerEmail unique identifier for the customer
+	 * @return either a SuccessfulHold identifying the specific seats and
+	 *         related information, or a FailedHold with a description of the
+	 *         failure.
+	 */
+	default SeatHold findAndHoldSeats(int numSeats, int maxPriceTier, String customerEmail) {
+		return new FailedHold("price tiers are not supported");
+	}
+
 	/**
 	 * Commit seats held for a specific customer
 	 *
@@ -37,7 +76,88 @@ public interface TicketService {
 	 * @throws IllegalArgumentException if email is null or the seatHoldId has not
 	 *                                  been issued for the supplied email.
 	 * @throws IllegalStateException    if the reservation has expired.
-	 * @return a reservation confirmation code (format - email:seats:time)
+	 * @return a reservation confirmation code, which does not reveal the email.
 	 */
 	String reserveSeats(int seatHoldId, String customerEmail);
+
+	/**
+	 * Give a customer more time on a hold. The hold keeps its id and seats.
+	 * The default implementation does not support extension.
+	 *
+	 * @param seatHoldId    the seat hold identifier. Must have been issued by this
+	 *                      service.
+	 * @param customerEmail the email address of the customer to which the seat hold
+	 *                      is assigned. Can not be null.
+	 * @param extension     added to the hold's expiration, must be positive
+	 * @throws IllegalArgumentException      if email or extension is null, the
+	 *                                       extension is not positive or the
+	 *                                       seatHoldId has not been issued for
+	 *                                       the supplied email.
+	 * @throws IllegalStateException         if the hold has expired or was
+	 *                                       released concurrently.
+	 * @throws UnsupportedOperationException if the service can not extend holds.
+	 * @return the hold with its new expiration.
+	 */
+	default SuccessfulHold extendHold(int seatHoldId, String customerEmail, Duration extension) {
+		throw new UnsupportedOperationException("extending holds is not supported");
+	}
+
+	/**
+	 * Return some seats of a hold to the venue and keep holding the rest until
+	 * the hold expires or is reserved. Releasing every seat cancels the hold.
+	 * The default implementation does not support partial release.
+	 *
+	 * @param seatHoldId    the seat hold identifier. Must have been issued by this
+	 *                      service.
+	 * @param customerEmail the email address of the customer to which the seat hold
+	 *                      is assigned. Can not be null.
+	 * @param seats         seats of the hold to release, can not be null or empty
+	 * @throws IllegalArgumentException      if email or seats is null, seats is
+	 *                                       empty or not part of the hold, or the
+	 *                                       seatHoldId has not been issued for
+	 *                                       the supplied email.
+	 * @throws IllegalStateException         if the hold has expired or was
+	 *                                       released concurrently.
+	 * @throws UnsupportedOperationException if the service can not release part
+	 *                                       of a hold.
+	 * @return the hold with the remaining seats, which has no seats if the hold
+	 *         was cancelled.
+	 */
+	default SuccessfulHold releaseSeats(int seatHoldId, String customerEmail, int[] seats) {
+		throw new UnsupportedOperationException("releasing seats is not supported");
+	}
+
+	/**
+	 * Find and hold seats for a wave of customers. Requests are served in order
+	 * and each gets the same result {@link #findAndHoldSeats(int, String)} would
+	 * give it. The default implementation holds them one at a time.
+	 *
+	 * @param requests can not be null
+	 * @throws NullPointerException if requests is null.
+	 * @return one SuccessfulHold or FailedHold per request, in request order.
+	 */
+	default List<SeatHold> holdBatch(List<HoldRequest> requests) {
+		return requests.stream().map(request -> findAndHoldSeats(request.getNumSeats(), request.getCustomerEmail()))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Commit holds for a wave of customers. Requests are served in order;
+	 * failures that {@link #reserveSeats(int, String)} would throw are returned
+	 * as failed results instead. The default implementation reserves them one at
+	 * a time.
+	 *
+	 * @param requests can not be null
+	 * @throws NullPointerException if requests is null.
+	 * @return one result per request, in request order.
+	 */
+	default List<ReserveResult> reserveBatch(List<ReserveRequest> requests) {
+		return requests.stream().map(request -> {
+			try {
+				return ReserveResult.confirmed(reserveSeats(request.getSeatHoldId(), request.getCustomerEmail()));
+			} catch (IllegalArgumentException | IllegalStateException e) {
+				return ReserveResult.failed(e.getMessage());
+			}
+		}).collect(Collectors.toList());
+	}
 }
@@ -0,0 +1,47 @@
+package com.walmart.ticketservice.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Events per second over a sliding window of whole seconds, kept in a ring of
+ * per-second counters. Marking never allocates. A mark racing with the reset of
+ * a new second may be lost, which is acceptable for a rate.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+final class EventRate {
+
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+	private static final int WINDOW_SECONDS = 10;
+
+	// one extra slot for the second in progress
+	private final AtomicLongArray counts = new AtomicLongArray(WINDOW_SECONDS + 1);
+
+	private final AtomicLongArray seconds = new AtomicLongArray(WINDOW_SECONDS + 1);
+
+	void mark(long events, long nowNanos) {
+		long second = Math.floorDiv(nowNanos, NANOS_PER_SECOND);
+		int slot = (int) Math.floorMod(second, (long) counts.length());
+		long seen = seconds.get(slot);
+		if (seen != second && seconds.compareAndSet(slot, seen, second)) {
+			counts.set(slot, 0);
+		}
+		counts.addAndGet(slot, events);
+	}
+
+	/**
+	 * @return mean events per second over the last complete seconds of the window.
+	 */
+	double perSecond(long nowNanos) {
+		long second = Math.floorDiv(nowNanos, NANOS_PER_SECOND);
+		long events = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			long slotSecond = seconds.get(i);
+			if (slotSecond < second && slotSecond >= second - WINDOW_SECONDS) {
+				events += counts.get(i);
+			}
+		}
+		return (double) events / WINDOW_SECONDS;
+	}
+}
@@ -0,0 +1,54 @@
+package com.walmart.ticketservice.metrics;
+
+/**
+ * Why a hold or reservation was refused, counted by {@link TicketServiceMetrics}.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public enum FailureReason {
+
+	/**
+	 * numSeats, email or price tier was invalid.
+	 */
+	INVALID_REQUEST,
+
+	/**
+	 * Fewer seats remained than were requested.
+	 */
+	SOLD_OUT,
+
+	/**
+	 * Enough seats remained, but the Venue could not place them together.
+	 */
+	NOT_TOGETHER,
+
+	/**
+	 * A price tier was requested from a Venue without tiers.
+	 */
+	TIERS_UNSUPPORTED,
+
+	/**
+	 * No hold with the id belongs to the email.
+	 */
+	HOLD_NOT_FOUND,
+
+	/**
+	 * The hold expired before it was reserved.
+	 */
+	HOLD_EXPIRED,
+
+	/**
+	 * The hold was reserved or released by another caller first.
+	 */
+	HOLD_RELEASED,
+
+	/**
+	 * The customer already held as many seats as one customer may.
+	 */
+	SEAT_LIMIT,
+
+	/**
+	 * The customer placed holds faster than the configured rate.
+	 */
+	RATE_LIMITED
+}
@@ -0,0 +1,109 @@
+package com.walmart.ticketservice.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of durations in nanoseconds. Values below 64 are counted
+ * exactly; above that each power of two is split into 32 buckets, so any
+ * reported value is within about 3% of the recorded one. Buckets are a fixed
+ * AtomicLongArray, so recording is wait free and never allocates.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 6;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private static final int HALF_BUCKETS = SUB_BUCKETS / 2;
+
+	private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * HALF_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	private final AtomicLong total = new AtomicLong();
+
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * @param nanos duration to record, negative values are recorded as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		counts.incrementAndGet(bucket(value));
+		total.addAndGet(value);
+		long seen = max.get();
+		while (value > seen && !max.compareAndSet(seen, value)) {
+			seen = max.get();
+		}
+	}
+
+	/**
+	 * @return number of recorded values.
+	 */
+	public long count() {
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			count += counts.get(i);
+		}
+		return count;
+	}
+
+	/**
+	 * @return largest recorded value, 0 if none.
+	 */
+	public long max() {
+		return max.get();
+	}
+
+	/**
+	 * @return mean of the recorded values, 0 if none.
+	 */
+	public double mean() {
+		long count = count();
+		return count == 0 ? 0 : (double) total.get() / count;
+	}
+
+	/**
+	 * @param percentile between 0 and 100
+	 * @throws IllegalArgumentException if percentile is out of range.
+	 * @return the value at or below which percentile of recorded values fall, 0
+	 *         if none.
+	 */
+	public long valueAtPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException(String.format("percentile must be in [0, 100], %s supplied", percentile));
+		}
+		long count = count();
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS && count > 0; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValue(i), max());
+			}
+		}
+		return 0;
+	}
+
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS + 1;
+		return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * HALF_BUCKETS + (int) (value >>> shift) - HALF_BUCKETS;
+	}
+
+	static long highestValue(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int offset = bucket - SUB_BUCKETS;
+		int shift = offset / HALF_BUCKETS + 1;
+		long mantissa = offset % HALF_BUCKETS + HALF_BUCKETS;
+		return ((mantissa + 1) << shift) - 1;
+	}
+}
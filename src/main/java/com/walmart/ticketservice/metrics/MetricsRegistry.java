@@ -0,0 +1,25 @@
+package com.walmart.ticketservice.metrics;
+
+/**
+ * Exposes the metrics of named ticket services to a monitoring system.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public interface MetricsRegistry {
+
+	/**
+	 * @param name    unique name of the service, can not be null
+	 * @param metrics can not be null
+	 * @throws NullPointerException     if any arg is null.
+	 * @throws IllegalArgumentException if name is already registered.
+	 */
+	void register(String name, TicketServiceMetrics metrics);
+
+	/**
+	 * Stops exposing the named service. Does nothing if it is not registered.
+	 *
+	 * @param name can not be null
+	 * @throws NullPointerException if name is null.
+	 */
+	void unregister(String name);
+}
@@ -0,0 +1,260 @@
+package com.walmart.ticketservice.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+
+/**
+ * Counters and latency histograms for one ticket service. Operations are timed
+ * by taking {@link #start()} before and passing it to the matching completion
+ * method after; none of the recording methods allocate. The
+ * {@link #disabled()} instance records nothing and never reads the clock.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class TicketServiceMetrics {
+
+	private static final FailureReason[] REASONS = FailureReason.values();
+
+	private static final TicketServiceMetrics DISABLED = new TicketServiceMetrics(() -> 0, false);
+
+	private final boolean enabled;
+
+	private final IntSupplier seatsAvailable;
+
+	private final LatencyHistogram holdLatency = new LatencyHistogram();
+
+	private final LatencyHistogram reserveLatency = new LatencyHistogram();
+
+	private final LatencyHistogram expiryLatency = new LatencyHistogram();
+
+	private final LatencyHistogram lockWait = new LatencyHistogram();
+
+	private final LongAdder holds = new LongAdder();
+
+	private final LongAdder reservations = new LongAdder();
+
+	private final LongAdder expirations = new LongAdder();
+
+	private final LongAdder releases = new LongAdder();
+
+	private final LongAdder releasedSeats = new LongAdder();
+
+	private final LongAdder extensions = new LongAdder();
+
+	private final EventRate expirationRate = new EventRate();
+
+	private final AtomicLongArray failures = new AtomicLongArray(REASONS.length);
+
+	/**
+	 * @param seatsAvailable reads the seats a Venue has left, can not be null
+	 * @throws NullPointerException if seatsAvailable is null.
+	 */
+	public TicketServiceMetrics(IntSupplier seatsAvailable) {
+		this(Preconditions.checkNotNull(seatsAvailable), true);
+	}
+
+	private TicketServiceMetrics(IntSupplier seatsAvailable, boolean enabled) {
+		this.seatsAvailable = seatsAvailable;
+		this.enabled = enabled;
+	}
+
+	/**
+	 * @return a shared instance that records nothing.
+	 */
+	public static TicketServiceMetrics disabled() {
+		return DISABLED;
+	}
+
+	/**
+	 * @return the start time of an operation, 0 if disabled.
+	 */
+	public long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * @param start from {@link #start()} before the service lock was requested
+	 */
+	public void lockAcquired(long start) {
+		if (enabled) {
+			lockWait.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * @param start from {@link #start()}
+	 * @param hold  the result returned to the caller
+	 */
+	public void holdCompleted(long start, SeatHold hold) {
+		if (enabled) {
+			holdLatency.record(System.nanoTime() - start);
+			if (hold instanceof SuccessfulHold) {
+				holds.increment();
+			}
+		}
+	}
+
+	/**
+	 * @param start     from {@link #start()}
+	 * @param confirmed true if a confirmation code was returned
+	 */
+	public void reserveCompleted(long start, boolean confirmed) {
+		if (enabled) {
+			reserveLatency.record(System.nanoTime() - start);
+			if (confirmed) {
+				reservations.increment();
+			}
+		}
+	}
+
+	/**
+	 * @param start    from {@link #start()}
+	 * @param released number of expired holds whose seats were returned
+	 */
+	public void expiryCompleted(long start, int released) {
+		if (enabled) {
+			long now = System.nanoTime();
+			expiryLatency.record(now - start);
+			if (released > 0) {
+				expirations.add(released);
+				expirationRate.mark(released, now);
+			}
+		}
+	}
+
+	/**
+	 * @param seats   number of seats the customer gave back
+	 * @param emptied true if no seats remain, so the hold is gone
+	 */
+	public void seatsReleased(int seats, boolean emptied) {
+		if (enabled) {
+			releasedSeats.add(seats);
+			if (emptied) {
+				releases.increment();
+			}
+		}
+	}
+
+	/**
+	 * Counts a hold given a later expiration.
+	 */
+	public void holdExtended() {
+		if (enabled) {
+			extensions.increment();
+		}
+	}
+
+	/**
+	 * @param reason can not be null
+	 */
+	public void failed(FailureReason reason) {
+		if (enabled) {
+			failures.incrementAndGet(reason.ordinal());
+		}
+	}
+
+	/**
+	 * @return latency of hold requests, including lock wait.
+	 */
+	public LatencyHistogram holdLatency() {
+		return holdLatency;
+	}
+
+	/**
+	 * @return latency of reserve requests, including lock wait.
+	 */
+	public LatencyHistogram reserveLatency() {
+		return reserveLatency;
+	}
+
+	/**
+	 * @return latency of expiry sweeps.
+	 */
+	public LatencyHistogram expiryLatency() {
+		return expiryLatency;
+	}
+
+	/**
+	 * @return time spent waiting for the service lock. Empty in concurrent mode.
+	 */
+	public LatencyHistogram lockWait() {
+		return lockWait;
+	}
+
+	/**
+	 * @return seats the Venue has left. Holds that have expired but not yet been
+	 *         released are not included.
+	 */
+	public int seatsAvailable() {
+		return seatsAvailable.getAsInt();
+	}
+
+	/**
+	 * @return number of successful holds.
+	 */
+	public long holds() {
+		return holds.sum();
+	}
+
+	/**
+	 * @return number of confirmed reservations.
+	 */
+	public long reservations() {
+		return reservations.sum();
+	}
+
+	/**
+	 * @return number of holds released because they expired.
+	 */
+	public long expirations() {
+		return expirations.sum();
+	}
+
+	/**
+	 * @return number of holds whose seats the customer gave back in full.
+	 */
+	public long releases() {
+		return releases.sum();
+	}
+
+	/**
+	 * @return number of seats customers gave back from their holds.
+	 */
+	public long releasedSeats() {
+		return releasedSeats.sum();
+	}
+
+	/**
+	 * @return number of holds extended.
+	 */
+	public long extensions() {
+		return extensions.sum();
+	}
+
+	/**
+	 * @return holds that have been neither reserved, expired nor released.
+	 */
+	public long outstandingHolds() {
+		return holds() - reservations() - expirations() - releases();
+	}
+
+	/**
+	 * @return expired holds released per second over the last few seconds.
+	 */
+	public double expirationsPerSecond() {
+		return expirationRate.perSecond(System.nanoTime());
+	}
+
+	/**
+	 * @param reason can not be null
+	 * @return number of failures for reason.
+	 */
+	public long failures(FailureReason reason) {
+		return failures.get(reason.ordinal());
+	}
+}
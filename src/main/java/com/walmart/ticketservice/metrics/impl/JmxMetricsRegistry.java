@@ -0,0 +1,164 @@
+package com.walmart.ticketservice.metrics.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.metrics.FailureReason;
+import com.walmart.ticketservice.metrics.MetricsRegistry;
+import com.walmart.ticketservice.metrics.TicketServiceMetrics;
+
+/**
+ * Registers each service as an MXBean named
+ * {@code com.walmart.ticketservice:type=TicketService,name=<name>}. Values are
+ * read from the metrics when JMX asks for them, so registration adds nothing to
+ * the request path.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class JmxMetricsRegistry implements MetricsRegistry {
+
+	private static final Logger LOG = LoggerFactory.getLogger(JmxMetricsRegistry.class);
+
+	private static final JmxMetricsRegistry PLATFORM = new JmxMetricsRegistry(
+			ManagementFactory.getPlatformMBeanServer());
+
+	private final MBeanServer server;
+
+	/**
+	 * @param server can not be null
+	 * @throws NullPointerException if server is null.
+	 */
+	public JmxMetricsRegistry(MBeanServer server) {
+		this.server = Preconditions.checkNotNull(server);
+	}
+
+	/**
+	 * @return a registry using the platform MBeanServer.
+	 */
+	public static JmxMetricsRegistry platform() {
+		return PLATFORM;
+	}
+
+	@Override
+	public void register(String name, TicketServiceMetrics metrics) {
+		Preconditions.checkNotNull(metrics);
+		try {
+			server.registerMBean(new MetricsBean(metrics), objectName(name));
+			LOG.info("Registered metrics for ticket service {}", name);
+		} catch (InstanceAlreadyExistsException e) {
+			throw new IllegalArgumentException(String.format("metrics %s already registered", name), e);
+		} catch (JMException e) {
+			throw new IllegalStateException(String.format("metrics %s could not be registered", name), e);
+		}
+	}
+
+	@Override
+	public void unregister(String name) {
+		try {
+			server.unregisterMBean(objectName(name));
+		} catch (InstanceNotFoundException e) {
+			LOG.debug("metrics {} were not registered", name);
+		} catch (JMException e) {
+			throw new IllegalStateException(String.format("metrics %s could not be unregistered", name), e);
+		}
+	}
+
+	private static ObjectName objectName(String name) throws JMException {
+		Preconditions.checkNotNull(name);
+		return new ObjectName("com.walmart.ticketservice:type=TicketService,name=" + ObjectName.quote(name));
+	}
+
+	private static final class MetricsBean implements TicketServiceMetricsMXBean {
+
+		private final TicketServiceMetrics metrics;
+
+		MetricsBean(TicketServiceMetrics metrics) {
+			this.metrics = metrics;
+		}
+
+		@Override
+		public int getSeatsAvailable() {
+			return metrics.seatsAvailable();
+		}
+
+		@Override
+		public long getOutstandingHolds() {
+			return metrics.outstandingHolds();
+		}
+
+		@Override
+		public long getHolds() {
+			return metrics.holds();
+		}
+
+		@Override
+		public long getReservations() {
+			return metrics.reservations();
+		}
+
+		@Override
+		public long getExpirations() {
+			return metrics.expirations();
+		}
+
+		@Override
+		public long getReleases() {
+			return metrics.releases();
+		}
+
+		@Override
+		public long getReleasedSeats() {
+			return metrics.releasedSeats();
+		}
+
+		@Override
+		public long getExtensions() {
+			return metrics.extensions();
+		}
+
+		@Override
+		public double getExpirationsPerSecond() {
+			return metrics.expirationsPerSecond();
+		}
+
+		@Override
+		public Map<String, Long> getFailures() {
+			Map<String, Long> failures = new LinkedHashMap<>();
+			for (FailureReason reason : FailureReason.values()) {
+				failures.put(reason.name(), metrics.failures(reason));
+			}
+			return failures;
+		}
+
+		@Override
+		public LatencySummary getHoldLatency() {
+			return new LatencySummary(metrics.holdLatency());
+		}
+
+		@Override
+		public LatencySummary getReserveLatency() {
+			return new LatencySummary(metrics.reserveLatency());
+		}
+
+		@Override
+		public LatencySummary getExpiryLatency() {
+			return new LatencySummary(metrics.expiryLatency());
+		}
+
+		@Override
+		public LatencySummary getLockWait() {
+			return new LatencySummary(metrics.lockWait());
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.walmart.ticketservice.metrics.impl;
+
+import com.walmart.ticketservice.metrics.LatencyHistogram;
+
+/**
+ * Point in time view of a LatencyHistogram, exposed over JMX as composite
+ * data. All values are in nanoseconds.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class LatencySummary {
+
+	private final long count;
+
+	private final double mean;
+
+	private final long p50;
+
+	private final long p99;
+
+	private final long p999;
+
+	private final long max;
+
+	LatencySummary(LatencyHistogram histogram) {
+		this.count = histogram.count();
+		this.mean = histogram.mean();
+		this.p50 = histogram.valueAtPercentile(50);
+		this.p99 = histogram.valueAtPercentile(99);
+		this.p999 = histogram.valueAtPercentile(99.9);
+		this.max = histogram.max();
+	}
+
+	/**
+	 * @return number of recorded values.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return mean of recorded values.
+	 */
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * @return median.
+	 */
+	public long getP50() {
+		return p50;
+	}
+
+	/**
+	 * @return 99th percentile.
+	 */
+	public long getP99() {
+		return p99;
+	}
+
+	/**
+	 * @return 99.9th percentile.
+	 */
+	public long getP999() {
+		return p999;
+	}
+
+	/**
+	 * @return largest recorded value.
+	 */
+	public long getMax() {
+		return max;
+	}
+}
@@ -0,0 +1,81 @@
+package com.walmart.ticketservice.metrics.impl;
+
+import java.util.Map;
+
+/**
+ * JMX view of a TicketServiceMetrics.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public interface TicketServiceMetricsMXBean {
+
+	/**
+	 * @return seats the Venue has left.
+	 */
+	int getSeatsAvailable();
+
+	/**
+	 * @return holds that have been neither reserved nor released.
+	 */
+	long getOutstandingHolds();
+
+	/**
+	 * @return number of successful holds.
+	 */
+	long getHolds();
+
+	/**
+	 * @return number of confirmed reservations.
+	 */
+	long getReservations();
+
+	/**
+	 * @return number of holds released because they expired.
+	 */
+	long getExpirations();
+
+	/**
+	 * @return number of holds whose seats the customer gave back in full.
+	 */
+	long getReleases();
+
+	/**
+	 * @return number of seats customers gave back from their holds.
+	 */
+	long getReleasedSeats();
+
+	/**
+	 * @return number of holds extended.
+	 */
+	long getExtensions();
+
+	/**
+	 * @return expired holds released per second.
+	 */
+	double getExpirationsPerSecond();
+
+	/**
+	 * @return failure count by FailureReason name.
+	 */
+	Map<String, Long> getFailures();
+
+	/**
+	 * @return hold request latency.
+	 */
+	LatencySummary getHoldLatency();
+
+	/**
+	 * @return reserve request latency.
+	 */
+	LatencySummary getReserveLatency();
+
+	/**
+	 * @return expiry sweep latency.
+	 */
+	LatencySummary getExpiryLatency();
+
+	/**
+	 * @return service lock wait time.
+	 */
+	LatencySummary getLockWait();
+}
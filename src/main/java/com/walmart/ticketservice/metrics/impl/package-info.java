@@ -0,0 +1,6 @@
+/**
+ * Implementations of MetricsRegistry.
+ * 
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+package com.walmart.ticketservice.metrics.impl;
\ No newline at end of file
@@ -0,0 +1,6 @@
+/**
+ * Low overhead counters and latency histograms for TicketService.
+ * 
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+package com.walmart.ticketservice.metrics;
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.walmart.ticketservice.model;
+
+/**
+ * A Venue whose seats belong to price tiers. Tier 0 is the cheapest and higher
+ * tiers cost more. Seats issued without a tier limit may come from any tier.
+ * 
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public interface TieredVenue extends Venue {
+
+	/**
+	 * Returns the best n seats priced at or below maxTier, or however many remain
+	 * in those tiers - whichever is the lowest.
+	 * 
+	 * @param n       must be > 0
+	 * @param maxTier must be >= 0
+	 * @throws IllegalArgumentException if n <= 0 or maxTier < 0
+	 * @return possibly empty array containing up to requested number of seat ids.
+	 */
+	int[] getNSeats(int n, int maxTier);
+
+	/**
+	 * @param maxTier must be >= 0
+	 * @throws IllegalArgumentException if maxTier < 0
+	 * @return number of remaining seats priced at or below maxTier.
+	 */
+	int remainingSeats(int maxTier);
+}
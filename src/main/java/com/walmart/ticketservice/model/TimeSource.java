@@ -0,0 +1,28 @@
+package com.walmart.ticketservice.model;
+
+import java.time.Instant;
+
+import com.walmart.ticketservice.model.impl.EpochNanos;
+
+/**
+ * Where a TicketService gets the time. Hold deadlines are nanoseconds since
+ * the epoch in a primitive long, so checking one against
+ * {@link #epochNanos()} is a single comparison.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public interface TimeSource {
+
+	/**
+	 * @return the current time as nanoseconds since the epoch. Must be safe to
+	 *         call from any thread and must never decrease.
+	 */
+	long epochNanos();
+
+	/**
+	 * @return the current time as an Instant.
+	 */
+	default Instant instant() {
+		return EpochNanos.toInstant(epochNanos());
+	}
+}
@@ -1,5 +1,10 @@
 package com.walmart.ticketservice.model;
 
+import java.util.BitSet;
+import java.util.Collection;
+
+import com.google.common.base.Preconditions;
+
 /**
  * Manages issuing the current best seats, allowing previously issued seats to
  * be returned.
@@ -10,6 +15,8 @@ public interface Venue {
 
 	/**
 	 * Returns n sets, or however many remain - whichever is the lowest.
+	 * Implementations that place seats under constraints, such as keeping a group
+	 * together, may return fewer when the constraint can not be met.
 	 * 
 	 * @param n must be > 0
 	 * @throws IllegalArgumentException if seats <= 0
@@ -27,8 +34,54 @@ public interface Venue {
 	 */
 	void releaseSeats(int[] seats);
 
+	/**
+	 * Returns the seats of many holds at once, such as a wave of expired holds,
+	 * so the Venue is locked and its seats checked once for all of them. By
+	 * default the groups are concatenated into a single
+	 * {@link #releaseSeats(int[])} call.
+	 * 
+	 * @param seatGroups can not be null or contain null
+	 * @throws IllegalArgumentException if any seat has not been issued or
+	 *                                  seatGroups is null.
+	 */
+	default void releaseAll(Collection<int[]> seatGroups) {
+		Preconditions.checkArgument(seatGroups != null, "seatGroups can not be null");
+		int count = 0;
+		for (int[] group : seatGroups) {
+			count += group.length;
+		}
+		int[] seats = new int[count];
+		int offset = 0;
+		for (int[] group : seatGroups) {
+			System.arraycopy(group, 0, seats, offset, group.length);
+			offset += group.length;
+		}
+		releaseSeats(seats);
+	}
+
 	/**
 	 * @return number of remaining seats.
 	 */
 	int remainingSeats();
+
+	/**
+	 * @return true if the seats issued by one call are placed as a group, so one
+	 *         call can not stand in for several smaller ones.
+	 */
+	default boolean placesGroups() {
+		return false;
+	}
+
+	/**
+	 * A copy of which seats can currently be issued, in the same form
+	 * {@link com.walmart.ticketservice.model.impl.Venues#restore} takes the seats
+	 * that can not. Not supported by default.
+	 * 
+	 * @throws UnsupportedOperationException if the Venue can not list its seats.
+	 * @return bit n set for every seat n that has not been issued or has been
+	 *         released.
+	 */
+	default BitSet availableSeats() {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + " can not list its seats");
+	}
 }
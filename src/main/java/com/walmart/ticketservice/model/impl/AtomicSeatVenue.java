@@ -0,0 +1,206 @@
+package com.walmart.ticketservice.model.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.model.Venue;
+
+/**
+ * A lock free Venue where lower seat numbers are better seats. Issued seats are
+ * tracked in a bitset that is updated with compare-and-set, so callers on
+ * different threads never block each other. The count of remaining seats is
+ * reserved before any bits are claimed, which guarantees a caller always finds
+ * the seats it was granted and no seat is issued twice.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class AtomicSeatVenue implements Venue {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AtomicSeatVenue.class);
+
+	private final int capacity;
+
+	private final AtomicLongArray issued;
+
+	private final AtomicInteger remaining;
+
+	private final AtomicInteger firstFreeWord = new AtomicInteger();
+
+	/**
+	 * Starts issuing at seat number 1, up to and including capacity.
+	 *
+	 * @param capacity must be > 0
+	 * @throws IllegalArgumentException if capacity <= 0
+	 */
+	public AtomicSeatVenue(int capacity) {
+		Preconditions.checkArgument(capacity > 0, String.format("capacity must be > 0, %s supplied", capacity));
+		this.capacity = capacity;
+		this.issued = new AtomicLongArray((capacity + Long.SIZE - 1) / Long.SIZE);
+		this.remaining = new AtomicInteger(capacity);
+	}
+
+	@Override
+	public int[] getNSeats(int n) {
+		Preconditions.checkArgument(n > 0, "n must be greater than 0");
+		int granted = reserve(n);
+		int[] seats = new int[granted];
+		int filled = 0;
+		int start = firstFreeWord.get();
+		int word = start;
+		boolean wrapped = false;
+		while (filled < granted) {
+			if (word >= issued.length()) {
+				word = 0;
+				wrapped = true;
+			}
+			long current = issued.get(word);
+			long free = ~current & wordMask(word);
+			if (free == 0) {
+				word++;
+				continue;
+			}
+			long claim = 0;
+			int claimed = 0;
+			while (free != 0 && filled + claimed < granted) {
+				long bit = Long.lowestOneBit(free);
+				claim |= bit;
+				free ^= bit;
+				claimed++;
+			}
+			if (issued.compareAndSet(word, current, current | claim)) {
+				while (claim != 0) {
+					seats[filled++] = word * Long.SIZE + Long.numberOfTrailingZeros(claim) + 1;
+					claim &= claim - 1;
+				}
+			}
+		}
+		if (!wrapped && word > start) {
+			firstFreeWord.compareAndSet(start, word);
+		}
+		if (wrapped) {
+			Arrays.sort(seats);
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("getNSeats - n is {}, issued {}", n, granted);
+		}
+		return seats;
+	}
+
+	private int reserve(int n) {
+		while (true) {
+			int available = remaining.get();
+			int granted = available > n ? n : available;
+			if (remaining.compareAndSet(available, available - granted)) {
+				return granted;
+			}
+		}
+	}
+
+	private long wordMask(int word) {
+		int bits = capacity - word * Long.SIZE;
+		return bits >= Long.SIZE ? -1L : (1L << bits) - 1;
+	}
+
+	/**
+	 * Every seat is checked before any is returned, so a bad array leaves the
+	 * venue unchanged.
+	 */
+	@Override
+	public void releaseSeats(int[] seatNumbers) {
+		Preconditions.checkArgument(seatNumbers != null, "seatNumbers can not be null");
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Venue recieved back {} seats", seatNumbers.length);
+		}
+		// sorted so duplicates are adjacent and seats in the same word are grouped
+		int[] sorted = seatNumbers.clone();
+		Arrays.sort(sorted);
+		for (int i = 0; i < sorted.length; i++) {
+			if (i > 0 && sorted[i] == sorted[i - 1]) {
+				throw notIssued(sorted[i]);
+			}
+			verifyIssued(sorted[i]);
+		}
+		int lowestWord = sorted.length == 0 ? Integer.MAX_VALUE : (sorted[0] - 1) / Long.SIZE;
+		int freed = 0;
+		try {
+			int next = 0;
+			while (next < sorted.length) {
+				// seats in the same word are returned by one CAS
+				int word = (sorted[next] - 1) / Long.SIZE;
+				long mask = 0;
+				for (; next < sorted.length && (sorted[next] - 1) / Long.SIZE == word; next++) {
+					mask |= 1L << ((sorted[next] - 1) % Long.SIZE);
+				}
+				clear(word, mask);
+				freed += Long.bitCount(mask);
+			}
+		} finally {
+			// seats cleared before a concurrent return of the same seat was found
+			// stay free, so they must be counted or they would never be issued again
+			remaining.addAndGet(freed);
+			lowerFirstFreeWord(lowestWord);
+		}
+	}
+
+	private void clear(int word, long mask) {
+		while (true) {
+			long current = issued.get(word);
+			if ((current & mask) != mask) {
+				throw notIssued(word * Long.SIZE + Long.numberOfTrailingZeros(mask & ~current) + 1);
+			}
+			if (issued.compareAndSet(word, current, current & ~mask)) {
+				return;
+			}
+		}
+	}
+
+	private void lowerFirstFreeWord(int word) {
+		while (true) {
+			int current = firstFreeWord.get();
+			if (current <= word || firstFreeWord.compareAndSet(current, word)) {
+				return;
+			}
+		}
+	}
+
+	private void verifyIssued(int seat) {
+		if (seat < 1 || seat > capacity
+				|| (issued.get((seat - 1) / Long.SIZE) & (1L << ((seat - 1) % Long.SIZE))) == 0) {
+			throw notIssued(seat);
+		}
+	}
+
+	private IllegalArgumentException notIssued(int seat) {
+		LOG.error("Seat {} was not issued or has been returned already", seat);
+		return new IllegalArgumentException(String.format("supplied seat %s never issued, can not return", seat));
+	}
+
+	@Override
+	public int remainingSeats() {
+		return remaining.get();
+	}
+
+	/**
+	 * Reads each word of the bitset once without blocking, so seats issued or
+	 * released while copying may or may not be reflected.
+	 */
+	@Override
+	public BitSet availableSeats() {
+		BitSet available = new BitSet(capacity + 1);
+		for (int word = 0; word < issued.length(); word++) {
+			long free = ~issued.get(word) & wordMask(word);
+			while (free != 0) {
+				available.set(word * Long.SIZE + Long.numberOfTrailingZeros(free) + 1);
+				free &= free - 1;
+			}
+		}
+		return available;
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.walmart.ticketservice.model.impl;
+
+import java.util.BitSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.model.Venue;
+
+/**
+ * A Venue where lower seat numbers are better seats, backed by a primitive
+ * bitset with a segment tree of free counts. Issuing n seats costs
+ * O(n + log capacity) per word touched with no boxing, and each released seat
+ * is verified in O(1), so large batches of expiring holds stay cheap.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class BitSetSeatVenue implements Venue {
+
+	private static final Logger LOG = LoggerFactory.getLogger(BitSetSeatVenue.class);
+
+	private final FreeSeatTree seats;
+
+	/**
+	 * Starts issuing at seat number 1, up to and including capacity.
+	 *
+	 * @param capacity must be > 0
+	 * @throws IllegalArgumentException if capacity <= 0
+	 */
+	public BitSetSeatVenue(int capacity) {
+		Preconditions.checkArgument(capacity > 0, String.format("capacity must be > 0, %s supplied", capacity));
+		this.seats = new FreeSeatTree(capacity, true);
+	}
+
+	@Override
+	public synchronized int[] getNSeats(int n) {
+		Preconditions.checkArgument(n > 0, "n must be greater than 0");
+		int[] issued = new int[Math.min(n, seats.free())];
+		seats.takeLowest(issued.length, issued, 0);
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("getNSeats - n is {}, issued {}", n, issued.length);
+		}
+		return issued;
+	}
+
+	@Override
+	public synchronized void releaseSeats(int[] seatNumbers) {
+		Preconditions.checkArgument(seatNumbers != null, "seatNumbers can not be null");
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Venue recieved back {} seats", seatNumbers.length);
+		}
+		for (int i = 0; i < seatNumbers.length; i++) {
+			int seat = seatNumbers[i];
+			if (!seats.contains(seat) || seats.isFree(seat)) {
+				// leave the venue as it was before the call
+				for (int j = 0; j < i; j++) {
+					seats.take(seatNumbers[j]);
+				}
+				LOG.error("Seat {} was not issued or has been returned already", seat);
+				throw new IllegalArgumentException(String.format("supplied seat %s never issued, can not return", seat));
+			}
+			seats.release(seat);
+		}
+	}
+
+	@Override
+	public synchronized int remainingSeats() {
+		return seats.free();
+	}
+
+	@Override
+	public synchronized BitSet availableSeats() {
+		BitSet available = new BitSet();
+		for (int seat = 1; seats.contains(seat); seat++) {
+			if (seats.isFree(seat)) {
+				available.set(seat);
+			}
+		}
+		return available;
+	}
+
+}
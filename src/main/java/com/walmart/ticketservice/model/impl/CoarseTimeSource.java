@@ -0,0 +1,71 @@
+package com.walmart.ticketservice.model.impl;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.walmart.ticketservice.model.TimeSource;
+
+/**
+ * A cached clock: a ticker thread copies the time from another source into a
+ * volatile field once per resolution, so reading it is a single volatile load.
+ * Time lags the source by up to one resolution, so holds may outlive their
+ * deadline by that much.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class CoarseTimeSource implements TimeSource, AutoCloseable {
+
+	private final TimeSource source;
+
+	private volatile long epochNanos;
+
+	private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("coarse-clock-%d").setDaemon(true).build());
+
+	/**
+	 * Caches {@link MonotonicTimeSource#system()}.
+	 *
+	 * @param resolution time between updates, must be positive
+	 * @throws NullPointerException     if resolution is null.
+	 * @throws IllegalArgumentException if resolution is not positive.
+	 */
+	public CoarseTimeSource(Duration resolution) {
+		this(MonotonicTimeSource.system(), resolution);
+	}
+
+	/**
+	 * @param source     read by the ticker, can not be null
+	 * @param resolution time between updates, must be positive
+	 * @throws NullPointerException     if any arg is null.
+	 * @throws IllegalArgumentException if resolution is not positive.
+	 */
+	public CoarseTimeSource(TimeSource source, Duration resolution) {
+		Preconditions.checkArgument(!resolution.isNegative() && !resolution.isZero(), "resolution must be positive");
+		this.source = Preconditions.checkNotNull(source);
+		this.epochNanos = source.epochNanos();
+		long period = resolution.toNanos();
+		ticker.scheduleAtFixedRate(this::tick, period, period, TimeUnit.NANOSECONDS);
+	}
+
+	private void tick() {
+		// the field is only written here, so it can not move backwards
+		epochNanos = Math.max(epochNanos, source.epochNanos());
+	}
+
+	@Override
+	public long epochNanos() {
+		return epochNanos;
+	}
+
+	/**
+	 * Stops the ticker. Time stands still afterwards.
+	 */
+	@Override
+	public void close() {
+		ticker.shutdownNow();
+	}
+}
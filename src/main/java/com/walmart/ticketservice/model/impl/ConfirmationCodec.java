@@ -0,0 +1,204 @@
+package com.walmart.ticketservice.model.impl;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Signed confirmation codes. A code packs a ledger sequence number and the
+ * seatHoldId into 8 bytes, appends the first 7 bytes of their HMAC-SHA256 and
+ * encodes the 15 bytes as 24 base32 characters (RFC 4648 alphabet, no
+ * padding). Nothing about the customer is revealed, and a code can only be
+ * forged with the key. Decoding is case insensitive.
+ * <p>
+ * Thread safe. Each thread reuses its own Mac and scratch buffers, so encoding
+ * allocates only the returned String.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class ConfirmationCodec {
+
+	/**
+	 * Length of every code.
+	 */
+	public static final int CODE_LENGTH = 24;
+
+	/**
+	 * Returned by {@link #decode(CharSequence)} for a malformed or forged code.
+	 */
+	public static final long INVALID = -1L;
+
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567".toCharArray();
+
+	private static final int[] VALUES = new int[128];
+
+	private static final int PAYLOAD_BYTES = 8;
+
+	private static final int TAG_BYTES = 7;
+
+	private static final int CODE_BYTES = PAYLOAD_BYTES + TAG_BYTES;
+
+	static {
+		Arrays.fill(VALUES, -1);
+		for (int i = 0; i < ALPHABET.length; i++) {
+			VALUES[ALPHABET[i]] = i;
+			VALUES[Character.toLowerCase(ALPHABET[i])] = i;
+		}
+	}
+
+	private final SecretKeySpec key;
+
+	private final ThreadLocal<Scratch> scratch;
+
+	/**
+	 * @param key secret shared with anything that verifies codes, at least 16
+	 *            bytes. Copied.
+	 * @throws NullPointerException     if key is null.
+	 * @throws IllegalArgumentException if key is shorter than 16 bytes.
+	 */
+	public ConfirmationCodec(byte[] key) {
+		Preconditions.checkArgument(key.length >= 16, String.format("key must be at least 16 bytes, %s supplied",
+				key.length));
+		this.key = new SecretKeySpec(Arrays.copyOf(key, key.length), ALGORITHM);
+		this.scratch = ThreadLocal.withInitial(() -> new Scratch(this.key));
+		// fail now rather than on the first reservation if HMAC is unavailable
+		scratch.get();
+	}
+
+	/**
+	 * @return a codec with a new random key, whose codes only it can verify.
+	 */
+	public static ConfirmationCodec withRandomKey() {
+		byte[] key = new byte[32];
+		new SecureRandom().nextBytes(key);
+		return new ConfirmationCodec(key);
+	}
+
+	/**
+	 * @param sequence   position of the reservation in its ledger, must be >= 0
+	 * @param seatHoldId id of the reserved hold
+	 * @throws IllegalArgumentException if sequence < 0
+	 * @return a {@link #CODE_LENGTH} character code.
+	 */
+	public String encode(int sequence, int seatHoldId) {
+		Preconditions.checkArgument(sequence >= 0, String.format("sequence must be >= 0, %s supplied", sequence));
+		Scratch buffers = scratch.get();
+		byte[] bytes = buffers.bytes;
+		putInt(bytes, 0, sequence);
+		putInt(bytes, 4, seatHoldId);
+		buffers.sign();
+		System.arraycopy(buffers.tag, 0, bytes, PAYLOAD_BYTES, TAG_BYTES);
+		char[] chars = buffers.chars;
+		// 15 bytes are exactly 24 groups of 5 bits
+		int buffer = 0;
+		int bits = 0;
+		int next = 0;
+		for (byte b : bytes) {
+			buffer = (buffer << 8) | (b & 0xFF);
+			bits += 8;
+			while (bits >= 5) {
+				bits -= 5;
+				chars[next++] = ALPHABET[(buffer >>> bits) & 0x1F];
+			}
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Checks the signature of a code without allocating.
+	 *
+	 * @param code can be anything
+	 * @return the sequence in the high 32 bits and the seatHoldId in the low 32
+	 *         bits, or {@link #INVALID} if the code is malformed or was not
+	 *         signed with this key.
+	 */
+	public long decode(CharSequence code) {
+		if (code == null || code.length() != CODE_LENGTH) {
+			return INVALID;
+		}
+		Scratch buffers = scratch.get();
+		byte[] bytes = buffers.bytes;
+		int buffer = 0;
+		int bits = 0;
+		int next = 0;
+		for (int i = 0; i < CODE_LENGTH; i++) {
+			char c = code.charAt(i);
+			int value = c < VALUES.length ? VALUES[c] : -1;
+			if (value < 0) {
+				return INVALID;
+			}
+			buffer = (buffer << 5) | value;
+			bits += 5;
+			if (bits >= 8) {
+				bits -= 8;
+				bytes[next++] = (byte) (buffer >>> bits);
+			}
+		}
+		buffers.sign();
+		// compare every byte so timing does not reveal how much of a tag matched
+		int difference = 0;
+		for (int i = 0; i < TAG_BYTES; i++) {
+			difference |= buffers.tag[i] ^ bytes[PAYLOAD_BYTES + i];
+		}
+		int sequence = getInt(bytes, 0);
+		if (difference != 0 || sequence < 0) {
+			return INVALID;
+		}
+		return ((long) sequence << 32) | (getInt(bytes, 4) & 0xFFFFFFFFL);
+	}
+
+	private static void putInt(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) (value >>> 24);
+		bytes[offset + 1] = (byte) (value >>> 16);
+		bytes[offset + 2] = (byte) (value >>> 8);
+		bytes[offset + 3] = (byte) value;
+	}
+
+	private static int getInt(byte[] bytes, int offset) {
+		return (bytes[offset] << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8)
+				| (bytes[offset + 3] & 0xFF);
+	}
+
+	/**
+	 * Per thread Mac and buffers.
+	 */
+	private static final class Scratch {
+
+		private final Mac mac;
+
+		private final byte[] bytes = new byte[CODE_BYTES];
+
+		private final byte[] tag;
+
+		private final char[] chars = new char[CODE_LENGTH];
+
+		private Scratch(SecretKeySpec key) {
+			try {
+				this.mac = Mac.getInstance(ALGORITHM);
+				mac.init(key);
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(ALGORITHM + " is not available", e);
+			}
+			this.tag = new byte[mac.getMacLength()];
+		}
+
+		/**
+		 * Signs the payload at the start of bytes into tag.
+		 */
+		private void sign() {
+			mac.update(bytes, 0, PAYLOAD_BYTES);
+			try {
+				mac.doFinal(tag, 0);
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package com.walmart.ticketservice.model.impl;
+
+import java.util.BitSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.model.Venue;
+
+/**
+ * A Venue that keeps groups together. Seats are numbered row by row starting at
+ * 1, lower numbers being better seats, and a request for n seats is given the
+ * lowest run of n free seats within a single row. When no row has such a run
+ * the venue either scatters the group over the lowest free seats or issues
+ * nothing, depending on configuration.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class ContiguousSeatVenue implements Venue {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ContiguousSeatVenue.class);
+
+	private final FreeRunTree seats;
+
+	private final boolean scatterFallback;
+
+	/**
+	 * @param rows            must be > 0
+	 * @param seatsPerRow     must be > 0
+	 * @param scatterFallback if true, requests that can not be seated together
+	 *                        get the lowest free seats instead of none.
+	 * @throws IllegalArgumentException if rows or seatsPerRow <= 0
+	 */
+	public ContiguousSeatVenue(int rows, int seatsPerRow, boolean scatterFallback) {
+		this.seats = new FreeRunTree(rows, seatsPerRow);
+		this.scatterFallback = scatterFallback;
+	}
+
+	/**
+	 * Returns a run of n seats in one row. If there is none, returns the lowest n
+	 * free seats when falling back to scattered seats, otherwise an empty array.
+	 */
+	@Override
+	public synchronized int[] getNSeats(int n) {
+		Preconditions.checkArgument(n > 0, "n must be greater than 0");
+		int first = seats.lowestRun(n);
+		int[] issued;
+		if (first > 0) {
+			issued = new int[n];
+			for (int i = 0; i < n; i++) {
+				issued[i] = first + i;
+				seats.take(first + i);
+			}
+		} else if (scatterFallback) {
+			issued = new int[Math.min(n, seats.free())];
+			for (int i = 0; i < issued.length; i++) {
+				issued[i] = seats.lowestRun(1);
+				seats.take(issued[i]);
+			}
+		} else {
+			issued = new int[0];
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("getNSeats - n is {}, issued {} starting at {}", n, issued.length, first);
+		}
+		return issued;
+	}
+
+	@Override
+	public synchronized void releaseSeats(int[] seatNumbers) {
+		Preconditions.checkArgument(seatNumbers != null, "seatNumbers can not be null");
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Venue recieved back {} seats", seatNumbers.length);
+		}
+		for (int i = 0; i < seatNumbers.length; i++) {
+			int seat = seatNumbers[i];
+			if (!seats.contains(seat) || seats.isFree(seat)) {
+				// leave the venue as it was before the call
+				for (int j = 0; j < i; j++) {
+					seats.take(seatNumbers[j]);
+				}
+				LOG.error("Seat {} was not issued or has been returned already", seat);
+				throw new IllegalArgumentException(String.format("supplied seat %s never issued, can not return", seat));
+			}
+			seats.release(seat);
+		}
+	}
+
+	@Override
+	public synchronized int remainingSeats() {
+		return seats.free();
+	}
+
+	@Override
+	public synchronized BitSet availableSeats() {
+		BitSet available = new BitSet();
+		for (int seat = 1; seats.contains(seat); seat++) {
+			if (seats.isFree(seat)) {
+				available.set(seat);
+			}
+		}
+		return available;
+	}
+
+	@Override
+	public boolean placesGroups() {
+		return true;
+	}
+
+}
@@ -0,0 +1,45 @@
+package com.walmart.ticketservice.model.impl;
+
+import java.time.Instant;
+
+/**
+ * Conversions between Instant and nanoseconds since the epoch held in a
+ * primitive long, which covers the years 1677 to 2262.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class EpochNanos {
+
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+	private static final long NANOS_PER_MILLI = 1_000_000L;
+
+	private EpochNanos() {
+	}
+
+	/**
+	 * @return the current system time with millisecond resolution, without
+	 *         allocating.
+	 */
+	public static long now() {
+		return System.currentTimeMillis() * NANOS_PER_MILLI;
+	}
+
+	/**
+	 * @param time can not be null
+	 * @throws ArithmeticException if time is outside the range of a long.
+	 * @return nanoseconds since the epoch.
+	 */
+	public static long of(Instant time) {
+		return Math.addExact(Math.multiplyExact(time.getEpochSecond(), NANOS_PER_SECOND), time.getNano());
+	}
+
+	/**
+	 * @param epochNanos nanoseconds since the epoch
+	 * @return the equivalent Instant.
+	 */
+	public static Instant toInstant(long epochNanos) {
+		return Instant.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+				Math.floorMod(epochNanos, NANOS_PER_SECOND));
+	}
+}
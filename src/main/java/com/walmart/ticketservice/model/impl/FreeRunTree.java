@@ -0,0 +1,143 @@
+package com.walmart.ticketservice.model.impl;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Interval index of free runs of seats laid out in rows. Each node of a segment
+ * tree stores the longest free prefix, suffix and run within its range, and
+ * runs are never joined across the start of a row, so the lowest run of at
+ * least n free seats in a single row is found in O(log capacity) regardless of
+ * how fragmented the venue is. Seat numbers start at 1. Not thread safe.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+final class FreeRunTree {
+
+	private final int capacity;
+
+	private final int seatsPerRow;
+
+	private final int leaves;
+
+	private final int[] prefix;
+
+	private final int[] suffix;
+
+	private final int[] longest;
+
+	private int free;
+
+	/**
+	 * Every seat starts free.
+	 *
+	 * @param rows        must be > 0
+	 * @param seatsPerRow must be > 0
+	 */
+	FreeRunTree(int rows, int seatsPerRow) {
+		Preconditions.checkArgument(rows > 0, String.format("rows must be > 0, %s supplied", rows));
+		Preconditions.checkArgument(seatsPerRow > 0,
+				String.format("seatsPerRow must be > 0, %s supplied", seatsPerRow));
+		this.capacity = Math.multiplyExact(rows, seatsPerRow);
+		this.seatsPerRow = seatsPerRow;
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		this.leaves = size;
+		this.prefix = new int[2 * size];
+		this.suffix = new int[2 * size];
+		this.longest = new int[2 * size];
+		for (int index = 0; index < capacity; index++) {
+			prefix[leaves + index] = 1;
+			suffix[leaves + index] = 1;
+			longest[leaves + index] = 1;
+		}
+		for (int node = leaves - 1; node > 0; node--) {
+			pull(node);
+		}
+		this.free = capacity;
+	}
+
+	int free() {
+		return free;
+	}
+
+	boolean contains(int seat) {
+		return seat >= 1 && seat <= capacity;
+	}
+
+	boolean isFree(int seat) {
+		return longest[leaves + seat - 1] == 1;
+	}
+
+	/**
+	 * @return the first seat of the lowest run of n free seats in one row, or 0
+	 *         if there is none.
+	 */
+	int lowestRun(int n) {
+		if (longest[1] < n) {
+			return 0;
+		}
+		int node = 1;
+		while (node < leaves) {
+			int left = 2 * node;
+			int right = left + 1;
+			if (longest[left] >= n) {
+				node = left;
+			} else if (joins(node) && suffix[left] + prefix[right] >= n) {
+				return boundary(node) - suffix[left] + 1;
+			} else {
+				node = right;
+			}
+		}
+		return node - leaves + 1;
+	}
+
+	void take(int seat) {
+		set(seat - 1, 0);
+		free--;
+	}
+
+	void release(int seat) {
+		set(seat - 1, 1);
+		free++;
+	}
+
+	private void set(int index, int value) {
+		int node = leaves + index;
+		prefix[node] = value;
+		suffix[node] = value;
+		longest[node] = value;
+		for (node >>= 1; node > 0; node >>= 1) {
+			pull(node);
+		}
+	}
+
+	private void pull(int node) {
+		int left = 2 * node;
+		int right = left + 1;
+		int half = span(node) / 2;
+		boolean joins = joins(node);
+		prefix[node] = joins && prefix[left] == half ? half + prefix[right] : prefix[left];
+		suffix[node] = joins && suffix[right] == half ? half + suffix[left] : suffix[right];
+		int crossing = joins ? suffix[left] + prefix[right] : 0;
+		longest[node] = Math.max(crossing, Math.max(longest[left], longest[right]));
+	}
+
+	private int span(int node) {
+		return leaves / Integer.highestOneBit(node);
+	}
+
+	/**
+	 * @return the index of the first position in the right child of node.
+	 */
+	private int boundary(int node) {
+		int span = span(node);
+		return (node - Integer.highestOneBit(node)) * span + span / 2;
+	}
+
+	private boolean joins(int node) {
+		int boundary = boundary(node);
+		return boundary < capacity && boundary % seatsPerRow != 0;
+	}
+}
@@ -0,0 +1,139 @@
+package com.walmart.ticketservice.model.impl;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Primitive index of free seats. Seats are bits in a long[] (set means free)
+ * and a segment tree over the words counts the free seats below each node, so
+ * the lowest free seat is found in O(log capacity) and checking a single seat
+ * is O(1). Seat numbers start at 1. Not thread safe.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+final class FreeSeatTree {
+
+	private final int capacity;
+
+	private final long[] words;
+
+	private final int[] freeCounts;
+
+	private final int leaves;
+
+	/**
+	 * @param capacity   number of seats, must be > 0
+	 * @param initiallyFree if true every seat starts free, otherwise every seat
+	 *                   starts taken
+	 */
+	FreeSeatTree(int capacity, boolean initiallyFree) {
+		Preconditions.checkArgument(capacity > 0, String.format("capacity must be > 0, %s supplied", capacity));
+		this.capacity = capacity;
+		this.words = new long[(capacity + Long.SIZE - 1) / Long.SIZE];
+		int size = 1;
+		while (size < words.length) {
+			size <<= 1;
+		}
+		this.leaves = size;
+		this.freeCounts = new int[2 * size];
+		if (initiallyFree) {
+			for (int word = 0; word < words.length; word++) {
+				int bits = Math.min(Long.SIZE, capacity - word * Long.SIZE);
+				words[word] = bits == Long.SIZE ? -1L : (1L << bits) - 1;
+				freeCounts[leaves + word] = bits;
+			}
+			for (int node = leaves - 1; node > 0; node--) {
+				freeCounts[node] = freeCounts[2 * node] + freeCounts[2 * node + 1];
+			}
+		}
+	}
+
+	int capacity() {
+		return capacity;
+	}
+
+	int free() {
+		return freeCounts[1];
+	}
+
+	boolean contains(int seat) {
+		return seat >= 1 && seat <= capacity;
+	}
+
+	boolean isFree(int seat) {
+		int index = seat - 1;
+		return (words[index / Long.SIZE] & (1L << (index % Long.SIZE))) != 0;
+	}
+
+	/**
+	 * Marks the seat free. The seat must currently be taken.
+	 */
+	void release(int seat) {
+		int index = seat - 1;
+		words[index / Long.SIZE] |= 1L << (index % Long.SIZE);
+		adjust(index / Long.SIZE, 1);
+	}
+
+	/**
+	 * Marks the seat taken. The seat must currently be free.
+	 */
+	void take(int seat) {
+		int index = seat - 1;
+		words[index / Long.SIZE] &= ~(1L << (index % Long.SIZE));
+		adjust(index / Long.SIZE, -1);
+	}
+
+	/**
+	 * Takes the lowest n free seats, writing them to into in ascending order.
+	 *
+	 * @return number of seats taken, which is less than n only when the tree ran
+	 *         out of free seats.
+	 */
+	int takeLowest(int n, int[] into, int offset) {
+		int taken = 0;
+		while (taken < n && freeCounts[1] > 0) {
+			int word = lowestFreeWord();
+			long free = words[word];
+			int claimed = 0;
+			while (free != 0 && taken < n) {
+				into[offset + taken++] = word * Long.SIZE + Long.numberOfTrailingZeros(free) + 1;
+				free &= free - 1;
+				claimed++;
+			}
+			words[word] = free;
+			adjust(word, -claimed);
+		}
+		return taken;
+	}
+
+	/**
+	 * @return the lowest free seat, or 0 if none are free.
+	 */
+	int lowestFree() {
+		if (freeCounts[1] == 0) {
+			return 0;
+		}
+		int word = lowestFreeWord();
+		return word * Long.SIZE + Long.numberOfTrailingZeros(words[word]) + 1;
+	}
+
+	/**
+	 * @return a copy of the bitmap, bit i set when seat i + 1 is free.
+	 */
+	long[] toLongArray() {
+		return words.clone();
+	}
+
+	private int lowestFreeWord() {
+		int node = 1;
+		while (node < leaves) {
+			node = freeCounts[2 * node] > 0 ? 2 * node : 2 * node + 1;
+		}
+		return node - leaves;
+	}
+
+	private void adjust(int word, int delta) {
+		for (int node = leaves + word; node > 0; node >>= 1) {
+			freeCounts[node] += delta;
+		}
+	}
+}
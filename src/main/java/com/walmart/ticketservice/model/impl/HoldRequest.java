@@ -0,0 +1,38 @@
+package com.walmart.ticketservice.model.impl;
+
+/**
+ * One customer's request to find and hold seats, used for batch holds.
+ * Arguments are validated by the TicketService, like the arguments of a single
+ * hold.
+ * 
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class HoldRequest {
+
+	private final int numSeats;
+
+	private final String customerEmail;
+
+	/**
+	 * @param numSeats      the number of seats to find and hold
+	 * @param customerEmail unique identifier for the customer
+	 */
+	public HoldRequest(int numSeats, String customerEmail) {
+		this.numSeats = numSeats;
+		this.customerEmail = customerEmail;
+	}
+
+	/**
+	 * @return the number of seats requested.
+	 */
+	public int getNumSeats() {
+		return numSeats;
+	}
+
+	/**
+	 * @return the customer, possibly null.
+	 */
+	public String getCustomerEmail() {
+		return customerEmail;
+	}
+}
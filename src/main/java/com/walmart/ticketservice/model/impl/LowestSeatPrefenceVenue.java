@@ -1,16 +1,11 @@
 package com.walmart.ticketservice.model.impl;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.BitSet;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Streams;
 import com.walmart.ticketservice.model.Venue;
 
 /**
@@ -26,7 +21,10 @@ public final class LowestSeatPrefenceVenue implements Venue {
 
 	private final int capacity;
 
-	private final List<Integer> returnedSeats = new ArrayList<>();
+	// bit n set if seat n was returned and has not been issued again
+	private final BitSet returnedSeats = new BitSet();
+
+	private int returnedCount;
 
 	private int lastIssued;
 
@@ -49,11 +47,24 @@ public final class LowestSeatPrefenceVenue implements Venue {
 		synchronized (returnedSeats) {
 			int remainingSeats = remainingSeats();
 			int toGenerate = remainingSeats > n ? n : remainingSeats;
-			LOG.debug("getNseats - n is {} remainingSeats is {}", n, remainingSeats);
-			IntStream seatStream = Streams.concat(returnedSeats.stream().sorted().mapToInt(Integer::intValue),
-					IntStream.generate(() -> ++lastIssued).limit(toGenerate - returnedSeats.size()));
-			seatsToReturn = seatStream.toArray();
-			LOG.debug("getNSeats returning {}", seatsToReturn);
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("getNseats - n is {} remainingSeats is {}", n, remainingSeats);
+			}
+			seatsToReturn = new int[toGenerate];
+			// returned seats are reissued first, lowest first
+			int issued = 0;
+			for (int seat = returnedSeats.nextSetBit(0); seat >= 0 && issued < toGenerate; seat = returnedSeats
+					.nextSetBit(seat + 1)) {
+				seatsToReturn[issued++] = seat;
+				returnedSeats.clear(seat);
+			}
+			returnedCount -= issued;
+			while (issued < toGenerate) {
+				seatsToReturn[issued++] = ++lastIssued;
+			}
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("getNSeats returning {} seats", seatsToReturn.length);
+			}
 		}
 		return seatsToReturn;
 	}
@@ -62,23 +73,49 @@ public final class LowestSeatPrefenceVenue implements Venue {
 	public void releaseSeats(int[] seatNumbers) {
 		Preconditions.checkArgument(seatNumbers != null, "seatNumbers can not be null");
 		synchronized (returnedSeats) {
-			LOG.debug("Venue recieved back seats {}", seatNumbers);
-			Arrays.stream(seatNumbers).forEach(this::verifyIssued);
-			returnedSeats.addAll(Arrays.stream(seatNumbers).boxed().collect(Collectors.toList()));
-			LOG.debug("All returned seats left: {}", returnedSeats);
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Venue recieved back {} seats", seatNumbers.length);
+			}
+			// a seat repeated in the array is rejected like one returned already
+			BitSet checked = new BitSet();
+			for (int seat : seatNumbers) {
+				verifyIssued(seat);
+				if (checked.get(seat)) {
+					throw notIssued(seat);
+				}
+				checked.set(seat);
+			}
+			returnedSeats.or(checked);
+			returnedCount += checked.cardinality();
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("{} returned seats left", returnedCount);
+			}
 		}
 	}
 
 	private void verifyIssued(int seat) {
-		if (seat > lastIssued || returnedSeats.contains(seat)) {
-			LOG.error("Seat {} was not issued or has been returned already", seat);
-			throw new IllegalArgumentException(String.format("supplied seat %s never issued, can not return", seat));
+		if (seat <= 0 || seat > lastIssued || returnedSeats.get(seat)) {
+			throw notIssued(seat);
 		}
 	}
 
+	private IllegalArgumentException notIssued(int seat) {
+		LOG.error("Seat {} was not issued or has been returned already", seat);
+		return new IllegalArgumentException(String.format("supplied seat %s never issued, can not return", seat));
+	}
+
 	@Override
 	public int remainingSeats() {
-		return capacity + returnedSeats.size() - lastIssued;
+		return capacity + returnedCount - lastIssued;
+	}
+
+	@Override
+	public BitSet availableSeats() {
+		synchronized (returnedSeats) {
+			BitSet available = (BitSet) returnedSeats.clone();
+			available.set(lastIssued + 1, capacity + 1);
+			return available;
+		}
 	}
 
 }
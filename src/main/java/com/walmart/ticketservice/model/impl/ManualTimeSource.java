@@ -0,0 +1,42 @@
+package com.walmart.ticketservice.model.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.model.TimeSource;
+
+/**
+ * A clock that only moves when told to, so expiry and rate limits can be
+ * tested without sleeping. Thread safe.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class ManualTimeSource implements TimeSource {
+
+	private final AtomicLong epochNanos;
+
+	/**
+	 * @param start can not be null
+	 * @throws NullPointerException if start is null.
+	 */
+	public ManualTimeSource(Instant start) {
+		this.epochNanos = new AtomicLong(EpochNanos.of(start));
+	}
+
+	@Override
+	public long epochNanos() {
+		return epochNanos.get();
+	}
+
+	/**
+	 * @param duration can not be null or negative
+	 * @throws NullPointerException     if duration is null.
+	 * @throws IllegalArgumentException if duration is negative.
+	 */
+	public void advance(Duration duration) {
+		Preconditions.checkArgument(!duration.isNegative(), "time can not move backwards");
+		epochNanos.addAndGet(duration.toNanos());
+	}
+}
@@ -0,0 +1,38 @@
+package com.walmart.ticketservice.model.impl;
+
+import com.walmart.ticketservice.model.TimeSource;
+
+/**
+ * The system clock read once, then advanced by {@link System#nanoTime()}. Time
+ * never goes backwards when the wall clock is adjusted, so a hold deadline is
+ * never cut short or stretched, and reading it neither allocates nor makes a
+ * wall clock call. It drifts from the wall clock by however much the wall
+ * clock is adjusted while the process runs.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class MonotonicTimeSource implements TimeSource {
+
+	private static final MonotonicTimeSource SYSTEM = new MonotonicTimeSource();
+
+	private final long originEpochNanos;
+
+	private final long originNanoTime;
+
+	private MonotonicTimeSource() {
+		this.originNanoTime = System.nanoTime();
+		this.originEpochNanos = EpochNanos.now();
+	}
+
+	/**
+	 * @return the time source shared by the process, anchored when first used.
+	 */
+	public static MonotonicTimeSource system() {
+		return SYSTEM;
+	}
+
+	@Override
+	public long epochNanos() {
+		return originEpochNanos + (System.nanoTime() - originNanoTime);
+	}
+}
@@ -0,0 +1,97 @@
+package com.walmart.ticketservice.model.impl;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A confirmed reservation as recorded in a ledger: the seats of a reserved
+ * hold, who reserved them and when, and the code that proves it.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class Reservation {
+
+	private final int sequence;
+
+	private final int seatHoldId;
+
+	private final String email;
+
+	private final int[] seats;
+
+	private final long reservedAtNanos;
+
+	private final String confirmationCode;
+
+	/**
+	 * @param sequence         position in the ledger
+	 * @param seatHoldId       id of the reserved hold
+	 * @param email            can not be null
+	 * @param seats            can not be null. Owned by the reservation
+	 *                         afterwards.
+	 * @param reservedAtNanos  time of the reservation as nanoseconds since the
+	 *                         epoch
+	 * @param confirmationCode can not be null
+	 * @throws NullPointerException if any object arg is null.
+	 */
+	public Reservation(int sequence, int seatHoldId, String email, int[] seats, long reservedAtNanos,
+			String confirmationCode) {
+		this.sequence = sequence;
+		this.seatHoldId = seatHoldId;
+		this.email = Preconditions.checkNotNull(email);
+		this.seats = Preconditions.checkNotNull(seats);
+		this.reservedAtNanos = reservedAtNanos;
+		this.confirmationCode = Preconditions.checkNotNull(confirmationCode);
+	}
+
+	/**
+	 * @return position in the ledger, starting at 0.
+	 */
+	public int getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return id of the hold that was reserved.
+	 */
+	public int getSeatHoldId() {
+		return seatHoldId;
+	}
+
+	/**
+	 * @return the email that reserved the seats.
+	 */
+	public String getEmail() {
+		return email;
+	}
+
+	/**
+	 * @return a copy of the reserved seats.
+	 */
+	public int[] getSeats() {
+		return Arrays.copyOf(seats, seats.length);
+	}
+
+	/**
+	 * @return when the seats were reserved.
+	 */
+	public Instant getReservedAt() {
+		return EpochNanos.toInstant(reservedAtNanos);
+	}
+
+	/**
+	 * @return when the seats were reserved, as nanoseconds since the epoch.
+	 */
+	public long getReservedAtEpochNanos() {
+		return reservedAtNanos;
+	}
+
+	/**
+	 * @return the code given to the customer.
+	 */
+	public String getConfirmationCode() {
+		return confirmationCode;
+	}
+}
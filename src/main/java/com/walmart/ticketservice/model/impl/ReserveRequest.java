@@ -0,0 +1,39 @@
+package com.walmart.ticketservice.model.impl;
+
+/**
+ * One customer's request to commit a hold, used for batch reservations.
+ * Arguments are validated by the TicketService, like the arguments of a single
+ * reservation.
+ * 
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class ReserveRequest {
+
+	private final int seatHoldId;
+
+	private final String customerEmail;
+
+	/**
+	 * @param seatHoldId    the seat hold identifier
+	 * @param customerEmail the email address of the customer to which the seat
+	 *                      hold is assigned
+	 */
+	public ReserveRequest(int seatHoldId, String customerEmail) {
+		this.seatHoldId = seatHoldId;
+		this.customerEmail = customerEmail;
+	}
+
+	/**
+	 * @return the seat hold identifier.
+	 */
+	public int getSeatHoldId() {
+		return seatHoldId;
+	}
+
+	/**
+	 * @return the customer, possibly null.
+	 */
+	public String getCustomerEmail() {
+		return customerEmail;
+	}
+}
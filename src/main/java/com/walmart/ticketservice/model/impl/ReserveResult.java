@@ -0,0 +1,60 @@
+package com.walmart.ticketservice.model.impl;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Outcome of one reservation in a batch: either a confirmation code or the
+ * reason the reservation failed.
+ * 
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class ReserveResult {
+
+	private final String confirmationCode;
+
+	private final String reason;
+
+	private ReserveResult(String confirmationCode, String reason) {
+		this.confirmationCode = confirmationCode;
+		this.reason = reason;
+	}
+
+	/**
+	 * @param confirmationCode can not be null
+	 * @throws NullPointerException if confirmationCode is null.
+	 * @return a confirmed result.
+	 */
+	public static ReserveResult confirmed(String confirmationCode) {
+		return new ReserveResult(Preconditions.checkNotNull(confirmationCode), null);
+	}
+
+	/**
+	 * @param reason can not be null
+	 * @throws NullPointerException if reason is null.
+	 * @return a failed result.
+	 */
+	public static ReserveResult failed(String reason) {
+		return new ReserveResult(null, Preconditions.checkNotNull(reason));
+	}
+
+	/**
+	 * @return true if the hold was reserved.
+	 */
+	public boolean isConfirmed() {
+		return confirmationCode != null;
+	}
+
+	/**
+	 * @return the confirmation code, null if the reservation failed.
+	 */
+	public String getConfirmationCode() {
+		return confirmationCode;
+	}
+
+	/**
+	 * @return why the reservation failed, null if it was confirmed.
+	 */
+	public String failureCode() {
+		return reason;
+	}
+}
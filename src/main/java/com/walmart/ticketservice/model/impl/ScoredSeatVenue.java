@@ -0,0 +1,170 @@
+package com.walmart.ticketservice.model.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.model.TieredVenue;
+
+/**
+ * A TieredVenue that issues the highest scoring seats of a {@link VenueLayout}.
+ * Each price tier keeps its seats ranked by score in a primitive array with a
+ * {@link FreeSeatTree} over the ranks, so the best free seat of a tier is found
+ * in O(log capacity) and the best n seats at or below a tier are merged from
+ * the tier heads without scanning the venue.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class ScoredSeatVenue implements TieredVenue {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ScoredSeatVenue.class);
+
+	private final VenueLayout layout;
+
+	private final int[][] seatsByRank;
+
+	private final int[] rankOfSeat;
+
+	private final FreeSeatTree[] freeRanks;
+
+	/**
+	 * Every seat of the layout starts available.
+	 *
+	 * @param layout can not be null
+	 * @throws NullPointerException if layout is null.
+	 */
+	public ScoredSeatVenue(VenueLayout layout) {
+		this.layout = Preconditions.checkNotNull(layout);
+		int capacity = layout.capacity();
+		long[][] keys = new long[layout.tiers()][];
+		int[] counts = new int[layout.tiers()];
+		for (int seat = 1; seat <= capacity; seat++) {
+			counts[layout.tierOf(seat)]++;
+		}
+		for (int tier = 0; tier < keys.length; tier++) {
+			keys[tier] = new long[counts[tier]];
+			counts[tier] = 0;
+		}
+		for (int seat = 1; seat <= capacity; seat++) {
+			int tier = layout.tierOf(seat);
+			keys[tier][counts[tier]++] = rankKey(layout.scoreOf(seat), seat);
+		}
+		this.seatsByRank = new int[keys.length][];
+		this.rankOfSeat = new int[capacity + 1];
+		this.freeRanks = new FreeSeatTree[keys.length];
+		for (int tier = 0; tier < keys.length; tier++) {
+			Arrays.sort(keys[tier]);
+			seatsByRank[tier] = new int[keys[tier].length];
+			for (int rank = 0; rank < keys[tier].length; rank++) {
+				int seat = (int) keys[tier][rank];
+				seatsByRank[tier][rank] = seat;
+				rankOfSeat[seat] = rank + 1;
+			}
+			// a tier may have no rows, leave its tree empty
+			freeRanks[tier] = keys[tier].length == 0 ? null : new FreeSeatTree(keys[tier].length, true);
+		}
+	}
+
+	/**
+	 * Orders by descending score, then ascending seat number.
+	 */
+	private static long rankKey(float score, int seat) {
+		int bits = Float.floatToIntBits(score);
+		int ascending = bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+		return ((long) ~ascending << 32) | seat;
+	}
+
+	/**
+	 * @return the layout of this venue.
+	 */
+	public VenueLayout getLayout() {
+		return layout;
+	}
+
+	@Override
+	public int[] getNSeats(int n) {
+		return getNSeats(n, freeRanks.length - 1);
+	}
+
+	@Override
+	public synchronized int[] getNSeats(int n, int maxTier) {
+		Preconditions.checkArgument(n > 0, "n must be greater than 0");
+		Preconditions.checkArgument(maxTier >= 0, "maxTier must be >= 0");
+		int highest = Math.min(maxTier, freeRanks.length - 1);
+		int[] issued = new int[Math.min(n, remainingSeats(highest))];
+		for (int i = 0; i < issued.length; i++) {
+			int bestTier = -1;
+			int bestSeat = 0;
+			for (int tier = 0; tier <= highest; tier++) {
+				int rank = freeRanks[tier] == null ? 0 : freeRanks[tier].lowestFree();
+				if (rank > 0) {
+					int seat = seatsByRank[tier][rank - 1];
+					if (bestTier < 0 || rankKey(layout.scoreOf(seat), seat) < rankKey(layout.scoreOf(bestSeat), bestSeat)) {
+						bestTier = tier;
+						bestSeat = seat;
+					}
+				}
+			}
+			freeRanks[bestTier].take(rankOfSeat[bestSeat]);
+			issued[i] = bestSeat;
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("getNSeats - n is {}, maxTier is {}, issued {}", n, maxTier, issued.length);
+		}
+		return issued;
+	}
+
+	@Override
+	public synchronized void releaseSeats(int[] seatNumbers) {
+		Preconditions.checkArgument(seatNumbers != null, "seatNumbers can not be null");
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Venue recieved back {} seats", seatNumbers.length);
+		}
+		for (int i = 0; i < seatNumbers.length; i++) {
+			int seat = seatNumbers[i];
+			if (seat < 1 || seat > layout.capacity() || tree(seat).isFree(rankOfSeat[seat])) {
+				// leave the venue as it was before the call
+				for (int j = 0; j < i; j++) {
+					tree(seatNumbers[j]).take(rankOfSeat[seatNumbers[j]]);
+				}
+				LOG.error("Seat {} was not issued or has been returned already", seat);
+				throw new IllegalArgumentException(String.format("supplied seat %s never issued, can not return", seat));
+			}
+			tree(seat).release(rankOfSeat[seat]);
+		}
+	}
+
+	private FreeSeatTree tree(int seat) {
+		return freeRanks[layout.tierOf(seat)];
+	}
+
+	@Override
+	public int remainingSeats() {
+		return remainingSeats(freeRanks.length - 1);
+	}
+
+	@Override
+	public synchronized BitSet availableSeats() {
+		BitSet available = new BitSet();
+		for (int seat = 1; seat <= layout.capacity(); seat++) {
+			if (tree(seat).isFree(rankOfSeat[seat])) {
+				available.set(seat);
+			}
+		}
+		return available;
+	}
+
+	@Override
+	public synchronized int remainingSeats(int maxTier) {
+		Preconditions.checkArgument(maxTier >= 0, "maxTier must be >= 0");
+		int remaining = 0;
+		for (int tier = 0; tier <= maxTier && tier < freeRanks.length; tier++) {
+			remaining += freeRanks[tier] == null ? 0 : freeRanks[tier].free();
+		}
+		return remaining;
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.walmart.ticketservice.model.impl;
+
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The net change in seat availability between two consecutive versions of a
+ * seat map. A seat held and released again within one tick appears in neither
+ * array. Shared by every subscriber, so it is immutable.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class SeatMapDelta {
+
+	private final long version;
+
+	private final int[] taken;
+
+	private final int[] freed;
+
+	/**
+	 * @param version version of the seat map after this delta is applied
+	 * @param taken   seats that became unavailable, can not be null. Owned by the
+	 *                delta afterwards.
+	 * @param freed   seats that became available, can not be null. Owned by the
+	 *                delta afterwards.
+	 * @throws NullPointerException if any array is null.
+	 */
+	public SeatMapDelta(long version, int[] taken, int[] freed) {
+		this.version = version;
+		this.taken = Preconditions.checkNotNull(taken);
+		this.freed = Preconditions.checkNotNull(freed);
+	}
+
+	/**
+	 * @return the version this delta applies to.
+	 */
+	public long getPreviousVersion() {
+		return version - 1;
+	}
+
+	/**
+	 * @return the version of the seat map after this delta is applied.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return a copy of the seats that were held, in ascending order.
+	 */
+	public int[] getTaken() {
+		return Arrays.copyOf(taken, taken.length);
+	}
+
+	/**
+	 * @return a copy of the seats that expired or were released, in ascending
+	 *         order.
+	 */
+	public int[] getFreed() {
+		return Arrays.copyOf(freed, freed.length);
+	}
+}
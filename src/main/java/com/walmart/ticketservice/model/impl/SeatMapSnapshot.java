@@ -0,0 +1,66 @@
+package com.walmart.ticketservice.model.impl;
+
+import java.util.BitSet;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Which seats of a Venue were available as of a version of its seat map. Later
+ * {@link SeatMapDelta deltas} apply on top of it in version order.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class SeatMapSnapshot {
+
+	private final long version;
+
+	private final BitSet available;
+
+	/**
+	 * @param version   version of the seat map this snapshot reflects
+	 * @param available bit n set if seat n is available, can not be null. Owned
+	 *                  by the snapshot afterwards.
+	 * @throws NullPointerException if available is null.
+	 */
+	public SeatMapSnapshot(long version, BitSet available) {
+		this.version = version;
+		this.available = Preconditions.checkNotNull(available);
+	}
+
+	/**
+	 * @return the version of the seat map this snapshot reflects.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @param seat any seat number
+	 * @return true if the seat was available.
+	 */
+	public boolean isAvailable(int seat) {
+		return seat >= 0 && available.get(seat);
+	}
+
+	/**
+	 * @return number of available seats.
+	 */
+	public int availableCount() {
+		return available.cardinality();
+	}
+
+	/**
+	 * @return a copy of the availability, bit n set if seat n was available.
+	 */
+	public BitSet getAvailable() {
+		return (BitSet) available.clone();
+	}
+
+	/**
+	 * @return the availability as a little-endian bitmap, one bit per seat number
+	 *         up to the highest available seat, as {@link BitSet#toByteArray()}.
+	 */
+	public byte[] toByteArray() {
+		return available.toByteArray();
+	}
+}
@@ -9,43 +9,191 @@ import com.walmart.ticketservice.model.SeatHold;
 /**
  * Represents a successful SeatHold. Has an expiration time, the seats reserved
  * along with a seatHoldId.
- * 
+ * <p>
+ * Kept compact since a hold lives until it is reserved or expires: the
+ * expiration is primitive epoch nanos and a run of consecutive seats is stored
+ * as its first seat and length rather than an array. {@link #seatCount()} and
+ * {@link #seatAt(int)} read seats without copying.
+ *
  * @author John McCaulley jmccaull@gmu.edu
  */
 public final class SuccessfulHold implements SeatHold {
 
-	private final Instant expiration;
+	private final long expirationNanos;
 
+	// null when the seats are the run firstSeat .. firstSeat + seatCount - 1
 	private final int[] seats;
 
+	private final int firstSeat;
+
+	private final int seatCount;
+
 	private final int holdId;
 
 	/**
 	 * Contains all information to confirm or undo reservation.
-	 * 
+	 *
 	 * @param expiration can not be null
 	 * @param seats      can not be null
 	 * @param seatHoldId can be anything
 	 * @throws NullPointerException if any arg is null
 	 */
 	public SuccessfulHold(Instant expiration, int[] seats, int seatHoldId) {
-		this.expiration = Preconditions.checkNotNull(expiration);
-		this.seats = Preconditions.checkNotNull(seats);
+		this(EpochNanos.of(Preconditions.checkNotNull(expiration)), seats, seatHoldId);
+	}
+
+	/**
+	 * Contains all information to confirm or undo reservation. The hold takes
+	 * ownership of seats, which must not be modified afterwards.
+	 *
+	 * @param expirationEpochNanos expiration as nanoseconds since the epoch
+	 * @param seats                can not be null
+	 * @param seatHoldId           can be anything
+	 * @throws NullPointerException if seats is null
+	 */
+	public SuccessfulHold(long expirationEpochNanos, int[] seats, int seatHoldId) {
+		Preconditions.checkNotNull(seats);
+		this.expirationNanos = expirationEpochNanos;
 		this.holdId = seatHoldId;
+		this.seatCount = seats.length;
+		if (isRun(seats)) {
+			this.seats = null;
+			this.firstSeat = seats.length == 0 ? 0 : seats[0];
+		} else {
+			this.seats = seats;
+			this.firstSeat = 0;
+		}
+	}
+
+	private SuccessfulHold(long expirationEpochNanos, SuccessfulHold seatsOf) {
+		this.expirationNanos = expirationEpochNanos;
+		this.holdId = seatsOf.holdId;
+		this.seats = seatsOf.seats;
+		this.firstSeat = seatsOf.firstSeat;
+		this.seatCount = seatsOf.seatCount;
+	}
+
+	private static boolean isRun(int[] seats) {
+		for (int i = 1; i < seats.length; i++) {
+			if (seats[i] != seats[0] + i) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param now can not be null
+	 * @return if this reservation has expired as of the supplied time.
+	 */
+	public boolean isExpiredAt(Instant now) {
+		return isExpiredAt(EpochNanos.of(now));
+	}
+
+	/**
+	 * @param nowEpochNanos current time as nanoseconds since the epoch
+	 * @return if this reservation has expired as of the supplied time.
+	 */
+	public boolean isExpiredAt(long nowEpochNanos) {
+		return nowEpochNanos > expirationNanos;
+	}
+
+	/**
+	 * @return the time after which this reservation is expired.
+	 */
+	public Instant getExpiration() {
+		return EpochNanos.toInstant(expirationNanos);
 	}
 
 	/**
-	 * @return if this reservation has expired according to the current system time.
+	 * @return the time after which this reservation is expired, as nanoseconds
+	 *         since the epoch.
 	 */
-	public boolean isExpired() {
-		return Instant.now().isAfter(expiration);
+	public long getExpirationEpochNanos() {
+		return expirationNanos;
 	}
 
 	/**
 	 * @return a copy of the seats in this reservation.
 	 */
 	public int[] getSeats() {
-		return Arrays.copyOf(seats, seats.length);
+		if (seats != null) {
+			return Arrays.copyOf(seats, seats.length);
+		}
+		int[] copy = new int[seatCount];
+		for (int i = 0; i < seatCount; i++) {
+			copy[i] = firstSeat + i;
+		}
+		return copy;
+	}
+
+	/**
+	 * @return number of seats in this reservation.
+	 */
+	public int seatCount() {
+		return seatCount;
+	}
+
+	/**
+	 * @param index must be >= 0 and < {@link #seatCount()}
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 * @return the seat at index, in the order the Venue issued them.
+	 */
+	public int seatAt(int index) {
+		if (index < 0 || index >= seatCount) {
+			throw new IndexOutOfBoundsException(String.format("seat %s of %s", index, seatCount));
+		}
+		return seats != null ? seats[index] : firstSeat + index;
+	}
+
+	/**
+	 * Shares this reservation's seats rather than copying them.
+	 *
+	 * @param expirationEpochNanos new expiration as nanoseconds since the epoch
+	 * @return a reservation for the same seats and id with a new expiration.
+	 */
+	public SuccessfulHold withExpiration(long expirationEpochNanos) {
+		return new SuccessfulHold(expirationEpochNanos, this);
+	}
+
+	/**
+	 * @param released seats to drop, can not be null. Each must be in this
+	 *                 reservation and appear once.
+	 * @throws NullPointerException     if released is null.
+	 * @throws IllegalArgumentException if a seat is not in this reservation or is
+	 *                                  repeated.
+	 * @return a reservation with the same id and expiration holding the remaining
+	 *         seats, in their original order.
+	 */
+	public SuccessfulHold withoutSeats(int[] released) {
+		Preconditions.checkNotNull(released);
+		boolean[] dropped = new boolean[seatCount];
+		for (int seat : released) {
+			int index = indexOf(seat);
+			Preconditions.checkArgument(index >= 0, String.format("seat %s is not in hold %s", seat, holdId));
+			Preconditions.checkArgument(!dropped[index], String.format("seat %s released twice", seat));
+			dropped[index] = true;
+		}
+		int[] remaining = new int[seatCount - released.length];
+		int next = 0;
+		for (int i = 0; i < seatCount; i++) {
+			if (!dropped[i]) {
+				remaining[next++] = seatAt(i);
+			}
+		}
+		return new SuccessfulHold(expirationNanos, remaining, holdId);
+	}
+
+	private int indexOf(int seat) {
+		if (seats == null) {
+			return seat >= firstSeat && seat - firstSeat < seatCount ? seat - firstSeat : -1;
+		}
+		for (int i = 0; i < seatCount; i++) {
+			if (seats[i] == seat) {
+				return i;
+			}
+		}
+		return -1;
 	}
 
 	/**
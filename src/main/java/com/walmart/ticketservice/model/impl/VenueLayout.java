@@ -0,0 +1,180 @@
+package com.walmart.ticketservice.model.impl;
+
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Physical layout of a venue: levels, sections and rows, with a price tier per
+ * row and a score per seat where a higher score is a better seat. Seats are
+ * numbered from 1 in the order rows are added. Everything is kept in primitive
+ * arrays indexed by row or seat so large venues stay compact. Immutable.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class VenueLayout {
+
+	private final int[] rowStarts;
+
+	private final int[] rowLevels;
+
+	private final int[] rowSections;
+
+	private final int[] rowTiers;
+
+	private final float[] scores;
+
+	private final int tiers;
+
+	private VenueLayout(Builder builder) {
+		int rows = builder.rows;
+		this.rowStarts = Arrays.copyOf(builder.rowStarts, rows + 1);
+		this.rowLevels = Arrays.copyOf(builder.rowLevels, rows);
+		this.rowSections = Arrays.copyOf(builder.rowSections, rows);
+		this.rowTiers = Arrays.copyOf(builder.rowTiers, rows);
+		this.scores = Arrays.copyOf(builder.scores, builder.seats);
+		this.tiers = builder.maxTier + 1;
+	}
+
+	/**
+	 * @return a builder for a layout without any rows.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return total number of seats.
+	 */
+	public int capacity() {
+		return scores.length;
+	}
+
+	/**
+	 * @return one more than the highest price tier of any row.
+	 */
+	public int tiers() {
+		return tiers;
+	}
+
+	/**
+	 * @param seat must be between 1 and capacity
+	 * @return the price tier of the seat.
+	 */
+	public int tierOf(int seat) {
+		return rowTiers[rowIndex(seat)];
+	}
+
+	/**
+	 * @param seat must be between 1 and capacity
+	 * @return the score of the seat, higher is better.
+	 */
+	public float scoreOf(int seat) {
+		return scores[seat - 1];
+	}
+
+	/**
+	 * @param seat must be between 1 and capacity
+	 * @return the level of the seat.
+	 */
+	public int levelOf(int seat) {
+		return rowLevels[rowIndex(seat)];
+	}
+
+	/**
+	 * @param seat must be between 1 and capacity
+	 * @return the section of the seat within its level.
+	 */
+	public int sectionOf(int seat) {
+		return rowSections[rowIndex(seat)];
+	}
+
+	/**
+	 * @param seat must be between 1 and capacity
+	 * @return the index of the row containing the seat, in the order rows were
+	 *         added.
+	 */
+	public int rowOf(int seat) {
+		return rowIndex(seat);
+	}
+
+	private int rowIndex(int seat) {
+		Preconditions.checkElementIndex(seat - 1, scores.length, "seat");
+		int index = Arrays.binarySearch(rowStarts, seat - 1);
+		return index < 0 ? -index - 2 : index;
+	}
+
+	/**
+	 * Adds rows in seat number order.
+	 *
+	 * @author John McCaulley jmccaull@gmu.edu
+	 */
+	public static final class Builder {
+
+		private int[] rowStarts = new int[17];
+
+		private int[] rowLevels = new int[16];
+
+		private int[] rowSections = new int[16];
+
+		private int[] rowTiers = new int[16];
+
+		private float[] scores = new float[256];
+
+		private int rows;
+
+		private int seats;
+
+		private int maxTier = -1;
+
+		private Builder() {
+		}
+
+		/**
+		 * Adds a row after every row added so far.
+		 *
+		 * @param level      level of the venue the row is on
+		 * @param section    section of the level the row is in
+		 * @param priceTier  must be >= 0
+		 * @param seatScores score of each seat in the row, higher is better. Can
+		 *                   not be null or empty.
+		 * @throws IllegalArgumentException if priceTier < 0 or seatScores is null
+		 *                                  or empty.
+		 * @return this builder
+		 */
+		public Builder addRow(int level, int section, int priceTier, float... seatScores) {
+			Preconditions.checkArgument(priceTier >= 0, String.format("priceTier must be >= 0, %s supplied", priceTier));
+			Preconditions.checkArgument(seatScores != null && seatScores.length > 0,
+					"seatScores can not be null or empty");
+			if (rows == rowLevels.length) {
+				rowStarts = Arrays.copyOf(rowStarts, rows * 2 + 1);
+				rowLevels = Arrays.copyOf(rowLevels, rows * 2);
+				rowSections = Arrays.copyOf(rowSections, rows * 2);
+				rowTiers = Arrays.copyOf(rowTiers, rows * 2);
+			}
+			int total = Math.addExact(seats, seatScores.length);
+			if (total > scores.length) {
+				scores = Arrays.copyOf(scores, Math.max(total, scores.length * 2));
+			}
+			System.arraycopy(seatScores, 0, scores, seats, seatScores.length);
+			rowStarts[rows] = seats;
+			rowLevels[rows] = level;
+			rowSections[rows] = section;
+			rowTiers[rows] = priceTier;
+			rows++;
+			seats = total;
+			rowStarts[rows] = seats;
+			maxTier = Math.max(maxTier, priceTier);
+			return this;
+		}
+
+		/**
+		 * @throws IllegalStateException if no rows were added.
+		 * @return the layout
+		 */
+		public VenueLayout build() {
+			Preconditions.checkState(rows > 0, "a layout needs at least one row");
+			return new VenueLayout(this);
+		}
+	}
+}
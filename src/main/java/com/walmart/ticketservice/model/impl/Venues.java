@@ -0,0 +1,50 @@
+package com.walmart.ticketservice.model.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.model.Venue;
+
+/**
+ * Static helpers for working with any Venue.
+ * 
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class Venues {
+
+	private Venues() {
+	}
+
+	/**
+	 * Brings a new Venue to the state of one that has given out exactly the
+	 * allocated seats. Every seat is issued and then all seats that are not
+	 * allocated are released in a single call.
+	 * 
+	 * @param venue     a Venue that has not issued any seats, can not be null
+	 * @param allocated seats that are held or reserved, bit n set for seat n. Can
+	 *                  not be null.
+	 * @throws NullPointerException  if any arg is null.
+	 * @throws IllegalStateException if the venue stops issuing seats it reports
+	 *                               as remaining.
+	 * @return the supplied venue
+	 */
+	public static <V extends Venue> V restore(V venue, BitSet allocated) {
+		Preconditions.checkNotNull(venue);
+		Preconditions.checkNotNull(allocated);
+		int[] issued = new int[venue.remainingSeats()];
+		int count = 0;
+		while (venue.remainingSeats() > 0) {
+			int[] seats = venue.getNSeats(venue.remainingSeats());
+			if (seats.length == 0) {
+				// venues that place groups may only hand out seats one at a time
+				seats = venue.getNSeats(1);
+				Preconditions.checkState(seats.length > 0, "venue reports remaining seats but issues none");
+			}
+			System.arraycopy(seats, 0, issued, count, seats.length);
+			count += seats.length;
+		}
+		venue.releaseSeats(Arrays.stream(issued, 0, count).filter(seat -> !allocated.get(seat)).toArray());
+		return venue;
+	}
+}
@@ -0,0 +1,23 @@
+package com.walmart.ticketservice.repo;
+
+/**
+ * Carries hold events from a primary to its standby. Each event is one
+ * {@link com.walmart.ticketservice.repo.impl.HoldEventCodec} encoded change;
+ * events are self-delimiting, so a stream transport may concatenate them.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ * @see com.walmart.ticketservice.repo.impl.ReplicatedHoldRepository
+ */
+@FunctionalInterface
+public interface ReplicationTransport {
+
+	/**
+	 * Sends one event. Called in the order the changes were made, from one
+	 * thread at a time, and must deliver in that order. May return before the
+	 * standby has applied the event.
+	 *
+	 * @param event encoded event, owned by the transport once sent
+	 * @throws java.io.UncheckedIOException if the event could not be sent.
+	 */
+	void send(byte[] event);
+}
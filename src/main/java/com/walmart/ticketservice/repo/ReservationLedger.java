@@ -0,0 +1,55 @@
+package com.walmart.ticketservice.repo;
+
+import java.util.Optional;
+
+import com.walmart.ticketservice.model.impl.Reservation;
+import com.walmart.ticketservice.model.impl.EpochNanos;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+
+/**
+ * Append-only record of confirmed reservations, so reserved seats can still be
+ * looked up after their hold leaves the SuccessfulHoldRepository and confirmation
+ * codes can be verified at the gate.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public interface ReservationLedger {
+
+	/**
+	 * Records a hold reserved now, by the system clock.
+	 *
+	 * @see #append(String, SuccessfulHold, long)
+	 */
+	default Reservation append(String email, SuccessfulHold reservation) {
+		return append(email, reservation, EpochNanos.now());
+	}
+
+	/**
+	 * Records a reserved hold under the next sequence number and issues its
+	 * confirmation code.
+	 *
+	 * @param email              can not be null
+	 * @param reservation        the hold that was reserved, can not be null
+	 * @param reservedEpochNanos when the hold was reserved, as nanoseconds since
+	 *                           the epoch
+	 * @throws IllegalArgumentException if email or reservation is null.
+	 * @throws java.io.UncheckedIOException if a durable ledger could not write
+	 *                                      the reservation.
+	 * @return the recorded reservation.
+	 */
+	Reservation append(String email, SuccessfulHold reservation, long reservedEpochNanos);
+
+	/**
+	 * Checks a confirmation code in O(1).
+	 *
+	 * @param confirmationCode can be anything
+	 * @return the reservation the code was issued for, or empty if the code is
+	 *         malformed, forged or unknown to this ledger.
+	 */
+	Optional<Reservation> verify(String confirmationCode);
+
+	/**
+	 * @return number of reservations recorded.
+	 */
+	int size();
+}
@@ -1,8 +1,13 @@
 package com.walmart.ticketservice.repo;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.OptionalInt;
 
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.model.impl.EpochNanos;
 import com.walmart.ticketservice.model.impl.SuccessfulHold;
 
 /**
@@ -23,28 +28,101 @@ public interface SuccessfulHoldRepository {
 	Collection<SuccessfulHold> getByEmail(String email);
 
 	/**
-	 * Obtains all expired reservations.
+	 * Obtain a reservation by its seatHoldId without scanning the reservations of
+	 * the email.
 	 * 
+	 * @param seatHoldId id of the reservation
+	 * @param email      can not be null
+	 * @throws IllegalArgumentException if email is null.
+	 * @return the reservation, or empty if no reservation with the id is stored
+	 *         for the email.
+	 */
+	Optional<SuccessfulHold> getById(int seatHoldId, String email);
+
+	/**
+	 * Lets a service issue new seatHoldIds above those of reservations the
+	 * repository already held when it was given to the service, such as ones
+	 * recovered from a journal.
+	 * 
+	 * @return the highest seatHoldId stored, or empty if nothing is stored.
+	 */
+	OptionalInt highestSeatHoldId();
+
+	/**
+	 * Obtains all reservations expired as of the supplied time.
+	 * 
+	 * @param nowEpochNanos nanoseconds since the epoch
 	 * @return possibly empty collection.
 	 */
-	Collection<Entry<String, SuccessfulHold>> getAllExpired();
+	Collection<Entry<String, SuccessfulHold>> getAllExpired(long nowEpochNanos);
+
+	/**
+	 * Removes and returns every reservation that has expired as of now. A
+	 * reservation is returned by at most one call, so the caller owns the seats
+	 * of everything drained.
+	 * 
+	 * @param now can not be null
+	 * @throws IllegalArgumentException if now is null.
+	 * @return possibly empty collection of removed reservations keyed by email.
+	 */
+	Collection<Entry<String, SuccessfulHold>> drainExpired(Instant now);
+
+	/**
+	 * {@link #drainExpired(Instant)} without allocating the time. Repositories
+	 * that index by expiration override this, the default converts.
+	 * 
+	 * @param nowEpochNanos nanoseconds since the epoch
+	 * @return possibly empty collection of removed reservations keyed by email.
+	 */
+	default Collection<Entry<String, SuccessfulHold>> drainExpired(long nowEpochNanos) {
+		return drainExpired(EpochNanos.toInstant(nowEpochNanos));
+	}
 
 	/**
-	 * Removes a reservation if it exists for the supplied email id.
+	 * Removes a reservation if it exists for the supplied email id. Only one
+	 * caller can successfully remove a given reservation.
 	 * 
 	 * @param email       can not be null
 	 * @param reservation can not be null
 	 * @throws IllegalArgumentException if either email or reservation is null.
+	 * @return true if the reservation was present and has been removed.
 	 */
-	void remove(String email, SuccessfulHold reservation);
+	boolean remove(String email, SuccessfulHold reservation);
 
 	/**
 	 * Stores a reservation according to an email id.
 	 * 
 	 * @param email       can not be null
 	 * @param reservation can not be null
-	 * @throws IllegalArgumentException if either email or reservation are null.
+	 * @throws IllegalArgumentException if either email or reservation are null, or
+	 *                                  a reservation with the same seatHoldId is
+	 *                                  already stored.
 	 */
 	void add(String email, SuccessfulHold reservation);
 
+	/**
+	 * Swaps a stored reservation for an updated one with the same seatHoldId,
+	 * such as one that expires later or holds fewer seats. Only one caller can
+	 * successfully replace or remove a given reservation. The default
+	 * implementation removes then adds, so a concurrent reader may briefly find
+	 * neither.
+	 * 
+	 * @param email       can not be null
+	 * @param current     the stored reservation, can not be null
+	 * @param replacement can not be null, must have the seatHoldId of current
+	 * @throws IllegalArgumentException if any arg is null or the seatHoldIds
+	 *                                  differ.
+	 * @return true if current was present and has been replaced.
+	 */
+	default boolean replace(String email, SuccessfulHold current, SuccessfulHold replacement) {
+		Preconditions.checkArgument(replacement != null, "replacement can not be null");
+		Preconditions.checkArgument(current != null && current.getSeatHoldId() == replacement.getSeatHoldId(),
+				"replacement must have the seatHoldId of current");
+		if (!remove(email, current)) {
+			return false;
+		}
+		add(email, replacement);
+		return true;
+	}
+
 }
@@ -0,0 +1,246 @@
+package com.walmart.ticketservice.repo.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.model.impl.ConfirmationCodec;
+import com.walmart.ticketservice.model.impl.Reservation;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.repo.ReservationLedger;
+
+/**
+ * A thread safe ReservationLedger indexed by sequence number. Confirmation
+ * codes carry the sequence, so verifying one is a signature check and an array
+ * lookup. Every seat is reserved at most once, so the ledger never holds more
+ * reservations than the Venue has seats.
+ * <p>
+ * A durable ledger also appends each reservation to a single file as its
+ * length, a CRC32 and the encoded reservation, the same framing as the hold
+ * journal. The file is only ever appended to, so gate scanners can load it
+ * with one sequential read, and a record with a bad checksum is treated as a
+ * torn write and cut off on open. Codes are derived from the ledger rather
+ * than stored, so the file must always be opened with the same key.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class AppendOnlyReservationLedger implements ReservationLedger, Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AppendOnlyReservationLedger.class);
+
+	private static final int HEADER_BYTES = 8;
+
+	private final ConfirmationCodec codec;
+
+	private final FileChannel channel;
+
+	private final int syncEvery;
+
+	private final CRC32 crc = new CRC32();
+
+	private Reservation[] reservations = new Reservation[16];
+
+	private int size;
+
+	private int unsynced;
+
+	private AppendOnlyReservationLedger(ConfirmationCodec codec, FileChannel channel, int syncEvery) {
+		this.codec = codec;
+		this.channel = channel;
+		this.syncEvery = syncEvery;
+	}
+
+	/**
+	 * @param codec issues and verifies codes, can not be null
+	 * @throws NullPointerException if codec is null.
+	 * @return a ledger that is lost with the process.
+	 */
+	public static AppendOnlyReservationLedger inMemory(ConfirmationCodec codec) {
+		return new AppendOnlyReservationLedger(Preconditions.checkNotNull(codec), null, 1);
+	}
+
+	/**
+	 * Loads every reservation in file and appends new ones to it.
+	 *
+	 * @param file      created if missing, can not be null
+	 * @param codec     the codec the file was written with, can not be null
+	 * @param syncEvery reservations to append before forcing them to disk, must
+	 *                  be > 0. Up to syncEvery - 1 can be lost on a crash.
+	 * @throws NullPointerException     if file or codec is null.
+	 * @throws IllegalArgumentException if syncEvery <= 0
+	 * @throws IOException              if the file can not be read or opened.
+	 * @return a durable ledger.
+	 */
+	public static AppendOnlyReservationLedger open(Path file, ConfirmationCodec codec, int syncEvery)
+			throws IOException {
+		Preconditions.checkNotNull(codec);
+		Preconditions.checkArgument(syncEvery > 0, String.format("syncEvery must be > 0, %s supplied", syncEvery));
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		AppendOnlyReservationLedger ledger = new AppendOnlyReservationLedger(codec, channel, syncEvery);
+		try {
+			ledger.load();
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		return ledger;
+	}
+
+	private void load() throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, buffer.position()) < 0) {
+				break;
+			}
+		}
+		buffer.flip();
+		int end = 0;
+		while (buffer.remaining() >= HEADER_BYTES) {
+			int length = buffer.getInt();
+			int expected = buffer.getInt();
+			if (length <= 0 || length > buffer.remaining()) {
+				break;
+			}
+			crc.reset();
+			crc.update(buffer.array(), buffer.position(), length);
+			if ((int) crc.getValue() != expected || buffer.getInt(buffer.position()) != size) {
+				LOG.warn("Discarding torn ledger record after {} reservations", size);
+				break;
+			}
+			add(decode(buffer));
+			end = buffer.position();
+		}
+		if (end < channel.size()) {
+			channel.truncate(end);
+		}
+		channel.position(end);
+		LOG.info("Loaded {} reservations", size);
+	}
+
+	@Override
+	public synchronized Reservation append(String email, SuccessfulHold reservation, long reservedEpochNanos) {
+		Preconditions.checkArgument(email != null, "email can not be null");
+		Preconditions.checkArgument(reservation != null, "reservation can not be null");
+		int sequence = size;
+		Reservation recorded = new Reservation(sequence, reservation.getSeatHoldId(), email,
+				reservation.getSeats(), reservedEpochNanos, codec.encode(sequence, reservation.getSeatHoldId()));
+		if (channel != null) {
+			write(recorded);
+		}
+		add(recorded);
+		return recorded;
+	}
+
+	private void write(Reservation reservation) {
+		byte[] email = reservation.getEmail().getBytes(StandardCharsets.UTF_8);
+		int[] seats = reservation.getSeats();
+		int length = 4 + 4 + 8 + 4 + email.length + 4 + 4 * seats.length;
+		ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + length);
+		record.putInt(length).putInt(0).putInt(reservation.getSequence()).putInt(reservation.getSeatHoldId())
+				.putLong(reservation.getReservedAtEpochNanos()).putInt(email.length).put(email).putInt(seats.length);
+		for (int seat : seats) {
+			record.putInt(seat);
+		}
+		crc.reset();
+		crc.update(record.array(), HEADER_BYTES, length);
+		record.putInt(4, (int) crc.getValue());
+		record.flip();
+		long start = -1;
+		try {
+			start = channel.position();
+			while (record.hasRemaining()) {
+				channel.write(record);
+			}
+			if (++unsynced >= syncEvery) {
+				channel.force(false);
+				unsynced = 0;
+			}
+		} catch (IOException e) {
+			LOG.error("Failed to append reservation {}", reservation.getSequence(), e);
+			discardFrom(start);
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Cuts off a partly written record so later appends are not hidden behind
+	 * it on the next load.
+	 */
+	private void discardFrom(long start) {
+		if (start < 0) {
+			return;
+		}
+		try {
+			channel.truncate(start);
+			channel.position(start);
+		} catch (IOException e) {
+			LOG.error("Failed to discard partial reservation record at {}", start, e);
+		}
+	}
+
+	private Reservation decode(ByteBuffer buffer) {
+		int sequence = buffer.getInt();
+		int seatHoldId = buffer.getInt();
+		long reservedAt = buffer.getLong();
+		byte[] email = new byte[buffer.getInt()];
+		buffer.get(email);
+		int[] seats = new int[buffer.getInt()];
+		for (int i = 0; i < seats.length; i++) {
+			seats[i] = buffer.getInt();
+		}
+		return new Reservation(sequence, seatHoldId, new String(email, StandardCharsets.UTF_8), seats, reservedAt,
+				codec.encode(sequence, seatHoldId));
+	}
+
+	private void add(Reservation reservation) {
+		if (size == reservations.length) {
+			reservations = Arrays.copyOf(reservations, size * 2);
+		}
+		reservations[size++] = reservation;
+	}
+
+	@Override
+	public Optional<Reservation> verify(String confirmationCode) {
+		long decoded = codec.decode(confirmationCode);
+		if (decoded == ConfirmationCodec.INVALID) {
+			return Optional.empty();
+		}
+		int sequence = (int) (decoded >>> 32);
+		Reservation reservation;
+		synchronized (this) {
+			reservation = sequence < size ? reservations[sequence] : null;
+		}
+		return reservation != null && reservation.getSeatHoldId() == (int) decoded ? Optional.of(reservation)
+				: Optional.empty();
+	}
+
+	@Override
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Forces pending reservations to disk and closes the file of a durable
+	 * ledger.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (channel != null && channel.isOpen()) {
+			channel.force(false);
+			channel.close();
+		}
+	}
+}
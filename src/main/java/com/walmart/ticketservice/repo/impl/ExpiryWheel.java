@@ -0,0 +1,126 @@
+package com.walmart.ticketservice.repo.impl;
+
+import java.time.Duration;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.model.impl.EpochNanos;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+
+/**
+ * A hashed timing wheel of reservations keyed by expiration. Scheduling is O(1)
+ * and draining only visits the buckets for ticks that have passed since the
+ * last drain, so the cost of expiry is proportional to what expired rather than
+ * to everything outstanding. Reservations further out than one revolution wait
+ * in their bucket and are re-checked each time the wheel passes them. The
+ * first drain sweeps every bucket once and starts the wheel from its time, so
+ * the wheel follows whatever clock drains it.
+ * <p>
+ * Cancellation is lazy: reservations removed from a repository stay scheduled
+ * until drained, and the repository discards the ones it no longer holds.
+ * Scheduling may happen from any number of threads; drains are exclusive.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+final class ExpiryWheel {
+
+	static final Duration DEFAULT_TICK = Duration.ofMillis(100);
+
+	static final int DEFAULT_SIZE = 1024;
+
+	private static final long NANOS_PER_MILLI = 1_000_000L;
+
+	private static final long NOT_STARTED = Long.MIN_VALUE;
+
+	private final long tickMillis;
+
+	private final List<Queue<Entry<String, SuccessfulHold>>> buckets;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private long cursor = NOT_STARTED;
+
+	ExpiryWheel() {
+		this(DEFAULT_TICK, DEFAULT_SIZE);
+	}
+
+	/**
+	 * @param tick resolution of the wheel, must be at least one millisecond
+	 * @param size number of buckets, must be > 0
+	 */
+	ExpiryWheel(Duration tick, int size) {
+		Preconditions.checkArgument(tick.toMillis() > 0, "tick must be at least 1ms");
+		Preconditions.checkArgument(size > 0, String.format("size must be > 0, %s supplied", size));
+		this.tickMillis = tick.toMillis();
+		this.buckets = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			buckets.add(new ConcurrentLinkedQueue<>());
+		}
+	}
+
+	void schedule(String email, SuccessfulHold reservation) {
+		lock.readLock().lock();
+		try {
+			// anything already due goes in the bucket the next drain starts from
+			long tick = Math.max(ticks(reservation.getExpirationEpochNanos()), cursor);
+			bucket(tick).add(new SimpleImmutableEntry<>(email, reservation));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param nowNanos nanoseconds since the epoch, never less than on the last
+	 *                 drain
+	 * @return every scheduled reservation that expired before now, including ones
+	 *         that have since been removed from the repository.
+	 */
+	Collection<Entry<String, SuccessfulHold>> drain(long nowNanos) {
+		List<Entry<String, SuccessfulHold>> expired = null;
+		lock.writeLock().lock();
+		try {
+			long nowTick = ticks(nowNanos);
+			if (cursor == NOT_STARTED) {
+				cursor = nowTick - buckets.size() + 1;
+			}
+			long last = Math.min(nowTick, cursor + buckets.size() - 1);
+			for (long tick = cursor; tick <= last; tick++) {
+				Queue<Entry<String, SuccessfulHold>> bucket = bucket(tick);
+				int pending = bucket.size();
+				for (int i = 0; i < pending; i++) {
+					Entry<String, SuccessfulHold> entry = bucket.poll();
+					if (entry.getValue().isExpiredAt(nowNanos)) {
+						if (expired == null) {
+							expired = new ArrayList<>();
+						}
+						expired.add(entry);
+					} else {
+						bucket.add(entry);
+					}
+				}
+			}
+			cursor = Math.max(cursor, nowTick);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		// most drains on the request path find nothing, so avoid allocating
+		return expired == null ? Collections.emptyList() : expired;
+	}
+
+	private Queue<Entry<String, SuccessfulHold>> bucket(long tick) {
+		return buckets.get((int) Math.floorMod(tick, (long) buckets.size()));
+	}
+
+	private long ticks(long epochNanos) {
+		return Math.floorDiv(Math.floorDiv(epochNanos, NANOS_PER_MILLI), tickMillis);
+	}
+}
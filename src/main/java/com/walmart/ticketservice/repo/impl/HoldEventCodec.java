@@ -0,0 +1,117 @@
+package com.walmart.ticketservice.repo.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+
+/**
+ * Compact binary encoding of changes to a SuccessfulHoldRepository. Each event
+ * starts with a type byte; holds carry their id, expiration as epoch nanos,
+ * UTF-8 email and seats, while reserve and expire events carry only the id.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class HoldEventCodec {
+
+	/**
+	 * A hold was stored, replacing any earlier hold with the same id.
+	 */
+	public static final byte HOLD = 1;
+
+	/**
+	 * A hold was removed because it was reserved.
+	 */
+	public static final byte RESERVE = 2;
+
+	/**
+	 * A hold was removed because it expired.
+	 */
+	public static final byte EXPIRE = 3;
+
+	/**
+	 * Receives decoded events.
+	 *
+	 * @author John McCaulley jmccaull@gmu.edu
+	 */
+	public interface Visitor {
+
+		/**
+		 * @param email       owner of the hold
+		 * @param reservation the decoded hold
+		 */
+		void onHold(String email, SuccessfulHold reservation);
+
+		/**
+		 * @param seatHoldId id of the reserved hold
+		 */
+		void onReserve(int seatHoldId);
+
+		/**
+		 * @param seatHoldId id of the expired hold
+		 */
+		void onExpire(int seatHoldId);
+	}
+
+	private HoldEventCodec() {
+	}
+
+	/**
+	 * @param email       can not be null
+	 * @param reservation can not be null
+	 * @return the encoded HOLD event.
+	 */
+	public static byte[] encodeHold(String email, SuccessfulHold reservation) {
+		byte[] emailBytes = email.getBytes(StandardCharsets.UTF_8);
+		int seatCount = reservation.seatCount();
+		ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 8 + 4 + emailBytes.length + 4 + 4 * seatCount);
+		buffer.put(HOLD).putInt(reservation.getSeatHoldId()).putLong(reservation.getExpirationEpochNanos());
+		buffer.putInt(emailBytes.length).put(emailBytes).putInt(seatCount);
+		for (int i = 0; i < seatCount; i++) {
+			buffer.putInt(reservation.seatAt(i));
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * @param type       {@link #RESERVE} or {@link #EXPIRE}
+	 * @param seatHoldId id of the removed hold
+	 * @return the encoded event.
+	 */
+	public static byte[] encodeRemoval(byte type, int seatHoldId) {
+		Preconditions.checkArgument(type == RESERVE || type == EXPIRE, "unknown removal type %s", type);
+		return ByteBuffer.allocate(1 + 4).put(type).putInt(seatHoldId).array();
+	}
+
+	/**
+	 * Decodes one event, consuming it from the buffer.
+	 *
+	 * @throws IllegalArgumentException if the event type is unknown.
+	 */
+	public static void decode(ByteBuffer buffer, Visitor visitor) {
+		byte type = buffer.get();
+		int seatHoldId = buffer.getInt();
+		switch (type) {
+		case HOLD:
+			long expiration = buffer.getLong();
+			byte[] emailBytes = new byte[buffer.getInt()];
+			buffer.get(emailBytes);
+			int[] seats = new int[buffer.getInt()];
+			for (int i = 0; i < seats.length; i++) {
+				seats[i] = buffer.getInt();
+			}
+			visitor.onHold(new String(emailBytes, StandardCharsets.UTF_8),
+					new SuccessfulHold(expiration, seats, seatHoldId));
+			break;
+		case RESERVE:
+			visitor.onReserve(seatHoldId);
+			break;
+		case EXPIRE:
+			visitor.onExpire(seatHoldId);
+			break;
+		default:
+			throw new IllegalArgumentException(String.format("unknown event type %s", type));
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package com.walmart.ticketservice.repo.impl;
+
+import java.util.OptionalInt;
+
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+
+/**
+ * Open addressing map from seatHoldId to reservation and owning email. Keys are
+ * primitive ints in linear probed parallel arrays, so lookups neither box nor
+ * allocate. Not thread safe.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+final class HoldIdIndex {
+
+	private int[] ids = new int[16];
+
+	private SuccessfulHold[] holds = new SuccessfulHold[16];
+
+	private String[] emails = new String[16];
+
+	private int size;
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return the highest id present, or empty if none is.
+	 */
+	OptionalInt maxId() {
+		OptionalInt max = OptionalInt.empty();
+		for (int slot = 0; slot < ids.length; slot++) {
+			if (holds[slot] != null && (!max.isPresent() || ids[slot] > max.getAsInt())) {
+				max = OptionalInt.of(ids[slot]);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @return false without changing anything if the id is already present.
+	 */
+	boolean put(int id, String email, SuccessfulHold hold) {
+		if (2 * (size + 1) > ids.length) {
+			resize();
+		}
+		int slot = slot(id);
+		if (holds[slot] != null) {
+			return false;
+		}
+		ids[slot] = id;
+		holds[slot] = hold;
+		emails[slot] = email;
+		size++;
+		return true;
+	}
+
+	/**
+	 * @return the reservation with the id if it belongs to email, otherwise null.
+	 */
+	SuccessfulHold get(int id, String email) {
+		int slot = slot(id);
+		return holds[slot] != null && emails[slot].equals(email) ? holds[slot] : null;
+	}
+
+	/**
+	 * Removes the id only if it currently maps to exactly this reservation.
+	 *
+	 * @return true if removed.
+	 */
+	boolean remove(int id, SuccessfulHold hold) {
+		int slot = slot(id);
+		if (holds[slot] != hold || hold == null) {
+			return false;
+		}
+		holds[slot] = null;
+		emails[slot] = null;
+		size--;
+		// shift back later entries of the probe run so lookups never stop early
+		int mask = ids.length - 1;
+		int empty = slot;
+		for (int next = (slot + 1) & mask; holds[next] != null; next = (next + 1) & mask) {
+			int home = home(ids[next]);
+			if (((next - home) & mask) >= ((next - empty) & mask)) {
+				ids[empty] = ids[next];
+				holds[empty] = holds[next];
+				emails[empty] = emails[next];
+				holds[next] = null;
+				emails[next] = null;
+				empty = next;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Swaps the reservation for id only if it currently maps to exactly current.
+	 *
+	 * @return true if replaced.
+	 */
+	boolean replace(int id, SuccessfulHold current, SuccessfulHold replacement) {
+		int slot = slot(id);
+		if (holds[slot] != current || current == null) {
+			return false;
+		}
+		holds[slot] = replacement;
+		return true;
+	}
+
+	/**
+	 * @return the slot holding id, or the empty slot where it would be inserted.
+	 */
+	private int slot(int id) {
+		int mask = ids.length - 1;
+		int slot = home(id);
+		while (holds[slot] != null && ids[slot] != id) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private int home(int id) {
+		// spread sequential ids across the table
+		return (id * 0x9E3779B9) >>> (Integer.SIZE - Integer.numberOfTrailingZeros(ids.length))
+				& (ids.length - 1);
+	}
+
+	private void resize() {
+		int[] oldIds = ids;
+		SuccessfulHold[] oldHolds = holds;
+		String[] oldEmails = emails;
+		ids = new int[oldIds.length * 2];
+		holds = new SuccessfulHold[oldIds.length * 2];
+		emails = new String[oldIds.length * 2];
+		size = 0;
+		for (int i = 0; i < oldIds.length; i++) {
+			if (oldHolds[i] != null) {
+				put(oldIds[i], oldEmails[i], oldHolds[i]);
+			}
+		}
+	}
+}
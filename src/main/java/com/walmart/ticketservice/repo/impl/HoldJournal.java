@@ -0,0 +1,276 @@
+package com.walmart.ticketservice.repo.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of hold events in fixed size memory-mapped segment files.
+ * Each record is its length, a CRC32 and the encoded event; a zero length marks
+ * the end of a segment, and a record with a bad checksum is treated as a torn
+ * write and ends replay. Snapshots named after the first segment they do not
+ * cover allow older segments to be deleted. Not thread safe.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+final class HoldJournal implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(HoldJournal.class);
+
+	private static final String SEGMENT_FORMAT = "segment-%016d.log";
+
+	private static final String SNAPSHOT_FORMAT = "snapshot-%016d.bin";
+
+	private static final int HEADER_BYTES = 8;
+
+	private final Path directory;
+
+	private final int segmentBytes;
+
+	private final int syncEvery;
+
+	private final long syncDelayNanos;
+
+	private final CRC32 crc = new CRC32();
+
+	private long segmentId;
+
+	private FileChannel channel;
+
+	private MappedByteBuffer segment;
+
+	private int unsynced;
+
+	// System.nanoTime of the oldest event not yet forced
+	private long oldestUnsynced;
+
+	/**
+	 * Starts writing a new segment.
+	 *
+	 * @param segmentId      id of the first segment to write, after any that
+	 *                       exist
+	 * @param syncDelayNanos longest an event may wait to be forced, checked by
+	 *                       {@link #append(byte[])} and {@link #syncIfDue()}
+	 */
+	HoldJournal(Path directory, long segmentId, int segmentBytes, int syncEvery, long syncDelayNanos)
+			throws IOException {
+		this.directory = directory;
+		this.segmentBytes = segmentBytes;
+		this.syncEvery = syncEvery;
+		this.syncDelayNanos = syncDelayNanos;
+		open(segmentId);
+	}
+
+	/**
+	 * Loads the newest snapshot in directory and replays every segment after it.
+	 *
+	 * @return the id the next segment should be written with.
+	 */
+	static long replay(Path directory, JournalState state) throws IOException {
+		long snapshotId = latest(directory, "snapshot-", ".bin");
+		long next = Math.max(snapshotId, 0);
+		if (snapshotId >= 0) {
+			try (InputStream in = Files.newInputStream(directory.resolve(String.format(SNAPSHOT_FORMAT, snapshotId)))) {
+				state.readSnapshot(new DataInputStream(new BufferedInputStream(in)));
+			}
+		}
+		int records = 0;
+		for (long id : ids(directory, "segment-", ".log")) {
+			if (id < snapshotId) {
+				continue;
+			}
+			try (FileChannel readChannel = FileChannel.open(directory.resolve(String.format(SEGMENT_FORMAT, id)),
+					StandardOpenOption.READ)) {
+				records += replay(readChannel.map(MapMode.READ_ONLY, 0, readChannel.size()), state);
+			}
+			next = id + 1;
+		}
+		LOG.info("Recovered {} holds from snapshot {} and {} journal records", state.holds().size(), snapshotId,
+				records);
+		return next;
+	}
+
+	private static int replay(ByteBuffer buffer, JournalState state) {
+		CRC32 checksum = new CRC32();
+		int records = 0;
+		while (buffer.remaining() >= HEADER_BYTES) {
+			int length = buffer.getInt();
+			int expected = buffer.getInt();
+			if (length <= 0 || length > buffer.remaining()) {
+				break;
+			}
+			byte[] event = new byte[length];
+			buffer.get(event);
+			checksum.reset();
+			checksum.update(event, 0, length);
+			if ((int) checksum.getValue() != expected) {
+				LOG.warn("Discarding torn journal record after {} records", records);
+				break;
+			}
+			HoldEventCodec.decode(ByteBuffer.wrap(event), state);
+			records++;
+		}
+		return records;
+	}
+
+	/**
+	 * @return true if the event fits in an empty segment.
+	 */
+	boolean accepts(byte[] event) {
+		return HEADER_BYTES + event.length <= segmentBytes;
+	}
+
+	/**
+	 * @return true if the event fits in the current segment.
+	 */
+	boolean fits(byte[] event) {
+		return segment.remaining() >= HEADER_BYTES + event.length;
+	}
+
+	/**
+	 * Appends an event, forcing it to disk once syncEvery events are pending or
+	 * the oldest pending one has waited syncDelayNanos.
+	 *
+	 * @throws IllegalArgumentException if the event can never fit in a segment.
+	 */
+	void append(byte[] event) throws IOException {
+		if (!accepts(event)) {
+			throw new IllegalArgumentException(String.format("event of %s bytes exceeds segment", event.length));
+		}
+		if (!fits(event)) {
+			roll();
+		}
+		crc.reset();
+		crc.update(event, 0, event.length);
+		segment.putInt(event.length).putInt((int) crc.getValue()).put(event);
+		if (unsynced++ == 0) {
+			oldestUnsynced = System.nanoTime();
+		}
+		if (unsynced >= syncEvery) {
+			sync();
+		} else {
+			syncIfDue();
+		}
+	}
+
+	/**
+	 * Forces pending events to disk if the oldest has waited syncDelayNanos.
+	 */
+	void syncIfDue() {
+		if (unsynced > 0 && System.nanoTime() - oldestUnsynced >= syncDelayNanos) {
+			sync();
+		}
+	}
+
+	/**
+	 * @return events appended but not yet forced.
+	 */
+	int unsynced() {
+		return unsynced;
+	}
+
+	/**
+	 * Forces pending events to disk.
+	 */
+	void sync() {
+		if (unsynced > 0) {
+			segment.force();
+			unsynced = 0;
+		}
+	}
+
+	/**
+	 * Closes the current segment and starts the next.
+	 *
+	 * @return the id of the new segment.
+	 */
+	long roll() throws IOException {
+		close();
+		open(segmentId + 1);
+		return segmentId;
+	}
+
+	/**
+	 * Atomically writes a snapshot of state covering every segment before the
+	 * current one, then deletes those segments and older snapshots.
+	 */
+	void snapshot(JournalState state) throws IOException {
+		Path target = directory.resolve(String.format(SNAPSHOT_FORMAT, segmentId));
+		Path temp = directory.resolve(target.getFileName() + ".tmp");
+		try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			DataOutputStream data = new DataOutputStream(
+					new BufferedOutputStream(Channels.newOutputStream(out)));
+			state.writeSnapshot(data);
+			data.flush();
+			out.force(true);
+		}
+		Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		for (long id : ids(directory, "segment-", ".log")) {
+			if (id < segmentId) {
+				Files.deleteIfExists(directory.resolve(String.format(SEGMENT_FORMAT, id)));
+			}
+		}
+		for (long id : ids(directory, "snapshot-", ".bin")) {
+			if (id < segmentId) {
+				Files.deleteIfExists(directory.resolve(String.format(SNAPSHOT_FORMAT, id)));
+			}
+		}
+		LOG.debug("Wrote snapshot {} with {} holds", segmentId, state.holds().size());
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			segment.force();
+			unsynced = 0;
+			channel.close();
+			channel = null;
+		}
+	}
+
+	private void open(long id) throws IOException {
+		segmentId = id;
+		channel = FileChannel.open(directory.resolve(String.format(SEGMENT_FORMAT, id)), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		segment = channel.map(MapMode.READ_WRITE, 0, segmentBytes);
+	}
+
+	private static long latest(Path directory, String prefix, String suffix) throws IOException {
+		List<Long> ids = ids(directory, prefix, suffix);
+		return ids.isEmpty() ? -1 : ids.get(ids.size() - 1);
+	}
+
+	private static List<Long> ids(Path directory, String prefix, String suffix) throws IOException {
+		List<Long> ids = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				ids.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+			}
+		}
+		Collections.sort(ids);
+		return ids;
+	}
+}
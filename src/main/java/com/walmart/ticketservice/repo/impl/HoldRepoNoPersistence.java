@@ -1,7 +1,11 @@
 package com.walmart.ticketservice.repo.impl;
 
+import java.time.Instant;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -9,12 +13,15 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.ListMultimap;
+import com.walmart.ticketservice.model.impl.EpochNanos;
 import com.walmart.ticketservice.model.impl.SuccessfulHold;
 import com.walmart.ticketservice.repo.SuccessfulHoldRepository;
 
 /**
- * A Mutlimap based repository that does not persist.
+ * A Mutlimap based repository that does not persist. Not thread safe, callers
+ * must serialize access. Reservations are indexed by id in a {@link HoldIdIndex}
+ * and by expiration in an {@link ExpiryWheel}.
  * 
  * @author John McCaulley jmccaull@gmu.edu
  */
@@ -22,37 +29,109 @@ public final class HoldRepoNoPersistence implements SuccessfulHoldRepository {
 
 	private static final Logger LOG = LoggerFactory.getLogger(HoldRepoNoPersistence.class);
 
-	private final Multimap<String, SuccessfulHold> currentReservations = ArrayListMultimap.create();
+	private final ListMultimap<String, SuccessfulHold> currentReservations = ArrayListMultimap.create();
+
+	private final HoldIdIndex idIndex = new HoldIdIndex();
+
+	private final ExpiryWheel expiryWheel = new ExpiryWheel();
 
 	@Override
 	public Collection<SuccessfulHold> getByEmail(String email) {
 		Preconditions.checkArgument(email != null, "email can not be null");
 		Collection<SuccessfulHold> reservations = currentReservations.get(email);
-		LOG.debug("Found {} reservations for email {}", reservations.size(), email);
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Found {} reservations for email {}", reservations.size(), email);
+		}
 		return reservations;
 	}
 
 	@Override
-	public void remove(String email, SuccessfulHold reservation) {
+	public Optional<SuccessfulHold> getById(int seatHoldId, String email) {
+		Preconditions.checkArgument(email != null, "email can not be null");
+		return Optional.ofNullable(idIndex.get(seatHoldId, email));
+	}
+
+	@Override
+	public OptionalInt highestSeatHoldId() {
+		return idIndex.maxId();
+	}
+
+	@Override
+	public boolean remove(String email, SuccessfulHold reservation) {
 		Preconditions.checkArgument(email != null, "email can not be null");
 		Preconditions.checkArgument(reservation != null, "reservation can not be null");
-		LOG.debug("Removing reservation {} for email {}", reservation, email);
-		currentReservations.remove(email, reservation);
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Removing reservation {} for email {}", reservation, email);
+		}
+		boolean removed = currentReservations.remove(email, reservation);
+		if (removed) {
+			idIndex.remove(reservation.getSeatHoldId(), reservation);
+		}
+		return removed;
 	}
 
 	@Override
 	public void add(String email, SuccessfulHold reservation) {
 		Preconditions.checkArgument(email != null, "email can not be null");
 		Preconditions.checkArgument(reservation != null, "reservation can not be null");
-		LOG.debug("adding reservation {} for email {}", reservation, email);
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("adding reservation {} for email {}", reservation, email);
+		}
+		Preconditions.checkArgument(idIndex.put(reservation.getSeatHoldId(), email, reservation),
+				"reservation with id %s already exists", reservation.getSeatHoldId());
 		currentReservations.put(email, reservation);
+		expiryWheel.schedule(email, reservation);
+	}
+
+	/**
+	 * Swaps the reservation in place and schedules the replacement; the stale
+	 * schedule of current is discarded when drained. Finding current in its
+	 * email's list is linear in that email's holds.
+	 */
+	@Override
+	public boolean replace(String email, SuccessfulHold current, SuccessfulHold replacement) {
+		Preconditions.checkArgument(email != null, "email can not be null");
+		Preconditions.checkArgument(current != null && replacement != null, "reservations can not be null");
+		Preconditions.checkArgument(current.getSeatHoldId() == replacement.getSeatHoldId(),
+				"replacement must have the seatHoldId of current");
+		if (idIndex.get(current.getSeatHoldId(), email) != current) {
+			return false;
+		}
+		idIndex.replace(current.getSeatHoldId(), current, replacement);
+		List<SuccessfulHold> reservations = currentReservations.get(email);
+		reservations.set(reservations.indexOf(current), replacement);
+		expiryWheel.schedule(email, replacement);
+		return true;
 	}
 
 	@Override
-	public Collection<Entry<String, SuccessfulHold>> getAllExpired() {
+	public Collection<Entry<String, SuccessfulHold>> getAllExpired(long nowEpochNanos) {
 		Collection<Entry<String, SuccessfulHold>> expired = currentReservations.entries().stream()
-				.filter((entry) -> entry.getValue().isExpired()).collect(Collectors.toList());
-		LOG.debug("Found {} expired reservations", expired.size());
+				.filter((entry) -> entry.getValue().isExpiredAt(nowEpochNanos)).collect(Collectors.toList());
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Found {} expired reservations", expired.size());
+		}
+		return expired;
+	}
+
+	@Override
+	public Collection<Entry<String, SuccessfulHold>> drainExpired(Instant now) {
+		Preconditions.checkArgument(now != null, "now can not be null");
+		return drainExpired(EpochNanos.of(now));
+	}
+
+	@Override
+	public Collection<Entry<String, SuccessfulHold>> drainExpired(long nowEpochNanos) {
+		Collection<Entry<String, SuccessfulHold>> due = expiryWheel.drain(nowEpochNanos);
+		if (due.isEmpty()) {
+			return due;
+		}
+		Collection<Entry<String, SuccessfulHold>> expired = due.stream()
+				.filter(entry -> remove(entry.getKey(), entry.getValue()))
+				.collect(Collectors.toList());
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Drained {} expired reservations", expired.size());
+		}
 		return expired;
 	}
 
@@ -0,0 +1,131 @@
+package com.walmart.ticketservice.repo.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Map.Entry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.model.impl.Venues;
+import com.walmart.ticketservice.repo.SuccessfulHoldRepository;
+
+/**
+ * The standby side of a {@link ReplicatedHoldRepository}. Every event received
+ * is applied to the standby's own repository at once, and the seats held or
+ * reserved are tracked as a bitmap, so failing over only has to bring a new
+ * Venue to those seats with {@link #promote(Venue)}, which is O(seats) and
+ * independent of how many events were replicated. A TicketService built from
+ * the promoted Venue and {@link #repository()} carries on where the primary
+ * stopped, less whatever the transport had not yet delivered.
+ * <p>
+ * Thread safe; transports may deliver from any thread.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class HotStandby {
+
+	private static final Logger LOG = LoggerFactory.getLogger(HotStandby.class);
+
+	private final SuccessfulHoldRepository repository;
+
+	private final JournalState state = new JournalState();
+
+	private final HoldEventCodec.Visitor applier = new HoldEventCodec.Visitor() {
+
+		@Override
+		public void onHold(String email, SuccessfulHold reservation) {
+			Entry<String, SuccessfulHold> current = state.hold(reservation.getSeatHoldId());
+			if (current == null) {
+				repository.add(email, reservation);
+			} else {
+				repository.replace(email, current.getValue(), reservation);
+			}
+			state.onHold(email, reservation);
+		}
+
+		@Override
+		public void onReserve(int seatHoldId) {
+			remove(seatHoldId);
+			state.onReserve(seatHoldId);
+		}
+
+		@Override
+		public void onExpire(int seatHoldId) {
+			remove(seatHoldId);
+			state.onExpire(seatHoldId);
+		}
+
+		private void remove(int seatHoldId) {
+			Entry<String, SuccessfulHold> current = state.hold(seatHoldId);
+			if (current != null) {
+				repository.remove(current.getKey(), current.getValue());
+			}
+		}
+	};
+
+	private long applied;
+
+	private boolean promoted;
+
+	/**
+	 * @param repository empty repository the replicated holds are applied to,
+	 *                   can not be null
+	 * @throws NullPointerException if repository is null.
+	 */
+	public HotStandby(SuccessfulHoldRepository repository) {
+		this.repository = Preconditions.checkNotNull(repository);
+	}
+
+	/**
+	 * Applies one or more concatenated events.
+	 *
+	 * @param events can not be null
+	 * @throws NullPointerException     if events is null.
+	 * @throws IllegalArgumentException if an event is not a hold event.
+	 * @throws IllegalStateException    if this standby was promoted.
+	 */
+	public synchronized void receive(byte[] events) {
+		Preconditions.checkState(!promoted, "standby was promoted, it can not apply more events");
+		ByteBuffer buffer = ByteBuffer.wrap(events);
+		while (buffer.hasRemaining()) {
+			HoldEventCodec.decode(buffer, applier);
+			applied++;
+		}
+	}
+
+	/**
+	 * @return number of events applied.
+	 */
+	public synchronized long applied() {
+		return applied;
+	}
+
+	/**
+	 * @return the repository the replicated holds were applied to.
+	 */
+	public SuccessfulHoldRepository repository() {
+		return repository;
+	}
+
+	/**
+	 * Stops applying events and gives out every seat of a new Venue that the
+	 * primary had held or reserved.
+	 *
+	 * @param venue a Venue with the primary's layout that has not issued any
+	 *              seats, can not be null
+	 * @throws NullPointerException  if venue is null.
+	 * @throws IllegalStateException if this standby was already promoted.
+	 * @return the supplied venue
+	 */
+	public synchronized <V extends Venue> V promote(V venue) {
+		Preconditions.checkState(!promoted, "standby was already promoted");
+		promoted = true;
+		long start = System.nanoTime();
+		V restored = Venues.restore(venue, state.allocatedSeats());
+		LOG.info("Promoted standby after {} events in {}ms", applied, (System.nanoTime() - start) / 1_000_000);
+		return restored;
+	}
+}
@@ -0,0 +1,108 @@
+package com.walmart.ticketservice.repo.impl;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.walmart.ticketservice.repo.ReplicationTransport;
+
+/**
+ * Delivers events to a {@link HotStandby} in the same process on a thread of
+ * its own, so the primary never waits for the standby, as with a network
+ * transport. Useful for tests and for keeping a warm copy of a venue's holds.
+ * Once the standby fails to apply an event it is no longer in step, so later
+ * events are dropped and {@link #flush()} reports the failure.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class InProcessReplicationTransport implements ReplicationTransport, AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(InProcessReplicationTransport.class);
+
+	private final HotStandby standby;
+
+	private volatile RuntimeException failure;
+
+	private final ExecutorService sender = Executors.newSingleThreadExecutor(
+			new ThreadFactoryBuilder().setNameFormat("replication-%d").setDaemon(true).build());
+
+	/**
+	 * @param standby can not be null
+	 * @throws NullPointerException if standby is null.
+	 */
+	public InProcessReplicationTransport(HotStandby standby) {
+		this.standby = Preconditions.checkNotNull(standby);
+	}
+
+	/**
+	 * @throws java.util.concurrent.RejectedExecutionException if the transport
+	 *                                                          was closed.
+	 */
+	@Override
+	public void send(byte[] event) {
+		sender.execute(() -> deliver(event));
+	}
+
+	private void deliver(byte[] event) {
+		if (failure != null) {
+			return;
+		}
+		try {
+			standby.receive(event);
+		} catch (RuntimeException e) {
+			LOG.error("Standby failed to apply a hold event, dropping the rest", e);
+			failure = e;
+		}
+	}
+
+	/**
+	 * Waits until every event sent so far has been applied.
+	 *
+	 * @throws InterruptedException  if interrupted while waiting.
+	 * @throws IllegalStateException if the standby failed to apply an event.
+	 */
+	public void flush() throws InterruptedException {
+		try {
+			sender.submit(() -> {
+			}).get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+		if (failure != null) {
+			throw new IllegalStateException("standby failed to apply an event", failure);
+		}
+	}
+
+	/**
+	 * Delivers the events already sent, then stops. If interrupted while waiting,
+	 * returns with the interrupt flag set while delivery finishes in the
+	 * background.
+	 *
+	 * @throws IllegalStateException if the events could not be delivered within
+	 *                               a minute, in which case the rest are dropped.
+	 */
+	@Override
+	public void close() {
+		sender.shutdown();
+		boolean delivered;
+		try {
+			delivered = sender.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOG.warn("Interrupted waiting for hold events to reach the standby");
+			return;
+		}
+		if (!delivered) {
+			int dropped = sender.shutdownNow().size();
+			LOG.error("Standby did not apply hold events within a minute, dropped {}", dropped);
+			throw new IllegalStateException(
+					String.format("standby did not apply hold events in time, %s dropped", dropped));
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package com.walmart.ticketservice.repo.impl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+
+/**
+ * State rebuilt from hold events: the outstanding holds and every seat that
+ * has been reserved. Together they are the seats a Venue has given out. Not
+ * thread safe.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+final class JournalState implements HoldEventCodec.Visitor {
+
+	private static final int SNAPSHOT_MAGIC = 0x484F4C44;
+
+	private static final int SNAPSHOT_VERSION = 1;
+
+	private final Map<Integer, Entry<String, SuccessfulHold>> holds = new HashMap<>();
+
+	private final BitSet reserved = new BitSet();
+
+	/**
+	 * Seats of a hold are not reserved, even if an earlier event reserved them:
+	 * a reservation the ledger failed to record is handed back as a new hold.
+	 */
+	@Override
+	public void onHold(String email, SuccessfulHold reservation) {
+		for (int i = 0; i < reservation.seatCount(); i++) {
+			reserved.clear(reservation.seatAt(i));
+		}
+		holds.put(reservation.getSeatHoldId(), new SimpleImmutableEntry<>(email, reservation));
+	}
+
+	@Override
+	public void onReserve(int seatHoldId) {
+		Entry<String, SuccessfulHold> entry = holds.remove(seatHoldId);
+		if (entry != null) {
+			SuccessfulHold hold = entry.getValue();
+			for (int i = 0; i < hold.seatCount(); i++) {
+				reserved.set(hold.seatAt(i));
+			}
+		}
+	}
+
+	@Override
+	public void onExpire(int seatHoldId) {
+		holds.remove(seatHoldId);
+	}
+
+	/**
+	 * @return the outstanding hold with the id and its email, or null.
+	 */
+	Entry<String, SuccessfulHold> hold(int seatHoldId) {
+		return holds.get(seatHoldId);
+	}
+
+	Collection<Entry<String, SuccessfulHold>> holds() {
+		return holds.values();
+	}
+
+	/**
+	 * @return seats that are reserved or held, bit n set for seat n.
+	 */
+	BitSet allocatedSeats() {
+		BitSet allocated = (BitSet) reserved.clone();
+		for (Entry<String, SuccessfulHold> entry : holds.values()) {
+			SuccessfulHold hold = entry.getValue();
+			for (int i = 0; i < hold.seatCount(); i++) {
+				allocated.set(hold.seatAt(i));
+			}
+		}
+		return allocated;
+	}
+
+	void writeSnapshot(DataOutputStream out) throws IOException {
+		out.writeInt(SNAPSHOT_MAGIC);
+		out.writeInt(SNAPSHOT_VERSION);
+		long[] words = reserved.toLongArray();
+		out.writeInt(words.length);
+		for (long word : words) {
+			out.writeLong(word);
+		}
+		out.writeInt(holds.size());
+		for (Entry<String, SuccessfulHold> entry : holds.values()) {
+			byte[] event = HoldEventCodec.encodeHold(entry.getKey(), entry.getValue());
+			out.writeInt(event.length);
+			out.write(event);
+		}
+	}
+
+	void readSnapshot(DataInputStream in) throws IOException {
+		if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+			throw new IOException("not a hold snapshot");
+		}
+		long[] words = new long[in.readInt()];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = in.readLong();
+		}
+		reserved.or(BitSet.valueOf(words));
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			byte[] event = new byte[in.readInt()];
+			in.readFully(event);
+			HoldEventCodec.decode(ByteBuffer.wrap(event), this);
+		}
+	}
+}
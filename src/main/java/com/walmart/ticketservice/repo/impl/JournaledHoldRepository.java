@@ -0,0 +1,362 @@
+package com.walmart.ticketservice.repo.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.model.impl.EpochNanos;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.model.impl.Venues;
+import com.walmart.ticketservice.repo.SuccessfulHoldRepository;
+
+/**
+ * A durable repository. Reads are served by an in-memory delegate while every
+ * change is appended to a {@link HoldJournal}: adds and replacements as hold
+ * events, removals as reservations and drained holds as expirations. A new
+ * hold is journaled before the delegate sees it; any other change the journal
+ * refuses is undone in the delegate before the exception is thrown, so memory
+ * never holds what the journal does not. Events are forced to disk in
+ * batches of syncEvery, or sooner once the oldest has waited syncDelay, so a
+ * crash loses at most the acknowledged changes of the last syncDelay and never
+ * more than syncEvery - 1 of them. Whenever a segment fills a snapshot of the outstanding holds and
+ * reserved seats is written and older segments are deleted, keeping recovery
+ * proportional to live state rather than history.
+ * <p>
+ * On open the delegate is reloaded with the recovered holds, and
+ * {@link #restoreVenue(Venue)} brings a new Venue back to the seats that were
+ * held or reserved.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class JournaledHoldRepository implements SuccessfulHoldRepository, Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(JournaledHoldRepository.class);
+
+	/**
+	 * Longest an event waits to be forced by default.
+	 */
+	public static final Duration DEFAULT_SYNC_DELAY = Duration.ofSeconds(1);
+
+	private final SuccessfulHoldRepository delegate;
+
+	private final JournalState state;
+
+	private final HoldJournal journal;
+
+	private final Lock lock = new ReentrantLock();
+
+	private JournaledHoldRepository(SuccessfulHoldRepository delegate, JournalState state, HoldJournal journal) {
+		this.delegate = delegate;
+		this.state = state;
+		this.journal = journal;
+	}
+
+	/**
+	 * Recovers any state in directory and starts journaling to it, forcing
+	 * events at least every {@link #DEFAULT_SYNC_DELAY}.
+	 *
+	 * @see #open(Path, SuccessfulHoldRepository, int, int, Duration)
+	 */
+	public static JournaledHoldRepository open(Path directory, SuccessfulHoldRepository delegate, int segmentBytes,
+			int syncEvery) throws IOException {
+		return open(directory, delegate, segmentBytes, syncEvery, DEFAULT_SYNC_DELAY);
+	}
+
+	/**
+	 * Recovers any state in directory and starts journaling to it.
+	 * <p>
+	 * A change is durable once its event is forced: after syncEvery events, or
+	 * at the first append or expiry drain once the oldest pending event has
+	 * waited syncDelay. A service sweeping expired holds drains on every
+	 * operation or reaper tick, so a crash loses at most the changes since
+	 * syncDelay plus one tick ago. A repository nothing appends to or drains
+	 * keeps its pending events until {@link #flush()} or {@link #close()}.
+	 *
+	 * @param directory    created if missing, can not be null
+	 * @param delegate     empty repository used to serve reads, can not be null.
+	 *                     Must be thread safe if this repository is shared
+	 *                     between threads without external locking.
+	 * @param segmentBytes size of each memory-mapped segment file, must be > 0
+	 * @param syncEvery    number of events between forces to disk, must be > 0
+	 * @param syncDelay    longest an event waits to be forced once the
+	 *                     repository is used again, can not be negative
+	 * @throws NullPointerException     if directory, delegate or syncDelay is
+	 *                                  null.
+	 * @throws IllegalArgumentException if segmentBytes or syncEvery <= 0, or
+	 *                                  syncDelay is negative.
+	 * @throws IOException              if the journal can not be read or created.
+	 * @return an open repository
+	 */
+	public static JournaledHoldRepository open(Path directory, SuccessfulHoldRepository delegate, int segmentBytes,
+			int syncEvery, Duration syncDelay) throws IOException {
+		Preconditions.checkNotNull(directory);
+		Preconditions.checkNotNull(delegate);
+		Preconditions.checkArgument(segmentBytes > 0, String.format("segmentBytes must be > 0, %s supplied", segmentBytes));
+		Preconditions.checkArgument(syncEvery > 0, String.format("syncEvery must be > 0, %s supplied", syncEvery));
+		Preconditions.checkArgument(!syncDelay.isNegative(), "syncDelay can not be negative");
+		Files.createDirectories(directory);
+		JournalState state = new JournalState();
+		long nextSegment = HoldJournal.replay(directory, state);
+		state.holds().forEach(entry -> delegate.add(entry.getKey(), entry.getValue()));
+		HoldJournal journal = new HoldJournal(directory, nextSegment, segmentBytes, syncEvery, syncDelay.toNanos());
+		// compact whatever was replayed so the next recovery starts from here
+		journal.snapshot(state);
+		return new JournaledHoldRepository(delegate, state, journal);
+	}
+
+	/**
+	 * Gives out every seat of a new Venue that the recovered journal records as
+	 * held or reserved.
+	 *
+	 * @param venue a Venue that has not issued any seats, can not be null
+	 * @throws NullPointerException if venue is null.
+	 * @return the supplied venue
+	 */
+	public <V extends Venue> V restoreVenue(V venue) {
+		lock.lock();
+		try {
+			return Venues.restore(venue, state.allocatedSeats());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Collection<SuccessfulHold> getByEmail(String email) {
+		return delegate.getByEmail(email);
+	}
+
+	@Override
+	public Optional<SuccessfulHold> getById(int seatHoldId, String email) {
+		return delegate.getById(seatHoldId, email);
+	}
+
+	@Override
+	public OptionalInt highestSeatHoldId() {
+		return delegate.highestSeatHoldId();
+	}
+
+	@Override
+	public Collection<Entry<String, SuccessfulHold>> getAllExpired(long nowEpochNanos) {
+		return delegate.getAllExpired(nowEpochNanos);
+	}
+
+	@Override
+	public Collection<Entry<String, SuccessfulHold>> drainExpired(Instant now) {
+		Preconditions.checkArgument(now != null, "now can not be null");
+		return drainExpired(EpochNanos.of(now));
+	}
+
+	/**
+	 * Journals the drained holds as expired. If the journal fails part way the
+	 * holds not yet journaled go back to the delegate for a later drain, and
+	 * only the journaled ones are returned. Forces pending events that have
+	 * waited syncDelay, even if nothing expired.
+	 */
+	@Override
+	public Collection<Entry<String, SuccessfulHold>> drainExpired(long nowEpochNanos) {
+		lock.lock();
+		try {
+			Collection<Entry<String, SuccessfulHold>> expired = delegate.drainExpired(nowEpochNanos);
+			List<Entry<String, SuccessfulHold>> journaled = new ArrayList<>(expired.size());
+			Iterator<Entry<String, SuccessfulHold>> entries = expired.iterator();
+			try {
+				while (entries.hasNext()) {
+					Entry<String, SuccessfulHold> entry = entries.next();
+					int seatHoldId = entry.getValue().getSeatHoldId();
+					try {
+						append(HoldEventCodec.encodeRemoval(HoldEventCodec.EXPIRE, seatHoldId));
+					} catch (RuntimeException e) {
+						delegate.add(entry.getKey(), entry.getValue());
+						throw e;
+					}
+					state.onExpire(seatHoldId);
+					journaled.add(entry);
+				}
+			} catch (RuntimeException e) {
+				LOG.error("Failed to journal {} expired holds, keeping them", expired.size() - journaled.size(), e);
+				entries.forEachRemaining(entry -> delegate.add(entry.getKey(), entry.getValue()));
+			}
+			journal.syncIfDue();
+			return journaled;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Journals the removal as a reservation, so its seats stay given out after
+	 * recovery.
+	 */
+	@Override
+	public boolean remove(String email, SuccessfulHold reservation) {
+		lock.lock();
+		try {
+			boolean removed = delegate.remove(email, reservation);
+			if (removed) {
+				try {
+					append(HoldEventCodec.encodeRemoval(HoldEventCodec.RESERVE, reservation.getSeatHoldId()));
+				} catch (RuntimeException e) {
+					delegate.add(email, reservation);
+					throw e;
+				}
+				state.onReserve(reservation.getSeatHoldId());
+			}
+			return removed;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Journals the hold before adding it to the delegate.
+	 *
+	 * @throws IllegalArgumentException if the hold can never fit in a segment.
+	 */
+	@Override
+	public void add(String email, SuccessfulHold reservation) {
+		Preconditions.checkArgument(email != null, "email can not be null");
+		Preconditions.checkArgument(reservation != null, "reservation can not be null");
+		int seatHoldId = reservation.getSeatHoldId();
+		lock.lock();
+		try {
+			Preconditions.checkArgument(state.hold(seatHoldId) == null,
+					String.format("reservation with id %s already exists", seatHoldId));
+			append(checkSize(HoldEventCodec.encodeHold(email, reservation)));
+			state.onHold(email, reservation);
+			try {
+				delegate.add(email, reservation);
+			} catch (RuntimeException e) {
+				// the id was not held before, so expiring it restores the journal
+				state.onExpire(seatHoldId);
+				append(HoldEventCodec.encodeRemoval(HoldEventCodec.EXPIRE, seatHoldId));
+				throw e;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Journals the replacement as a new hold event for the same id, which
+	 * supersedes the old one on recovery, so released seats are not kept as
+	 * reserved.
+	 *
+	 * @throws IllegalArgumentException if the replacement can never fit in a
+	 *                                  segment.
+	 */
+	@Override
+	public boolean replace(String email, SuccessfulHold current, SuccessfulHold replacement) {
+		Preconditions.checkArgument(email != null, "email can not be null");
+		Preconditions.checkArgument(replacement != null, "reservations can not be null");
+		byte[] event = checkSize(HoldEventCodec.encodeHold(email, replacement));
+		lock.lock();
+		try {
+			boolean replaced = delegate.replace(email, current, replacement);
+			if (replaced) {
+				try {
+					append(event);
+				} catch (RuntimeException e) {
+					delegate.replace(email, replacement, current);
+					throw e;
+				}
+				state.onHold(email, replacement);
+			}
+			return replaced;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return events journaled but not yet forced to disk.
+	 */
+	int pendingEvents() {
+		lock.lock();
+		try {
+			return journal.unsynced();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Forces every journaled event to disk.
+	 */
+	public void flush() {
+		lock.lock();
+		try {
+			journal.sync();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Starts a new segment and writes a snapshot covering everything before it.
+	 *
+	 * @throws IOException if the snapshot can not be written.
+	 */
+	public void snapshot() throws IOException {
+		lock.lock();
+		try {
+			journal.roll();
+			journal.snapshot(state);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private byte[] checkSize(byte[] event) {
+		Preconditions.checkArgument(journal.accepts(event),
+				String.format("hold event of %s bytes exceeds segment", event.length));
+		return event;
+	}
+
+	private void append(byte[] event) {
+		try {
+			if (!journal.fits(event)) {
+				// state does not include this event yet, so it is exactly what
+				// the finished segments describe
+				journal.roll();
+				journal.snapshot(state);
+			}
+			journal.append(event);
+		} catch (IOException e) {
+			LOG.error("Failed to journal hold event", e);
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Forces pending events to disk and closes the journal.
+	 */
+	@Override
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			journal.close();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+}
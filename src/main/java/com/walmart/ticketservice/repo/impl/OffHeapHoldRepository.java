@@ -0,0 +1,638 @@
+package com.walmart.ticketservice.repo.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.time.Instant;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.model.impl.EpochNanos;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.repo.SuccessfulHoldRepository;
+
+/**
+ * A thread safe repository that does not persist and keeps reservations out of
+ * the Java heap. Every reservation lives in a fixed-size slot of one direct
+ * buffer allocated up front: a run of consecutive seats is stored as its first
+ * seat and length, a few scattered seats fit in the slot itself and more spill
+ * into continuation slots. Lookups by id go through an open addressing index in
+ * a second direct buffer, the reservations of an email are chained through
+ * their slots, and expiration is indexed by a timing wheel whose buckets are
+ * also chained through the slots, so removal unschedules eagerly.
+ * <p>
+ * The heap only holds each distinct email with outstanding reservations, once,
+ * so it does not grow with the number of reservations and the garbage collector
+ * never traces them. Reservations are copied out of the buffer on every read;
+ * {@link #remove(String, SuccessfulHold)} matches by seatHoldId and expiration
+ * rather than identity. Every slot stores at least one seat, so a capacity of
+ * the Venue's seat count can never fill.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class OffHeapHoldRepository implements SuccessfulHoldRepository {
+
+	private static final Logger LOG = LoggerFactory.getLogger(OffHeapHoldRepository.class);
+
+	private static final int NIL = -1;
+
+	private static final long NOT_STARTED = Long.MIN_VALUE;
+
+	// layout of a reservation slot
+	private static final int ID = 0;
+
+	private static final int EMAIL = 4;
+
+	private static final int EXPIRATION = 8;
+
+	private static final int SEAT_COUNT = 16;
+
+	private static final int FIRST_SEAT = 20;
+
+	private static final int FLAGS = 24;
+
+	private static final int EMAIL_PREV = 28;
+
+	private static final int EMAIL_NEXT = 32;
+
+	private static final int WHEEL_PREV = 36;
+
+	private static final int WHEEL_NEXT = 40;
+
+	private static final int WHEEL_BUCKET = 44;
+
+	private static final int CONTINUATION = 48;
+
+	private static final int SEATS = 52;
+
+	private static final int SLOT_BYTES = 80;
+
+	private static final int INLINE_SEATS = (SLOT_BYTES - SEATS) / Integer.BYTES;
+
+	// layout of a continuation or free slot
+	private static final int NEXT = 0;
+
+	private static final int CONTINUATION_SEATS = 4;
+
+	private static final int SEATS_PER_CONTINUATION = (SLOT_BYTES - CONTINUATION_SEATS) / Integer.BYTES;
+
+	private static final int USED = 1;
+
+	private static final int RUN = 2;
+
+	private static final long NANOS_PER_MILLI = 1_000_000L;
+
+	/**
+	 * Largest capacity that fits one buffer.
+	 */
+	public static final int MAX_CAPACITY = Integer.MAX_VALUE / SLOT_BYTES;
+
+	private final ByteBuffer slots;
+
+	private final IntBuffer index;
+
+	private final int indexMask;
+
+	private final int indexShift;
+
+	private final int[] wheel = new int[ExpiryWheel.DEFAULT_SIZE];
+
+	private final long tickMillis = ExpiryWheel.DEFAULT_TICK.toMillis();
+
+	private final Map<String, Integer> emailIds = new HashMap<>();
+
+	private String[] emails = new String[16];
+
+	private int[] emailHeads = new int[16];
+
+	private int[] emailHolds = new int[16];
+
+	private int[] freeEmailIds = new int[16];
+
+	private int freeEmailIdCount;
+
+	private int nextEmailId;
+
+	private final Lock lock = new ReentrantLock();
+
+	private int freeHead;
+
+	private int freeSlots;
+
+	// the first drain sweeps the whole wheel and starts it from its time
+	private long cursor = NOT_STARTED;
+
+	/**
+	 * @param capacity number of slots to allocate, must be > 0 and <=
+	 *                 {@link #MAX_CAPACITY}. Each takes 80 bytes of reservation
+	 *                 storage and up to 16 bytes of index.
+	 * @throws IllegalArgumentException if capacity is out of range.
+	 */
+	public OffHeapHoldRepository(int capacity) {
+		Preconditions.checkArgument(capacity > 0 && capacity <= MAX_CAPACITY,
+				String.format("capacity must be > 0 and <= %s, %s supplied", MAX_CAPACITY, capacity));
+		this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+		int indexSize = Math.max(16, Integer.highestOneBit(capacity - 1) << 2);
+		this.index = ByteBuffer.allocateDirect(indexSize * Integer.BYTES).order(ByteOrder.nativeOrder())
+				.asIntBuffer();
+		this.indexMask = indexSize - 1;
+		this.indexShift = Integer.SIZE - Integer.numberOfTrailingZeros(indexSize);
+		for (int i = 0; i < indexSize; i++) {
+			index.put(i, NIL);
+		}
+		for (int slot = 0; slot < capacity; slot++) {
+			slots.putInt(offset(slot) + NEXT, slot + 1 < capacity ? slot + 1 : NIL);
+		}
+		this.freeHead = 0;
+		this.freeSlots = capacity;
+		Arrays.fill(wheel, NIL);
+	}
+
+	@Override
+	public Collection<SuccessfulHold> getByEmail(String email) {
+		Preconditions.checkArgument(email != null, "email can not be null");
+		lock.lock();
+		try {
+			Integer emailId = emailIds.get(email);
+			if (emailId == null) {
+				return Collections.emptyList();
+			}
+			List<SuccessfulHold> reservations = new ArrayList<>(emailHolds[emailId]);
+			for (int slot = emailHeads[emailId]; slot != NIL; slot = getInt(slot, EMAIL_NEXT)) {
+				reservations.add(read(slot));
+			}
+			return reservations;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Optional<SuccessfulHold> getById(int seatHoldId, String email) {
+		Preconditions.checkArgument(email != null, "email can not be null");
+		lock.lock();
+		try {
+			int slot = find(seatHoldId);
+			if (slot == NIL || !email.equals(emails[getInt(slot, EMAIL)])) {
+				return Optional.empty();
+			}
+			return Optional.of(read(slot));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public OptionalInt highestSeatHoldId() {
+		lock.lock();
+		try {
+			OptionalInt max = OptionalInt.empty();
+			for (int emailId = 0; emailId < nextEmailId; emailId++) {
+				for (int slot = emailHeads[emailId]; slot != NIL; slot = getInt(slot, EMAIL_NEXT)) {
+					int id = getInt(slot, ID);
+					if (!max.isPresent() || id > max.getAsInt()) {
+						max = OptionalInt.of(id);
+					}
+				}
+			}
+			return max;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Collection<Entry<String, SuccessfulHold>> getAllExpired(long nowEpochNanos) {
+		lock.lock();
+		try {
+			List<Entry<String, SuccessfulHold>> expired = new ArrayList<>();
+			for (int emailId = 0; emailId < nextEmailId; emailId++) {
+				// released email ids have an empty chain
+				for (int slot = emailHeads[emailId]; slot != NIL; slot = getInt(slot, EMAIL_NEXT)) {
+					if (nowEpochNanos > slots.getLong(offset(slot) + EXPIRATION)) {
+						expired.add(new SimpleImmutableEntry<>(emails[emailId], read(slot)));
+					}
+				}
+			}
+			return expired;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Collection<Entry<String, SuccessfulHold>> drainExpired(Instant now) {
+		Preconditions.checkArgument(now != null, "now can not be null");
+		return drainExpired(EpochNanos.of(now));
+	}
+
+	@Override
+	public Collection<Entry<String, SuccessfulHold>> drainExpired(long nowNanos) {
+		List<Entry<String, SuccessfulHold>> expired = null;
+		lock.lock();
+		try {
+			long nowTick = ticks(nowNanos);
+			if (cursor == NOT_STARTED) {
+				cursor = nowTick - wheel.length + 1;
+			}
+			long last = Math.min(nowTick, cursor + wheel.length - 1);
+			for (long tick = cursor; tick <= last; tick++) {
+				int slot = wheel[bucket(tick)];
+				while (slot != NIL) {
+					int next = getInt(slot, WHEEL_NEXT);
+					if (nowNanos > slots.getLong(offset(slot) + EXPIRATION)) {
+						if (expired == null) {
+							expired = new ArrayList<>();
+						}
+						expired.add(new SimpleImmutableEntry<>(emails[getInt(slot, EMAIL)], read(slot)));
+						free(slot);
+					}
+					slot = next;
+				}
+			}
+			cursor = Math.max(cursor, nowTick);
+		} finally {
+			lock.unlock();
+		}
+		if (expired == null) {
+			return Collections.emptyList();
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Drained {} expired reservations", expired.size());
+		}
+		return expired;
+	}
+
+	@Override
+	public boolean remove(String email, SuccessfulHold reservation) {
+		Preconditions.checkArgument(email != null, "email can not be null");
+		Preconditions.checkArgument(reservation != null, "reservation can not be null");
+		lock.lock();
+		try {
+			int slot = find(reservation.getSeatHoldId());
+			if (!matches(slot, email, reservation)) {
+				return false;
+			}
+			free(slot);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Slots hold copies, so a stored reservation is identified by id, email,
+	 * expiration and seat count, which together change on every replacement.
+	 */
+	private boolean matches(int slot, String email, SuccessfulHold reservation) {
+		return slot != NIL && email.equals(emails[getInt(slot, EMAIL)])
+				&& slots.getLong(offset(slot) + EXPIRATION) == reservation.getExpirationEpochNanos()
+				&& getInt(slot, SEAT_COUNT) == reservation.seatCount();
+	}
+
+	/**
+	 * A replacement with the same seats is moved between wheel buckets in place,
+	 * otherwise the slot is rewritten.
+	 *
+	 * @throws IllegalStateException if there are not enough free slots for the
+	 *                               replacement's seats.
+	 */
+	@Override
+	public boolean replace(String email, SuccessfulHold current, SuccessfulHold replacement) {
+		Preconditions.checkArgument(email != null, "email can not be null");
+		Preconditions.checkArgument(current != null && replacement != null, "reservations can not be null");
+		Preconditions.checkArgument(current.getSeatHoldId() == replacement.getSeatHoldId(),
+				"replacement must have the seatHoldId of current");
+		lock.lock();
+		try {
+			int slot = find(current.getSeatHoldId());
+			if (!matches(slot, email, current)) {
+				return false;
+			}
+			if (sameSeats(current, replacement)) {
+				unschedule(slot);
+				slots.putLong(offset(slot) + EXPIRATION, replacement.getExpirationEpochNanos());
+				schedule(slot, replacement.getExpirationEpochNanos());
+				return true;
+			}
+			// a run split by the release may need more slots than it had
+			int needed = slotsFor(replacement);
+			Preconditions.checkState(needed <= freeSlots + slotsFor(current),
+					String.format("no room for %s seats, %s slots free", replacement.seatCount(), freeSlots));
+			free(slot);
+			add(email, replacement);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static boolean sameSeats(SuccessfulHold current, SuccessfulHold replacement) {
+		if (current.seatCount() != replacement.seatCount()) {
+			return false;
+		}
+		for (int i = 0; i < current.seatCount(); i++) {
+			if (current.seatAt(i) != replacement.seatAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int slotsFor(SuccessfulHold reservation) {
+		int count = reservation.seatCount();
+		return isRun(reservation) || count <= INLINE_SEATS ? 1
+				: 1 + (count - INLINE_SEATS + SEATS_PER_CONTINUATION - 1) / SEATS_PER_CONTINUATION;
+	}
+
+	/**
+	 * @throws IllegalStateException if there are not enough free slots for the
+	 *                               reservation's seats.
+	 */
+	@Override
+	public void add(String email, SuccessfulHold reservation) {
+		Preconditions.checkArgument(email != null, "email can not be null");
+		Preconditions.checkArgument(reservation != null, "reservation can not be null");
+		int id = reservation.getSeatHoldId();
+		lock.lock();
+		try {
+			Preconditions.checkArgument(find(id) == NIL, String.format("reservation with id %s already exists", id));
+			boolean run = isRun(reservation);
+			int count = reservation.seatCount();
+			int needed = slotsFor(reservation);
+			Preconditions.checkState(needed <= freeSlots,
+					String.format("no room for %s seats, %s slots free", count, freeSlots));
+			int slot = allocate();
+			int base = offset(slot);
+			int emailId = intern(email);
+			slots.putInt(base + ID, id);
+			slots.putInt(base + EMAIL, emailId);
+			slots.putLong(base + EXPIRATION, reservation.getExpirationEpochNanos());
+			slots.putInt(base + SEAT_COUNT, count);
+			slots.putInt(base + FLAGS, run ? USED | RUN : USED);
+			slots.putInt(base + CONTINUATION, NIL);
+			if (run) {
+				slots.putInt(base + FIRST_SEAT, count == 0 ? 0 : reservation.seatAt(0));
+			} else {
+				writeSeats(slot, reservation);
+			}
+			// push onto the email's chain
+			int head = emailHeads[emailId];
+			slots.putInt(base + EMAIL_PREV, NIL);
+			slots.putInt(base + EMAIL_NEXT, head);
+			if (head != NIL) {
+				putInt(head, EMAIL_PREV, slot);
+			}
+			emailHeads[emailId] = slot;
+			emailHolds[emailId]++;
+			schedule(slot, reservation.getExpirationEpochNanos());
+			insert(id, slot);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static boolean isRun(SuccessfulHold reservation) {
+		for (int i = 1; i < reservation.seatCount(); i++) {
+			if (reservation.seatAt(i) != reservation.seatAt(0) + i) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void writeSeats(int slot, SuccessfulHold reservation) {
+		int count = reservation.seatCount();
+		int inline = Math.min(count, INLINE_SEATS);
+		int base = offset(slot);
+		for (int i = 0; i < inline; i++) {
+			slots.putInt(base + SEATS + i * Integer.BYTES, reservation.seatAt(i));
+		}
+		int previous = NIL;
+		for (int i = inline; i < count; i += SEATS_PER_CONTINUATION) {
+			int continuation = allocate();
+			int continuationBase = offset(continuation);
+			slots.putInt(continuationBase + NEXT, NIL);
+			int end = Math.min(count, i + SEATS_PER_CONTINUATION);
+			for (int j = i; j < end; j++) {
+				slots.putInt(continuationBase + CONTINUATION_SEATS + (j - i) * Integer.BYTES, reservation.seatAt(j));
+			}
+			if (previous == NIL) {
+				putInt(slot, CONTINUATION, continuation);
+			} else {
+				putInt(previous, NEXT, continuation);
+			}
+			previous = continuation;
+		}
+	}
+
+	private SuccessfulHold read(int slot) {
+		int base = offset(slot);
+		int count = slots.getInt(base + SEAT_COUNT);
+		int[] seats = new int[count];
+		if ((slots.getInt(base + FLAGS) & RUN) != 0) {
+			int first = slots.getInt(base + FIRST_SEAT);
+			for (int i = 0; i < count; i++) {
+				seats[i] = first + i;
+			}
+		} else {
+			int inline = Math.min(count, INLINE_SEATS);
+			for (int i = 0; i < inline; i++) {
+				seats[i] = slots.getInt(base + SEATS + i * Integer.BYTES);
+			}
+			int continuation = slots.getInt(base + CONTINUATION);
+			for (int i = inline; i < count; i += SEATS_PER_CONTINUATION) {
+				int continuationBase = offset(continuation);
+				int end = Math.min(count, i + SEATS_PER_CONTINUATION);
+				for (int j = i; j < end; j++) {
+					seats[j] = slots.getInt(continuationBase + CONTINUATION_SEATS + (j - i) * Integer.BYTES);
+				}
+				continuation = slots.getInt(continuationBase + NEXT);
+			}
+		}
+		return new SuccessfulHold(slots.getLong(base + EXPIRATION), seats, slots.getInt(base + ID));
+	}
+
+	/**
+	 * Unlinks a stored reservation from every chain and returns its slots to the
+	 * free list.
+	 */
+	private void free(int slot) {
+		int base = offset(slot);
+		delete(slots.getInt(base + ID));
+		// email chain
+		int emailId = slots.getInt(base + EMAIL);
+		int prev = slots.getInt(base + EMAIL_PREV);
+		int next = slots.getInt(base + EMAIL_NEXT);
+		if (prev == NIL) {
+			emailHeads[emailId] = next;
+		} else {
+			putInt(prev, EMAIL_NEXT, next);
+		}
+		if (next != NIL) {
+			putInt(next, EMAIL_PREV, prev);
+		}
+		if (--emailHolds[emailId] == 0) {
+			release(emailId);
+		}
+		unschedule(slot);
+		int continuation = slots.getInt(base + CONTINUATION);
+		slots.putInt(base + FLAGS, 0);
+		deallocate(slot);
+		while (continuation != NIL) {
+			int nextContinuation = getInt(continuation, NEXT);
+			deallocate(continuation);
+			continuation = nextContinuation;
+		}
+	}
+
+	private void unschedule(int slot) {
+		int prev = getInt(slot, WHEEL_PREV);
+		int next = getInt(slot, WHEEL_NEXT);
+		if (prev == NIL) {
+			wheel[getInt(slot, WHEEL_BUCKET)] = next;
+		} else {
+			putInt(prev, WHEEL_NEXT, next);
+		}
+		if (next != NIL) {
+			putInt(next, WHEEL_PREV, prev);
+		}
+	}
+
+	private void schedule(int slot, long expirationNanos) {
+		// anything already due goes in the bucket the next drain starts from
+		int bucket = bucket(Math.max(ticks(expirationNanos), cursor));
+		int head = wheel[bucket];
+		putInt(slot, WHEEL_BUCKET, bucket);
+		putInt(slot, WHEEL_PREV, NIL);
+		putInt(slot, WHEEL_NEXT, head);
+		if (head != NIL) {
+			putInt(head, WHEEL_PREV, slot);
+		}
+		wheel[bucket] = slot;
+	}
+
+	private int bucket(long tick) {
+		return (int) Math.floorMod(tick, (long) wheel.length);
+	}
+
+	private long ticks(long epochNanos) {
+		return Math.floorDiv(Math.floorDiv(epochNanos, NANOS_PER_MILLI), tickMillis);
+	}
+
+	private int allocate() {
+		int slot = freeHead;
+		freeHead = getInt(slot, NEXT);
+		freeSlots--;
+		return slot;
+	}
+
+	private void deallocate(int slot) {
+		putInt(slot, NEXT, freeHead);
+		freeHead = slot;
+		freeSlots++;
+	}
+
+	private int intern(String email) {
+		Integer existing = emailIds.get(email);
+		if (existing != null) {
+			return existing;
+		}
+		int emailId;
+		if (freeEmailIdCount > 0) {
+			emailId = freeEmailIds[--freeEmailIdCount];
+		} else {
+			emailId = nextEmailId++;
+			if (emailId == emails.length) {
+				int length = emails.length * 2;
+				emails = Arrays.copyOf(emails, length);
+				emailHeads = Arrays.copyOf(emailHeads, length);
+				emailHolds = Arrays.copyOf(emailHolds, length);
+			}
+		}
+		emails[emailId] = email;
+		emailHeads[emailId] = NIL;
+		emailHolds[emailId] = 0;
+		emailIds.put(email, emailId);
+		return emailId;
+	}
+
+	private void release(int emailId) {
+		emailIds.remove(emails[emailId]);
+		emails[emailId] = null;
+		if (freeEmailIdCount == freeEmailIds.length) {
+			freeEmailIds = Arrays.copyOf(freeEmailIds, freeEmailIds.length * 2);
+		}
+		freeEmailIds[freeEmailIdCount++] = emailId;
+	}
+
+	/**
+	 * @return the slot of the reservation with the id, or NIL.
+	 */
+	private int find(int id) {
+		for (int i = home(id);; i = (i + 1) & indexMask) {
+			int slot = index.get(i);
+			if (slot == NIL || getInt(slot, ID) == id) {
+				return slot;
+			}
+		}
+	}
+
+	private void insert(int id, int slot) {
+		int i = home(id);
+		while (index.get(i) != NIL) {
+			i = (i + 1) & indexMask;
+		}
+		index.put(i, slot);
+	}
+
+	private void delete(int id) {
+		int i = home(id);
+		while (getInt(index.get(i), ID) != id) {
+			i = (i + 1) & indexMask;
+		}
+		index.put(i, NIL);
+		// shift back later entries of the probe run so lookups never stop early
+		int empty = i;
+		for (int next = (i + 1) & indexMask; index.get(next) != NIL; next = (next + 1) & indexMask) {
+			int home = home(getInt(index.get(next), ID));
+			if (((next - home) & indexMask) >= ((next - empty) & indexMask)) {
+				index.put(empty, index.get(next));
+				index.put(next, NIL);
+				empty = next;
+			}
+		}
+	}
+
+	private int home(int id) {
+		// spread sequential ids across the table
+		return (id * 0x9E3779B9) >>> indexShift & indexMask;
+	}
+
+	private int getInt(int slot, int field) {
+		return slots.getInt(offset(slot) + field);
+	}
+
+	private void putInt(int slot, int field, int value) {
+		slots.putInt(offset(slot) + field, value);
+	}
+
+	private static int offset(int slot) {
+		return slot * SLOT_BYTES;
+	}
+}
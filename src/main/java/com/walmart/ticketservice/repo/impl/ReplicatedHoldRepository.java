@@ -0,0 +1,174 @@
+package com.walmart.ticketservice.repo.impl;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.model.impl.EpochNanos;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.repo.ReplicationTransport;
+import com.walmart.ticketservice.repo.SuccessfulHoldRepository;
+
+/**
+ * The primary side of a hot standby. Reads are served by a delegate while every
+ * change is sent over a {@link ReplicationTransport} as the same events
+ * {@link JournaledHoldRepository} journals: adds, replacements and partial
+ * releases as hold events, removals as reservations and drained holds as
+ * expirations. A {@link HotStandby} applies them as they arrive.
+ * <p>
+ * Changes are applied to the delegate before they are sent. The primary stays
+ * authoritative: a send that fails does not undo or fail the change, it marks
+ * the standby out of step and no further events are sent, since a standby
+ * that missed one can not safely apply later ones. Check {@link #inStep()}
+ * before promoting a standby. The standby must be attached before the first
+ * change.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class ReplicatedHoldRepository implements SuccessfulHoldRepository {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ReplicatedHoldRepository.class);
+
+	private final SuccessfulHoldRepository delegate;
+
+	private final ReplicationTransport transport;
+
+	// events must leave in the order the delegate applied them
+	private final Lock lock = new ReentrantLock();
+
+	// guarded by lock
+	private long dropped;
+
+	/**
+	 * @param delegate  empty repository used to serve reads, can not be null.
+	 *                  Must be thread safe if this repository is shared between
+	 *                  threads without external locking.
+	 * @param transport can not be null
+	 * @throws NullPointerException if any arg is null.
+	 */
+	public ReplicatedHoldRepository(SuccessfulHoldRepository delegate, ReplicationTransport transport) {
+		this.delegate = Preconditions.checkNotNull(delegate);
+		this.transport = Preconditions.checkNotNull(transport);
+	}
+
+	/**
+	 * @return true if every change so far was handed to the transport.
+	 */
+	public boolean inStep() {
+		return droppedEvents() == 0;
+	}
+
+	/**
+	 * @return changes not sent to the standby since it fell out of step.
+	 */
+	public long droppedEvents() {
+		lock.lock();
+		try {
+			return dropped;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Collection<SuccessfulHold> getByEmail(String email) {
+		return delegate.getByEmail(email);
+	}
+
+	@Override
+	public Optional<SuccessfulHold> getById(int seatHoldId, String email) {
+		return delegate.getById(seatHoldId, email);
+	}
+
+	@Override
+	public OptionalInt highestSeatHoldId() {
+		return delegate.highestSeatHoldId();
+	}
+
+	@Override
+	public Collection<Entry<String, SuccessfulHold>> getAllExpired(long nowEpochNanos) {
+		return delegate.getAllExpired(nowEpochNanos);
+	}
+
+	@Override
+	public Collection<Entry<String, SuccessfulHold>> drainExpired(Instant now) {
+		Preconditions.checkArgument(now != null, "now can not be null");
+		return drainExpired(EpochNanos.of(now));
+	}
+
+	@Override
+	public Collection<Entry<String, SuccessfulHold>> drainExpired(long nowEpochNanos) {
+		lock.lock();
+		try {
+			Collection<Entry<String, SuccessfulHold>> expired = delegate.drainExpired(nowEpochNanos);
+			for (Entry<String, SuccessfulHold> entry : expired) {
+				send(HoldEventCodec.encodeRemoval(HoldEventCodec.EXPIRE, entry.getValue().getSeatHoldId()));
+			}
+			return expired;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean remove(String email, SuccessfulHold reservation) {
+		lock.lock();
+		try {
+			boolean removed = delegate.remove(email, reservation);
+			if (removed) {
+				send(HoldEventCodec.encodeRemoval(HoldEventCodec.RESERVE, reservation.getSeatHoldId()));
+			}
+			return removed;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void add(String email, SuccessfulHold reservation) {
+		lock.lock();
+		try {
+			delegate.add(email, reservation);
+			send(HoldEventCodec.encodeHold(email, reservation));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean replace(String email, SuccessfulHold current, SuccessfulHold replacement) {
+		lock.lock();
+		try {
+			boolean replaced = delegate.replace(email, current, replacement);
+			if (replaced) {
+				send(HoldEventCodec.encodeHold(email, replacement));
+			}
+			return replaced;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Sends while the standby is in step. Called holding the lock.
+	 */
+	private void send(byte[] event) {
+		if (dropped == 0) {
+			try {
+				transport.send(event);
+				return;
+			} catch (RuntimeException e) {
+				LOG.error("Failed to replicate hold event, the standby is out of step", e);
+			}
+		}
+		dropped++;
+	}
+}
@@ -0,0 +1,261 @@
+package com.walmart.ticketservice.repo.impl;
+
+import java.time.Instant;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Striped;
+import com.walmart.ticketservice.model.impl.EpochNanos;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.repo.SuccessfulHoldRepository;
+
+/**
+ * A thread safe repository that does not persist. Reservations are grouped by
+ * email and each email is guarded by one of a fixed number of lock stripes, so
+ * operations for different customers rarely contend. Lookups by id go through
+ * {@link HoldIdIndex} stripes chosen by id, and expiration is indexed by an
+ * {@link ExpiryWheel}.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class StripedHoldRepository implements SuccessfulHoldRepository {
+
+	private static final Logger LOG = LoggerFactory.getLogger(StripedHoldRepository.class);
+
+	private final ConcurrentMap<String, List<SuccessfulHold>> currentReservations = new ConcurrentHashMap<>();
+
+	private final Striped<Lock> locks;
+
+	private final Lock[] idLocks;
+
+	private final HoldIdIndex[] idIndexes;
+
+	private final ExpiryWheel expiryWheel = new ExpiryWheel();
+
+	/**
+	 * Uses four lock stripes per available processor.
+	 */
+	public StripedHoldRepository() {
+		this(Runtime.getRuntime().availableProcessors() * 4);
+	}
+
+	/**
+	 * @param stripes number of locks shared between emails. Must be > 0
+	 * @throws IllegalArgumentException if stripes <= 0
+	 */
+	public StripedHoldRepository(int stripes) {
+		Preconditions.checkArgument(stripes > 0, String.format("stripes must be > 0, %s supplied", stripes));
+		this.locks = Striped.lock(stripes);
+		int idStripes = Integer.highestOneBit(stripes - 1) << 1;
+		this.idLocks = new Lock[Math.max(1, idStripes)];
+		this.idIndexes = new HoldIdIndex[idLocks.length];
+		for (int i = 0; i < idLocks.length; i++) {
+			idLocks[i] = new ReentrantLock();
+			idIndexes[i] = new HoldIdIndex();
+		}
+	}
+
+	/**
+	 * @return a snapshot of the reservations for the email, safe to iterate while
+	 *         other threads modify the repository.
+	 */
+	@Override
+	public Collection<SuccessfulHold> getByEmail(String email) {
+		Preconditions.checkArgument(email != null, "email can not be null");
+		Lock lock = locks.get(email);
+		lock.lock();
+		try {
+			List<SuccessfulHold> reservations = currentReservations.get(email);
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Found {} reservations for email {}", reservations == null ? 0 : reservations.size(), email);
+			}
+			return reservations == null ? new ArrayList<>() : new ArrayList<>(reservations);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Optional<SuccessfulHold> getById(int seatHoldId, String email) {
+		Preconditions.checkArgument(email != null, "email can not be null");
+		int stripe = idStripe(seatHoldId);
+		idLocks[stripe].lock();
+		try {
+			return Optional.ofNullable(idIndexes[stripe].get(seatHoldId, email));
+		} finally {
+			idLocks[stripe].unlock();
+		}
+	}
+
+	@Override
+	public OptionalInt highestSeatHoldId() {
+		OptionalInt max = OptionalInt.empty();
+		for (int stripe = 0; stripe < idIndexes.length; stripe++) {
+			OptionalInt stripeMax;
+			idLocks[stripe].lock();
+			try {
+				stripeMax = idIndexes[stripe].maxId();
+			} finally {
+				idLocks[stripe].unlock();
+			}
+			if (stripeMax.isPresent() && (!max.isPresent() || stripeMax.getAsInt() > max.getAsInt())) {
+				max = stripeMax;
+			}
+		}
+		return max;
+	}
+
+	@Override
+	public boolean remove(String email, SuccessfulHold reservation) {
+		Preconditions.checkArgument(email != null, "email can not be null");
+		Preconditions.checkArgument(reservation != null, "reservation can not be null");
+		Lock lock = locks.get(email);
+		lock.lock();
+		try {
+			List<SuccessfulHold> reservations = currentReservations.get(email);
+			boolean removed = reservations != null && reservations.remove(reservation);
+			if (removed && reservations.isEmpty()) {
+				currentReservations.remove(email);
+			}
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Removing reservation {} for email {}, removed: {}", reservation, email, removed);
+			}
+			if (removed) {
+				int stripe = idStripe(reservation.getSeatHoldId());
+				idLocks[stripe].lock();
+				try {
+					idIndexes[stripe].remove(reservation.getSeatHoldId(), reservation);
+				} finally {
+					idLocks[stripe].unlock();
+				}
+			}
+			return removed;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void add(String email, SuccessfulHold reservation) {
+		Preconditions.checkArgument(email != null, "email can not be null");
+		Preconditions.checkArgument(reservation != null, "reservation can not be null");
+		int stripe = idStripe(reservation.getSeatHoldId());
+		idLocks[stripe].lock();
+		try {
+			Preconditions.checkArgument(idIndexes[stripe].put(reservation.getSeatHoldId(), email, reservation),
+					"reservation with id %s already exists", reservation.getSeatHoldId());
+		} finally {
+			idLocks[stripe].unlock();
+		}
+		Lock lock = locks.get(email);
+		lock.lock();
+		try {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("adding reservation {} for email {}", reservation, email);
+			}
+			currentReservations.computeIfAbsent(email, key -> new ArrayList<>()).add(reservation);
+		} finally {
+			lock.unlock();
+		}
+		expiryWheel.schedule(email, reservation);
+	}
+
+	/**
+	 * Swaps the reservation under its email's lock, so readers by email or id
+	 * see either current or the replacement. The stale schedule of current is
+	 * discarded when drained. Finding current in its email's list is linear in
+	 * that email's holds.
+	 */
+	@Override
+	public boolean replace(String email, SuccessfulHold current, SuccessfulHold replacement) {
+		Preconditions.checkArgument(email != null, "email can not be null");
+		Preconditions.checkArgument(current != null && replacement != null, "reservations can not be null");
+		Preconditions.checkArgument(current.getSeatHoldId() == replacement.getSeatHoldId(),
+				"replacement must have the seatHoldId of current");
+		Lock lock = locks.get(email);
+		lock.lock();
+		try {
+			List<SuccessfulHold> reservations = currentReservations.get(email);
+			int index = reservations == null ? -1 : reservations.indexOf(current);
+			if (index < 0) {
+				return false;
+			}
+			int stripe = idStripe(current.getSeatHoldId());
+			idLocks[stripe].lock();
+			try {
+				idIndexes[stripe].replace(current.getSeatHoldId(), current, replacement);
+			} finally {
+				idLocks[stripe].unlock();
+			}
+			reservations.set(index, replacement);
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Replaced reservation {} for email {} with {}", current, email, replacement);
+			}
+		} finally {
+			lock.unlock();
+		}
+		expiryWheel.schedule(email, replacement);
+		return true;
+	}
+
+	private int idStripe(int seatHoldId) {
+		return (seatHoldId * 0x9E3779B9 >>> 16) & (idLocks.length - 1);
+	}
+
+	@Override
+	public Collection<Entry<String, SuccessfulHold>> getAllExpired(long nowEpochNanos) {
+		Collection<Entry<String, SuccessfulHold>> expired = new ArrayList<>();
+		for (String email : currentReservations.keySet()) {
+			Lock lock = locks.get(email);
+			lock.lock();
+			try {
+				List<SuccessfulHold> reservations = currentReservations.get(email);
+				if (reservations != null) {
+					reservations.stream().filter(hold -> hold.isExpiredAt(nowEpochNanos))
+							.forEach(hold -> expired.add(new SimpleImmutableEntry<>(email, hold)));
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Found {} expired reservations", expired.size());
+		}
+		return expired;
+	}
+
+	@Override
+	public Collection<Entry<String, SuccessfulHold>> drainExpired(Instant now) {
+		Preconditions.checkArgument(now != null, "now can not be null");
+		return drainExpired(EpochNanos.of(now));
+	}
+
+	@Override
+	public Collection<Entry<String, SuccessfulHold>> drainExpired(long nowEpochNanos) {
+		Collection<Entry<String, SuccessfulHold>> due = expiryWheel.drain(nowEpochNanos);
+		if (due.isEmpty()) {
+			return due;
+		}
+		Collection<Entry<String, SuccessfulHold>> expired = due.stream()
+				.filter(entry -> remove(entry.getKey(), entry.getValue())).collect(Collectors.toList());
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Drained {} expired reservations", expired.size());
+		}
+		return expired;
+	}
+
+}
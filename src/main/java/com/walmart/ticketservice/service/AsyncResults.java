@@ -0,0 +1,55 @@
+package com.walmart.ticketservice.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.walmart.ticketservice.AsyncTicketService;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.impl.FailedHold;
+
+/**
+ * Holds implementations of {@link AsyncTicketService} to its contract: a
+ * request that can not be submitted fails its future rather than throwing, and
+ * a hold that fails for any reason completes with a FailedHold.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+final class AsyncResults {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AsyncResults.class);
+
+	private AsyncResults() {
+	}
+
+	/**
+	 * @return the future of the submitted request, or one failed with whatever
+	 *         submitting it threw.
+	 */
+	static <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> request) {
+		try {
+			return request.get();
+		} catch (RuntimeException e) {
+			CompletableFuture<T> failed = new CompletableFuture<>();
+			failed.completeExceptionally(e);
+			return failed;
+		}
+	}
+
+	/**
+	 * @return the future of the submitted hold, completing with a FailedHold in
+	 *         place of any exception.
+	 */
+	static CompletableFuture<SeatHold> hold(Supplier<CompletableFuture<SeatHold>> request) {
+		return submit(request).exceptionally(AsyncResults::failedHold);
+	}
+
+	private static SeatHold failedHold(Throwable error) {
+		Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+		LOG.error("Hold failed, returning failure", cause);
+		return new FailedHold(String.valueOf(cause.getMessage()));
+	}
+}
@@ -0,0 +1,168 @@
+package com.walmart.ticketservice.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.walmart.ticketservice.AsyncTicketService;
+import com.walmart.ticketservice.TicketService;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.impl.FailedHold;
+
+/**
+ * Runs a blocking TicketService on an executor so callers never block. By
+ * default each request gets its own virtual thread when the runtime supports
+ * them, falling back to a cached pool of daemon threads otherwise, so a request
+ * waiting on the service lock no longer ties up a platform thread.
+ * <p>
+ * At most maxInFlight requests are accepted at once. Beyond that, holds are
+ * refused at once with a FailedHold and other requests fail with a
+ * RejectedExecutionException, so overload is pushed back to the caller instead
+ * of queueing without bound.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class AsyncTicketServiceAdapter implements AsyncTicketService, AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AsyncTicketServiceAdapter.class);
+
+	private static final String OVERLOADED = "too many requests in flight";
+
+	private final TicketService delegate;
+
+	private final Semaphore inFlight;
+
+	private final Executor executor;
+
+	private final ExecutorService ownedExecutor;
+
+	/**
+	 * Runs requests on virtual threads where available.
+	 *
+	 * @param delegate    can not be null
+	 * @param maxInFlight requests accepted at once, must be > 0
+	 * @throws NullPointerException     if delegate is null.
+	 * @throws IllegalArgumentException if maxInFlight <= 0
+	 */
+	public AsyncTicketServiceAdapter(TicketService delegate, int maxInFlight) {
+		this(delegate, maxInFlight, null, threadPerTaskExecutor());
+	}
+
+	/**
+	 * @param delegate    can not be null
+	 * @param maxInFlight requests accepted at once, must be > 0
+	 * @param executor    runs each request, can not be null. Not shut down by
+	 *                    {@link #close()}.
+	 * @throws NullPointerException     if any arg is null.
+	 * @throws IllegalArgumentException if maxInFlight <= 0
+	 */
+	public AsyncTicketServiceAdapter(TicketService delegate, int maxInFlight, Executor executor) {
+		this(delegate, maxInFlight, Preconditions.checkNotNull(executor), null);
+	}
+
+	private AsyncTicketServiceAdapter(TicketService delegate, int maxInFlight, Executor executor,
+			ExecutorService ownedExecutor) {
+		Preconditions.checkArgument(maxInFlight > 0,
+				String.format("maxInFlight must be > 0, %s supplied", maxInFlight));
+		this.delegate = Preconditions.checkNotNull(delegate);
+		this.inFlight = new Semaphore(maxInFlight);
+		this.ownedExecutor = ownedExecutor;
+		this.executor = executor != null ? executor : ownedExecutor;
+	}
+
+	@Override
+	public CompletableFuture<Integer> numSeatsAvailableAsync() {
+		if (!inFlight.tryAcquire()) {
+			return rejected();
+		}
+		return run(delegate::numSeatsAvailable);
+	}
+
+	@Override
+	public CompletableFuture<SeatHold> findAndHoldSeatsAsync(int numSeats, String customerEmail) {
+		if (!inFlight.tryAcquire()) {
+			LOG.warn("Rejecting hold for {}, {}", customerEmail, OVERLOADED);
+			return CompletableFuture.completedFuture(new FailedHold(OVERLOADED));
+		}
+		return AsyncResults.hold(() -> run(() -> delegate.findAndHoldSeats(numSeats, customerEmail)));
+	}
+
+	@Override
+	public CompletableFuture<SeatHold> findAndHoldSeatsAsync(int numSeats, int maxPriceTier, String customerEmail) {
+		if (!inFlight.tryAcquire()) {
+			LOG.warn("Rejecting hold for {}, {}", customerEmail, OVERLOADED);
+			return CompletableFuture.completedFuture(new FailedHold(OVERLOADED));
+		}
+		return AsyncResults.hold(() -> run(() -> delegate.findAndHoldSeats(numSeats, maxPriceTier, customerEmail)));
+	}
+
+	@Override
+	public CompletableFuture<String> reserveSeatsAsync(int seatHoldId, String customerEmail) {
+		if (!inFlight.tryAcquire()) {
+			return rejected();
+		}
+		return run(() -> delegate.reserveSeats(seatHoldId, customerEmail));
+	}
+
+	/**
+	 * @return requests that can be accepted before new ones are rejected.
+	 */
+	public int availablePermits() {
+		return inFlight.availablePermits();
+	}
+
+	private <T> CompletableFuture<T> run(Supplier<T> request) {
+		try {
+			// released before dependents of the returned future run
+			return CompletableFuture.supplyAsync(request, executor).whenComplete((result, error) -> inFlight.release());
+		} catch (RejectedExecutionException e) {
+			inFlight.release();
+			CompletableFuture<T> failed = new CompletableFuture<>();
+			failed.completeExceptionally(e);
+			return failed;
+		}
+	}
+
+	private static <T> CompletableFuture<T> rejected() {
+		CompletableFuture<T> failed = new CompletableFuture<>();
+		failed.completeExceptionally(new RejectedExecutionException(OVERLOADED));
+		return failed;
+	}
+
+	/**
+	 * Uses Executors.newVirtualThreadPerTaskExecutor reflectively, so this class
+	 * still runs on runtimes without virtual threads.
+	 */
+	private static ExecutorService threadPerTaskExecutor() {
+		try {
+			ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+					.invoke(null);
+			LOG.info("Running ticket service requests on virtual threads");
+			return executor;
+		} catch (ReflectiveOperationException e) {
+			LOG.info("Virtual threads unavailable, running ticket service requests on a cached thread pool");
+			return Executors.newCachedThreadPool(
+					new ThreadFactoryBuilder().setNameFormat("async-ticket-service-%d").setDaemon(true).build());
+		}
+	}
+
+	/**
+	 * Stops accepting work on the executor created by this adapter, letting
+	 * requests in flight finish. A supplied executor is left running.
+	 */
+	@Override
+	public void close() {
+		if (ownedExecutor != null) {
+			ownedExecutor.shutdown();
+		}
+	}
+}
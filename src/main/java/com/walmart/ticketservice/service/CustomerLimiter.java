@@ -0,0 +1,212 @@
+package com.walmart.ticketservice.service;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.walmart.ticketservice.metrics.FailureReason;
+import com.walmart.ticketservice.model.TimeSource;
+import com.walmart.ticketservice.model.impl.MonotonicTimeSource;
+
+/**
+ * Per-customer limits on the seats held at once and the rate holds are placed.
+ * Each email keeps a count of its held seats, adjusted as holds are created,
+ * reserved and expire, so checking the limit never reads the repository. The
+ * rate is a token bucket kept as a single theoretical arrival time (GCRA):
+ * customers may burst up to the configured number of holds, then place one
+ * more each window / holds. Every operation is O(1) and thread safe.
+ * <p>
+ * Customers without held seats and with a full bucket are forgotten, by the
+ * release or refusal that leaves them so or by {@link #prune()}.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+final class CustomerLimiter {
+
+	private static final CustomerLimiter UNLIMITED = new CustomerLimiter(Integer.MAX_VALUE, 0, Duration.ZERO,
+			MonotonicTimeSource.system());
+
+	private final int maxSeats;
+
+	private final int holdsPerWindow;
+
+	private final Duration window;
+
+	private final long intervalNanos;
+
+	private final long burstNanos;
+
+	private final TimeSource time;
+
+	private final ConcurrentMap<String, Usage> usage = new ConcurrentHashMap<>();
+
+	private volatile long lastPrune;
+
+	/**
+	 * @param maxSeats       seats one customer may hold at once,
+	 *                       Integer.MAX_VALUE for no limit
+	 * @param holdsPerWindow holds one customer may place per window, 0 for no
+	 *                       limit
+	 * @param window         period the hold rate is measured over
+	 * @param time           clock the rate is measured by
+	 */
+	CustomerLimiter(int maxSeats, int holdsPerWindow, Duration window, TimeSource time) {
+		this.maxSeats = maxSeats;
+		this.holdsPerWindow = holdsPerWindow;
+		this.window = window;
+		this.intervalNanos = holdsPerWindow == 0 ? 0 : window.toNanos() / holdsPerWindow;
+		this.burstNanos = window.toNanos() - intervalNanos;
+		this.time = time;
+		this.lastPrune = time.epochNanos();
+	}
+
+	/**
+	 * @return a limiter that admits everything without keeping any state.
+	 */
+	static CustomerLimiter unlimited() {
+		return UNLIMITED;
+	}
+
+	private boolean enabled() {
+		return this != UNLIMITED;
+	}
+
+	/**
+	 * Charges a hold of numSeats to the customer if both limits allow it.
+	 *
+	 * @return null if admitted, otherwise why the hold was refused.
+	 */
+	FailureReason acquire(String email, int numSeats) {
+		if (!enabled()) {
+			return null;
+		}
+		long now = time.epochNanos();
+		while (true) {
+			Usage customer = usage.computeIfAbsent(email, key -> new Usage(now));
+			FailureReason refused;
+			synchronized (customer) {
+				if (customer.removed) {
+					continue;
+				}
+				refused = charge(customer, numSeats, now);
+				// a refused first request must not leave an idle customer behind
+				customer.removed = refused != null && customer.isIdle(now);
+			}
+			if (customer.removed) {
+				usage.remove(email, customer);
+			}
+			return refused;
+		}
+	}
+
+	private FailureReason charge(Usage customer, int numSeats, long now) {
+		if (numSeats > maxSeats - customer.heldSeats) {
+			return FailureReason.SEAT_LIMIT;
+		}
+		long arrival = Math.max(customer.arrival, now);
+		if (intervalNanos > 0 && arrival - now > burstNanos) {
+			return FailureReason.RATE_LIMITED;
+		}
+		customer.arrival = arrival + intervalNanos;
+		customer.heldSeats += numSeats;
+		return null;
+	}
+
+	/**
+	 * Undoes an {@link #acquire(String, int)} whose hold was not created, giving
+	 * back both the seats and the hold.
+	 */
+	void refund(String email, int numSeats) {
+		update(email, numSeats, intervalNanos);
+	}
+
+	/**
+	 * Gives back the seats of a hold that was reserved or expired.
+	 */
+	void release(String email, int numSeats) {
+		update(email, numSeats, 0);
+	}
+
+	private void update(String email, int numSeats, long refundNanos) {
+		if (!enabled()) {
+			return;
+		}
+		Usage customer = usage.get(email);
+		if (customer == null) {
+			return;
+		}
+		long now = time.epochNanos();
+		synchronized (customer) {
+			if (customer.removed) {
+				return;
+			}
+			customer.heldSeats -= numSeats;
+			customer.arrival -= refundNanos;
+			customer.removed = customer.isIdle(now);
+		}
+		// outside the monitor, prune locks the map before the monitor
+		if (customer.removed) {
+			usage.remove(email, customer);
+		}
+	}
+
+	/**
+	 * Forgets idle customers whose bucket refilled after their last release. Scans
+	 * at most once per window, so the cost is amortized over it. Without a rate
+	 * limit every customer is forgotten by its last release and there is nothing
+	 * to scan.
+	 */
+	void prune() {
+		long now = time.epochNanos();
+		if (intervalNanos == 0 || now - lastPrune < window.toNanos()) {
+			return;
+		}
+		lastPrune = now;
+		for (String email : usage.keySet()) {
+			usage.computeIfPresent(email, (key, customer) -> {
+				synchronized (customer) {
+					customer.removed = customer.isIdle(now);
+					return customer.removed ? null : customer;
+				}
+			});
+		}
+	}
+
+	/**
+	 * @return number of customers currently tracked.
+	 */
+	int trackedCustomers() {
+		return usage.size();
+	}
+
+	String seatLimitMessage() {
+		return String.format("A customer may hold at most %s seats", maxSeats);
+	}
+
+	String rateLimitMessage() {
+		return String.format("A customer may place at most %s holds per %sms", holdsPerWindow,
+				window.toMillis());
+	}
+
+	/**
+	 * Guarded by its own monitor. Once removed from the map an instance is never
+	 * updated again.
+	 */
+	private static final class Usage {
+
+		private int heldSeats;
+
+		// when the bucket is next full, as epoch nanos from the TimeSource
+		private long arrival;
+
+		private boolean removed;
+
+		private Usage(long now) {
+			this.arrival = now;
+		}
+
+		private boolean isIdle(long now) {
+			return heldSeats <= 0 && arrival - now <= 0;
+		}
+	}
+}
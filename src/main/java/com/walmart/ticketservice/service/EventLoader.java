@@ -0,0 +1,32 @@
+package com.walmart.ticketservice.service;
+
+/**
+ * Creates the ticket service of an event when a
+ * {@link ShardedTicketServiceRegistry} first needs it, and is told when the
+ * event is evicted again.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public interface EventLoader {
+
+	/**
+	 * Called on the event's shard thread. The registry configures concurrency,
+	 * expiry and metrics on the returned builder, since the shard thread
+	 * serializes access and sweeps expired holds itself.
+	 *
+	 * @param eventId never null
+	 * @throws IllegalArgumentException if the event does not exist.
+	 * @return a builder for the event's Venue and repository.
+	 */
+	TicketServiceImpl.Builder load(String eventId);
+
+	/**
+	 * Called on the event's shard thread after the event is evicted, which only
+	 * happens once it has no holds outstanding. Does nothing by default.
+	 *
+	 * @param eventId never null
+	 * @param service the evicted service
+	 */
+	default void unloaded(String eventId, TicketServiceImpl service) {
+	}
+}
@@ -0,0 +1,454 @@
+package com.walmart.ticketservice.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.walmart.ticketservice.AsyncTicketService;
+import com.walmart.ticketservice.TicketService;
+import com.walmart.ticketservice.metrics.TicketServiceMetrics;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.impl.HoldRequest;
+import com.walmart.ticketservice.model.impl.ReserveRequest;
+import com.walmart.ticketservice.model.impl.ReserveResult;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+
+/**
+ * A TicketService where a single thread owns the Venue and repository. Callers
+ * claim a slot in a pre-allocated ring buffer, fill in the command and publish
+ * it; the owner thread drains every published command in one batch, releasing
+ * expired holds once at the start of the batch, and completes each command's
+ * future. No locks are taken on the Venue or repository, so neither needs to be
+ * thread safe.
+ * <p>
+ * Futures are completed on the owner thread, so dependent stages that block or
+ * do real work should use the async variants of CompletableFuture. Commands
+ * racing with {@link #close()} may fail with an IllegalStateException, which
+ * the blocking methods throw and the async methods report through their
+ * futures.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class EventLoopTicketService implements TicketService, AsyncTicketService, AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(EventLoopTicketService.class);
+
+	private static final int SEATS = 0;
+
+	private static final int HOLD = 1;
+
+	private static final int HOLD_TIER = 2;
+
+	private static final int RESERVE = 3;
+
+	private static final int HOLD_BATCH = 4;
+
+	private static final int RESERVE_BATCH = 5;
+
+	private static final int EXTEND = 6;
+
+	private static final int RELEASE = 7;
+
+	private static final int SPINS_BEFORE_PARK = 64;
+
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
+	private final TicketServiceImpl delegate;
+
+	private final Command[] ring;
+
+	private final int mask;
+
+	private final AtomicLong claimed = new AtomicLong();
+
+	private final Thread owner;
+
+	private volatile long consumed;
+
+	private volatile boolean sleeping;
+
+	private volatile boolean running = true;
+
+	/**
+	 * Builds the underlying TicketServiceImpl in concurrent mode with
+	 * {@link ExpiryPolicy#BACKGROUND}, since the owner thread serializes access
+	 * and sweeps expired holds itself, then starts the owner thread.
+	 *
+	 * @param builder  configured service, can not be null
+	 * @param ringSize number of commands that can be pending, must be a power of
+	 *                 two
+	 * @throws NullPointerException     if builder is null.
+	 * @throws IllegalArgumentException if ringSize is not a positive power of
+	 *                                  two.
+	 */
+	public EventLoopTicketService(TicketServiceImpl.Builder builder, int ringSize) {
+		Preconditions.checkNotNull(builder);
+		Preconditions.checkArgument(ringSize > 0 && Integer.bitCount(ringSize) == 1,
+				String.format("ringSize must be a positive power of two, %s supplied", ringSize));
+		this.delegate = builder.concurrent(true).expiryPolicy(ExpiryPolicy.BACKGROUND).build();
+		this.ring = new Command[ringSize];
+		for (int i = 0; i < ringSize; i++) {
+			ring[i] = new Command();
+		}
+		this.mask = ringSize - 1;
+		this.owner = new ThreadFactoryBuilder().setNameFormat("ticket-service-loop-%d").setDaemon(true).build()
+				.newThread(this::run);
+		owner.start();
+	}
+
+	/**
+	 * @return metrics recorded by the underlying service.
+	 */
+	public TicketServiceMetrics metrics() {
+		return delegate.metrics();
+	}
+
+	/**
+	 * Expired holds are released first, as a batch of commands shares one
+	 * sweep.
+	 */
+	@Override
+	public int numSeatsAvailable() {
+		return await(seats());
+	}
+
+	/**
+	 * Read directly from the underlying service without a trip through the ring.
+	 */
+	@Override
+	public int estimateSeatsAvailable() {
+		return delegate.estimateSeatsAvailable();
+	}
+
+	@Override
+	public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+		return await(hold(numSeats, customerEmail));
+	}
+
+	@Override
+	public SeatHold findAndHoldSeats(int numSeats, int maxPriceTier, String customerEmail) {
+		return await(hold(numSeats, maxPriceTier, customerEmail));
+	}
+
+	@Override
+	public String reserveSeats(int seatHoldId, String customerEmail) {
+		return await(reserve(seatHoldId, customerEmail));
+	}
+
+	@Override
+	public SuccessfulHold extendHold(int seatHoldId, String customerEmail, Duration extension) {
+		CompletableFuture<SuccessfulHold> result = new CompletableFuture<>();
+		Command command = claim();
+		command.type = EXTEND;
+		command.seatHoldId = seatHoldId;
+		command.email = customerEmail;
+		command.extension = extension;
+		return await(publish(command, result));
+	}
+
+	@Override
+	public SuccessfulHold releaseSeats(int seatHoldId, String customerEmail, int[] seats) {
+		CompletableFuture<SuccessfulHold> result = new CompletableFuture<>();
+		Command command = claim();
+		command.type = RELEASE;
+		command.seatHoldId = seatHoldId;
+		command.email = customerEmail;
+		command.seats = seats;
+		return await(publish(command, result));
+	}
+
+	@Override
+	public List<SeatHold> holdBatch(List<HoldRequest> requests) {
+		Preconditions.checkNotNull(requests);
+		CompletableFuture<List<SeatHold>> result = new CompletableFuture<>();
+		Command command = claim();
+		command.type = HOLD_BATCH;
+		command.requests = requests;
+		return await(publish(command, result));
+	}
+
+	@Override
+	public List<ReserveResult> reserveBatch(List<ReserveRequest> requests) {
+		Preconditions.checkNotNull(requests);
+		CompletableFuture<List<ReserveResult>> result = new CompletableFuture<>();
+		Command command = claim();
+		command.type = RESERVE_BATCH;
+		command.requests = requests;
+		return await(publish(command, result));
+	}
+
+	/**
+	 * @see #numSeatsAvailable()
+	 * @return a future completed by the owner thread, exceptionally if closed.
+	 */
+	@Override
+	public CompletableFuture<Integer> numSeatsAvailableAsync() {
+		return AsyncResults.submit(this::seats);
+	}
+
+	/**
+	 * @see #findAndHoldSeats(int, String)
+	 * @return a future completed by the owner thread, with a FailedHold if
+	 *         closed.
+	 */
+	@Override
+	public CompletableFuture<SeatHold> findAndHoldSeatsAsync(int numSeats, String customerEmail) {
+		return AsyncResults.hold(() -> hold(numSeats, customerEmail));
+	}
+
+	/**
+	 * @see #findAndHoldSeats(int, int, String)
+	 * @return a future completed by the owner thread, with a FailedHold if
+	 *         closed.
+	 */
+	@Override
+	public CompletableFuture<SeatHold> findAndHoldSeatsAsync(int numSeats, int maxPriceTier, String customerEmail) {
+		return AsyncResults.hold(() -> hold(numSeats, maxPriceTier, customerEmail));
+	}
+
+	/**
+	 * @see #reserveSeats(int, String)
+	 * @return a future completed by the owner thread, exceptionally with anything
+	 *         reserveSeats would throw or if closed.
+	 */
+	@Override
+	public CompletableFuture<String> reserveSeatsAsync(int seatHoldId, String customerEmail) {
+		return AsyncResults.submit(() -> reserve(seatHoldId, customerEmail));
+	}
+
+	private CompletableFuture<Integer> seats() {
+		CompletableFuture<Integer> result = new CompletableFuture<>();
+		Command command = claim();
+		command.type = SEATS;
+		return publish(command, result);
+	}
+
+	private CompletableFuture<SeatHold> hold(int numSeats, String customerEmail) {
+		CompletableFuture<SeatHold> result = new CompletableFuture<>();
+		Command command = claim();
+		command.type = HOLD;
+		command.numSeats = numSeats;
+		command.email = customerEmail;
+		return publish(command, result);
+	}
+
+	private CompletableFuture<SeatHold> hold(int numSeats, int maxPriceTier, String customerEmail) {
+		CompletableFuture<SeatHold> result = new CompletableFuture<>();
+		Command command = claim();
+		command.type = HOLD_TIER;
+		command.numSeats = numSeats;
+		command.maxTier = maxPriceTier;
+		command.email = customerEmail;
+		return publish(command, result);
+	}
+
+	private CompletableFuture<String> reserve(int seatHoldId, String customerEmail) {
+		CompletableFuture<String> result = new CompletableFuture<>();
+		Command command = claim();
+		command.type = RESERVE;
+		command.seatHoldId = seatHoldId;
+		command.email = customerEmail;
+		return publish(command, result);
+	}
+
+	private Command claim() {
+		if (!running) {
+			throw new IllegalStateException("ticket service is closed");
+		}
+		long sequence = claimed.getAndIncrement();
+		// wait for the owner to free the slot when the ring is full
+		while (sequence - consumed >= ring.length) {
+			if (!running) {
+				throw new IllegalStateException("ticket service is closed");
+			}
+			LockSupport.parkNanos(this, FULL_PARK_NANOS);
+		}
+		Command command = ring[(int) sequence & mask];
+		command.claimed = sequence;
+		return command;
+	}
+
+	private <T> CompletableFuture<T> publish(Command command, CompletableFuture<T> result) {
+		command.result = result;
+		command.sequence = command.claimed;
+		if (sleeping) {
+			LockSupport.unpark(owner);
+		}
+		if (!running) {
+			result.completeExceptionally(new IllegalStateException("ticket service is closed"));
+		}
+		return result;
+	}
+
+	private void run() {
+		long next = 0;
+		int idle = 0;
+		while (running) {
+			Command command = ring[(int) next & mask];
+			if (command.sequence != next) {
+				if (++idle < SPINS_BEFORE_PARK) {
+					Thread.yield();
+				} else {
+					idle = 0;
+					park(next);
+				}
+				continue;
+			}
+			idle = 0;
+			releaseExpired();
+			long end = next + ring.length;
+			do {
+				execute(command);
+				next++;
+				command = ring[(int) next & mask];
+			} while (next < end && command.sequence == next);
+			consumed = next;
+		}
+		LOG.debug("Event loop stopped at sequence {}", next);
+	}
+
+	private void park(long next) {
+		sleeping = true;
+		// re-check after announcing so a publisher either sees sleeping or we see it
+		if (running && ring[(int) next & mask].sequence != next) {
+			LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+			// seats of expired holds should come back even without traffic
+			releaseExpired();
+		}
+		sleeping = false;
+	}
+
+	private void releaseExpired() {
+		try {
+			delegate.releaseExpiredHolds();
+		} catch (RuntimeException e) {
+			LOG.error("Failed to release expired holds", e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void execute(Command command) {
+		CompletableFuture<Object> result = (CompletableFuture<Object>) command.result;
+		try {
+			switch (command.type) {
+			case SEATS:
+				releaseExpired();
+				result.complete(delegate.numSeatsAvailable());
+				break;
+			case HOLD:
+				result.complete(delegate.findAndHoldSeats(command.numSeats, command.email));
+				break;
+			case HOLD_TIER:
+				result.complete(delegate.findAndHoldSeats(command.numSeats, command.maxTier, command.email));
+				break;
+			case RESERVE:
+				result.complete(delegate.reserveSeats(command.seatHoldId, command.email));
+				break;
+			case EXTEND:
+				result.complete(delegate.extendHold(command.seatHoldId, command.email, command.extension));
+				break;
+			case RELEASE:
+				result.complete(delegate.releaseSeats(command.seatHoldId, command.email, command.seats));
+				break;
+			case HOLD_BATCH:
+				result.complete(delegate.holdBatch((List<HoldRequest>) command.requests));
+				break;
+			case RESERVE_BATCH:
+				result.complete(delegate.reserveBatch((List<ReserveRequest>) command.requests));
+				break;
+			default:
+				throw new IllegalStateException(String.format("unknown command %s", command.type));
+			}
+		} catch (RuntimeException e) {
+			result.completeExceptionally(e);
+		} finally {
+			command.clear();
+		}
+	}
+
+	private static <T> T await(CompletableFuture<T> result) {
+		try {
+			return result.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Stops the owner thread after its current batch, fails any command it did
+	 * not run and closes the underlying service. If interrupted while waiting for
+	 * the owner thread, returns with the interrupt flag set and leaves unrun
+	 * commands pending.
+	 */
+	@Override
+	public void close() {
+		running = false;
+		LockSupport.unpark(owner);
+		try {
+			owner.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOG.warn("Interrupted waiting for the event loop to stop");
+			delegate.close();
+			return;
+		}
+		for (Command command : ring) {
+			CompletableFuture<?> result = command.result;
+			if (result != null && command.sequence >= consumed) {
+				result.completeExceptionally(new IllegalStateException("ticket service is closed"));
+			}
+		}
+		delegate.close();
+	}
+
+	/**
+	 * A reusable slot in the ring. Fields are written by the claiming thread
+	 * before the volatile sequence is published and read by the owner after.
+	 */
+	private static final class Command {
+
+		private volatile long sequence = -1;
+
+		private long claimed;
+
+		private int type;
+
+		private int numSeats;
+
+		private int maxTier;
+
+		private int seatHoldId;
+
+		private String email;
+
+		private Duration extension;
+
+		private int[] seats;
+
+		private List<?> requests;
+
+		private CompletableFuture<?> result;
+
+		private void clear() {
+			email = null;
+			extension = null;
+			seats = null;
+			requests = null;
+			result = null;
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.walmart.ticketservice.service;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Periodically releases expired holds of a TicketServiceImpl on a daemon
+ * thread, keeping expiry off the request path. Intended for services built
+ * with {@link ExpiryPolicy#BACKGROUND}.
+ * 
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class ExpiredHoldReaper implements AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ExpiredHoldReaper.class);
+
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("expired-hold-reaper-%d").setDaemon(true).build());
+
+	/**
+	 * Starts reaping immediately.
+	 * 
+	 * @param ticketService can not be null
+	 * @param period        time between sweeps, must be positive
+	 * @throws NullPointerException     if any arg is null.
+	 * @throws IllegalArgumentException if period is not positive.
+	 */
+	public ExpiredHoldReaper(TicketServiceImpl ticketService, Duration period) {
+		Preconditions.checkNotNull(ticketService);
+		Preconditions.checkArgument(!period.isNegative() && !period.isZero(), "period must be positive");
+		executor.scheduleWithFixedDelay(() -> reap(ticketService), 0, period.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	private void reap(TicketServiceImpl ticketService) {
+		try {
+			int released = ticketService.releaseExpiredHolds();
+			LOG.debug("Reaper released {} expired holds", released);
+		} catch (RuntimeException e) {
+			// an escaping exception would cancel all future sweeps
+			LOG.error("Failed to release expired holds", e);
+		}
+	}
+
+	/**
+	 * Stops reaping. A sweep in progress is allowed to finish.
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,33 @@
+package com.walmart.ticketservice.service;
+
+/**
+ * When a TicketServiceImpl returns the seats of expired holds to its Venue.
+ * 
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public enum ExpiryPolicy {
+
+	/**
+	 * Expired holds are released at the start of every operation, so results
+	 * always reflect the current time.
+	 */
+	ON_REQUEST,
+
+	/**
+	 * Expired holds are only released by
+	 * {@link TicketServiceImpl#releaseExpiredHolds()}, usually called by an
+	 * {@link ExpiredHoldReaper}. Seats of an expired hold are unavailable until
+	 * then, but an expired hold can never be reserved.
+	 */
+	BACKGROUND,
+
+	/**
+	 * Expired holds are released only when seats are needed: when a hold asks
+	 * for more seats than the Venue has left or the customer's seat limit
+	 * allows, and when counting available seats.
+	 * Expiries pile up while seats are plentiful and are returned to the Venue
+	 * in one batch, and no other operation pays for a sweep. An expired hold can
+	 * never be reserved.
+	 */
+	LAZY
+}
@@ -0,0 +1,24 @@
+package com.walmart.ticketservice.service;
+
+/**
+ * Told by a TicketServiceImpl whenever seats change hands. Called on the
+ * thread performing the operation, in concurrent mode from several threads at
+ * once, so implementations must be thread safe and return quickly. Reserving a
+ * held seat does not change its availability and is not reported.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ * @see SeatMap
+ */
+public interface SeatListener {
+
+	/**
+	 * @param seats held by a new hold, never null. Must not be modified.
+	 */
+	void seatsTaken(int[] seats);
+
+	/**
+	 * @param seats returned to the Venue by an expired or released hold, never
+	 *              null. Must not be modified.
+	 */
+	void seatsFreed(int[] seats);
+}
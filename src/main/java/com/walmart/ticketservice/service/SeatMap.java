@@ -0,0 +1,172 @@
+package com.walmart.ticketservice.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.model.impl.SeatMapDelta;
+import com.walmart.ticketservice.model.impl.SeatMapSnapshot;
+
+/**
+ * A versioned seat availability map fed by a TicketServiceImpl through
+ * {@link TicketServiceImpl.Builder#seatListener(SeatListener)}. Changes are
+ * coalesced into a bitset of flipped seats, so a seat held and released within
+ * one tick costs nothing downstream. Once per tick the flips are applied, the
+ * version advances and one immutable {@link SeatMapDelta} is handed to every
+ * subscriber, so fan-out costs one delta no matter how many watchers there
+ * are. Ticks without changes publish nothing.
+ * <p>
+ * Subscribers are called on the tick thread and must hand deltas off rather
+ * than block, since they delay every other subscriber.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class SeatMap implements SeatListener, AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SeatMap.class);
+
+	private static final int[] NO_SEATS = new int[0];
+
+	private final Object flipLock = new Object();
+
+	// guarded by flipLock, written by the service
+	private BitSet flipped = new BitSet();
+
+	// guarded by this, only changed by publish
+	private final BitSet available;
+
+	private long version;
+
+	private final List<Consumer<SeatMapDelta>> subscribers = new CopyOnWriteArrayList<>();
+
+	private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("seat-map-%d").setDaemon(true).build());
+
+	/**
+	 * Starts from the venue's current availability, so it must be created before
+	 * the service built with it takes any seats.
+	 *
+	 * @param venue the service's venue, can not be null
+	 * @param tick  time between published deltas, must be positive
+	 * @throws NullPointerException          if any arg is null.
+	 * @throws IllegalArgumentException      if tick is not positive.
+	 * @throws UnsupportedOperationException if the venue can not list its
+	 *                                       seats.
+	 */
+	public SeatMap(Venue venue, Duration tick) {
+		Preconditions.checkArgument(!tick.isNegative() && !tick.isZero(), "tick must be positive");
+		this.available = venue.availableSeats();
+		long period = tick.toNanos();
+		ticker.scheduleAtFixedRate(this::publish, period, period, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void seatsTaken(int[] seats) {
+		flip(seats);
+	}
+
+	@Override
+	public void seatsFreed(int[] seats) {
+		flip(seats);
+	}
+
+	private void flip(int[] seats) {
+		synchronized (flipLock) {
+			for (int seat : seats) {
+				flipped.flip(seat);
+			}
+		}
+	}
+
+	/**
+	 * @return the availability as of the last published version.
+	 */
+	public synchronized SeatMapSnapshot snapshot() {
+		return new SeatMapSnapshot(version, (BitSet) available.clone());
+	}
+
+	/**
+	 * Registers a subscriber and returns the snapshot its deltas start from: the
+	 * first delta it receives has {@link SeatMapDelta#getPreviousVersion()}
+	 * equal to the snapshot's version.
+	 *
+	 * @param subscriber can not be null
+	 * @throws NullPointerException if subscriber is null.
+	 * @return the current snapshot.
+	 */
+	public synchronized SeatMapSnapshot subscribe(Consumer<SeatMapDelta> subscriber) {
+		subscribers.add(Preconditions.checkNotNull(subscriber));
+		return snapshot();
+	}
+
+	/**
+	 * @param subscriber previously subscribed
+	 * @return true if the subscriber was registered.
+	 */
+	public boolean unsubscribe(Consumer<SeatMapDelta> subscriber) {
+		return subscribers.remove(subscriber);
+	}
+
+	/**
+	 * Applies the changes since the last tick and delivers them as one delta.
+	 * Runs on the tick thread.
+	 */
+	synchronized void publish() {
+		BitSet changes;
+		synchronized (flipLock) {
+			if (flipped.isEmpty()) {
+				return;
+			}
+			changes = flipped;
+			flipped = new BitSet();
+		}
+		int[] taken = new int[changes.cardinality()];
+		int[] freed = new int[taken.length];
+		int takenCount = 0;
+		int freedCount = 0;
+		for (int seat = changes.nextSetBit(0); seat >= 0; seat = changes.nextSetBit(seat + 1)) {
+			if (available.get(seat)) {
+				taken[takenCount++] = seat;
+			} else {
+				freed[freedCount++] = seat;
+			}
+		}
+		available.xor(changes);
+		version++;
+		SeatMapDelta delta = new SeatMapDelta(version, trim(taken, takenCount), trim(freed, freedCount));
+		for (Consumer<SeatMapDelta> subscriber : subscribers) {
+			try {
+				subscriber.accept(delta);
+			} catch (RuntimeException e) {
+				LOG.error("Seat map subscriber failed on version {}", version, e);
+			}
+		}
+	}
+
+	private static int[] trim(int[] seats, int count) {
+		if (count == 0) {
+			return NO_SEATS;
+		}
+		return count == seats.length ? seats : Arrays.copyOf(seats, count);
+	}
+
+	/**
+	 * Stops publishing. Changes not yet published are dropped.
+	 */
+	@Override
+	public void close() {
+		ticker.shutdownNow();
+	}
+}
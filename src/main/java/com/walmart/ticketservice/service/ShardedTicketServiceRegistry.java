@@ -0,0 +1,384 @@
+package com.walmart.ticketservice.service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.walmart.ticketservice.AsyncTicketService;
+import com.walmart.ticketservice.metrics.MetricsRegistry;
+import com.walmart.ticketservice.model.SeatHold;
+
+/**
+ * Serves many events, each with its own TicketServiceImpl, from a fixed set of
+ * shards. An event id always routes to the same shard and every shard is
+ * pinned to one worker thread, so an event's Venue and repository are only
+ * touched by that thread and need no locking. Events are loaded through an
+ * {@link EventLoader} on first use and evicted when a shard holds too many or
+ * they have been idle too long, so memory tracks active events only. An event
+ * with holds outstanding is never evicted, so a shard whose events all hold
+ * seats grows past its cap until their holds are reserved or expire.
+ * <p>
+ * One scheduler thread shared by all shards asks each shard to release expired
+ * holds every sweep period; a shard never has more than one sweep queued.
+ * Metrics of every loaded event are published to one shared registry under the
+ * event id.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class ShardedTicketServiceRegistry implements AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ShardedTicketServiceRegistry.class);
+
+	private final EventLoader loader;
+
+	private final Shard[] shards;
+
+	private final int maxEventsPerShard;
+
+	private final long idleNanos;
+
+	private final MetricsRegistry metricsRegistry;
+
+	private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("ticket-shard-sweeper-%d").setDaemon(true).build());
+
+	private ShardedTicketServiceRegistry(Builder builder) {
+		this.loader = builder.loader;
+		this.maxEventsPerShard = builder.maxEventsPerShard;
+		this.idleNanos = builder.idleTimeout.toNanos();
+		this.metricsRegistry = builder.metricsRegistry;
+		ThreadFactory threads = new ThreadFactoryBuilder().setNameFormat("ticket-shard-%d").setDaemon(true).build();
+		this.shards = new Shard[builder.shards];
+		for (int i = 0; i < shards.length; i++) {
+			shards[i] = new Shard(Executors.newSingleThreadExecutor(threads));
+		}
+		long period = builder.sweepPeriod.toNanos();
+		sweeper.scheduleWithFixedDelay(this::requestSweeps, period, period, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @param loader creates the service of each event, can not be null
+	 * @throws NullPointerException if loader is null.
+	 * @return a builder for further configuration.
+	 */
+	public static Builder builder(EventLoader loader) {
+		return new Builder(loader);
+	}
+
+	/**
+	 * @param eventId can not be null
+	 * @throws NullPointerException if eventId is null.
+	 * @return a view of the event's service. If the event can not be loaded,
+	 *         holds complete with a FailedHold and other requests fail with the
+	 *         loader's exception.
+	 */
+	public AsyncTicketService event(String eventId) {
+		Preconditions.checkNotNull(eventId);
+		return new EventView(eventId);
+	}
+
+	/**
+	 * @return number of events currently loaded, across all shards.
+	 */
+	public int loadedEvents() {
+		int loaded = 0;
+		for (Shard shard : shards) {
+			loaded += shard.size;
+		}
+		return loaded;
+	}
+
+	private <T> CompletableFuture<T> submit(String eventId, Function<TicketServiceImpl, T> request) {
+		Shard shard = shards[Math.floorMod(eventId.hashCode(), shards.length)];
+		// a closed shard rejects the request, which fails its future
+		return AsyncResults
+				.submit(() -> CompletableFuture.supplyAsync(() -> request.apply(shard.service(eventId)), shard.worker));
+	}
+
+	private void requestSweeps() {
+		for (Shard shard : shards) {
+			if (shard.sweepQueued.compareAndSet(false, true)) {
+				shard.worker.execute(shard::sweep);
+			}
+		}
+	}
+
+	/**
+	 * Evicts every event and stops the shard threads, letting queued requests
+	 * finish first. If interrupted while waiting for the shards, returns with the
+	 * interrupt flag set while they finish in the background.
+	 */
+	@Override
+	public void close() {
+		sweeper.shutdownNow();
+		for (Shard shard : shards) {
+			shard.worker.execute(shard::evictAll);
+			shard.worker.shutdown();
+		}
+		try {
+			for (Shard shard : shards) {
+				shard.worker.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOG.warn("Interrupted waiting for the shards to stop");
+		}
+	}
+
+	/**
+	 * Events of one shard. Apart from size and sweepQueued, only read or written
+	 * on the shard's worker thread.
+	 */
+	private final class Shard {
+
+		private final ExecutorService worker;
+
+		private final LinkedHashMap<String, LoadedEvent> events = new LinkedHashMap<>(16, 0.75f, true);
+
+		private final AtomicBoolean sweepQueued = new AtomicBoolean();
+
+		private volatile int size;
+
+		private Shard(ExecutorService worker) {
+			this.worker = worker;
+		}
+
+		private TicketServiceImpl service(String eventId) {
+			LoadedEvent event = events.get(eventId);
+			if (event == null) {
+				event = new LoadedEvent(load(eventId));
+				events.put(eventId, event);
+				trim(eventId);
+				size = events.size();
+			}
+			event.lastUsed = System.nanoTime();
+			return event.service;
+		}
+
+		private TicketServiceImpl load(String eventId) {
+			TicketServiceImpl.Builder builder = loader.load(eventId).concurrent(true)
+					.expiryPolicy(ExpiryPolicy.BACKGROUND);
+			if (metricsRegistry != null) {
+				builder.metrics(eventId, metricsRegistry);
+			}
+			TicketServiceImpl service = builder.build();
+			LOG.info("Loaded event {}", eventId);
+			return service;
+		}
+
+		private void sweep() {
+			sweepQueued.set(false);
+			long now = System.nanoTime();
+			Iterator<Entry<String, LoadedEvent>> it = events.entrySet().iterator();
+			while (it.hasNext()) {
+				Entry<String, LoadedEvent> entry = it.next();
+				try {
+					entry.getValue().service.releaseExpiredHolds();
+				} catch (RuntimeException e) {
+					LOG.error("Failed to release expired holds of event {}", entry.getKey(), e);
+				}
+				if (now - entry.getValue().lastUsed > idleNanos && !entry.getValue().service.hasHolds()) {
+					it.remove();
+					unload(entry.getKey(), entry.getValue());
+				}
+			}
+			trim(null);
+			size = events.size();
+		}
+
+		/**
+		 * Evicts the least recently used events without holds until the shard is
+		 * back within its cap.
+		 *
+		 * @param keep an event that must stay loaded, or null
+		 */
+		private void trim(String keep) {
+			Iterator<Entry<String, LoadedEvent>> eldest = events.entrySet().iterator();
+			while (events.size() > maxEventsPerShard && eldest.hasNext()) {
+				Entry<String, LoadedEvent> entry = eldest.next();
+				if (!entry.getKey().equals(keep) && !entry.getValue().service.hasHolds()) {
+					eldest.remove();
+					unload(entry.getKey(), entry.getValue());
+				}
+			}
+			if (events.size() > maxEventsPerShard && LOG.isDebugEnabled()) {
+				LOG.debug("{} events loaded, over the cap of {} while they hold seats", events.size(),
+						maxEventsPerShard);
+			}
+		}
+
+		private void evictAll() {
+			for (Entry<String, LoadedEvent> entry : events.entrySet()) {
+				unload(entry.getKey(), entry.getValue());
+			}
+			events.clear();
+			size = 0;
+		}
+
+		private void unload(String eventId, LoadedEvent event) {
+			// frees the metrics name for the next load of the event
+			event.service.close();
+			try {
+				loader.unloaded(eventId, event.service);
+			} catch (RuntimeException e) {
+				LOG.error("Failed to unload event {}", eventId, e);
+			}
+			LOG.info("Evicted event {}", eventId);
+		}
+	}
+
+	private static final class LoadedEvent {
+
+		private final TicketServiceImpl service;
+
+		private long lastUsed;
+
+		private LoadedEvent(TicketServiceImpl service) {
+			this.service = service;
+		}
+	}
+
+	/**
+	 * Routes every request to one event.
+	 */
+	private final class EventView implements AsyncTicketService {
+
+		private final String eventId;
+
+		private EventView(String eventId) {
+			this.eventId = eventId;
+		}
+
+		@Override
+		public CompletableFuture<Integer> numSeatsAvailableAsync() {
+			return submit(eventId, TicketServiceImpl::numSeatsAvailable);
+		}
+
+		@Override
+		public CompletableFuture<SeatHold> findAndHoldSeatsAsync(int numSeats, String customerEmail) {
+			return AsyncResults.hold(() -> submit(eventId, service -> service.findAndHoldSeats(numSeats, customerEmail)));
+		}
+
+		@Override
+		public CompletableFuture<SeatHold> findAndHoldSeatsAsync(int numSeats, int maxPriceTier,
+				String customerEmail) {
+			return AsyncResults.hold(
+					() -> submit(eventId, service -> service.findAndHoldSeats(numSeats, maxPriceTier, customerEmail)));
+		}
+
+		@Override
+		public CompletableFuture<String> reserveSeatsAsync(int seatHoldId, String customerEmail) {
+			return submit(eventId, service -> service.reserveSeats(seatHoldId, customerEmail));
+		}
+	}
+
+	/**
+	 * Configures a ShardedTicketServiceRegistry.
+	 *
+	 * @author John McCaulley jmccaull@gmu.edu
+	 */
+	public static final class Builder {
+
+		private final EventLoader loader;
+
+		private int shards = Runtime.getRuntime().availableProcessors();
+
+		private int maxEventsPerShard = 64;
+
+		private Duration idleTimeout = Duration.ofMinutes(10);
+
+		private Duration sweepPeriod = Duration.ofSeconds(1);
+
+		private MetricsRegistry metricsRegistry;
+
+		private Builder(EventLoader loader) {
+			this.loader = Preconditions.checkNotNull(loader);
+		}
+
+		/**
+		 * @param shards number of shards and worker threads, must be > 0. Defaults
+		 *               to the number of processors.
+		 * @throws IllegalArgumentException if shards <= 0
+		 * @return this builder
+		 */
+		public Builder shards(int shards) {
+			Preconditions.checkArgument(shards > 0, String.format("shards must be > 0, %s supplied", shards));
+			this.shards = shards;
+			return this;
+		}
+
+		/**
+		 * @param maxEventsPerShard events kept loaded per shard before the least
+		 *                          recently used without holds is evicted, must
+		 *                          be > 0. Defaults to 64.
+		 * @throws IllegalArgumentException if maxEventsPerShard <= 0
+		 * @return this builder
+		 */
+		public Builder maxEventsPerShard(int maxEventsPerShard) {
+			Preconditions.checkArgument(maxEventsPerShard > 0,
+					String.format("maxEventsPerShard must be > 0, %s supplied", maxEventsPerShard));
+			this.maxEventsPerShard = maxEventsPerShard;
+			return this;
+		}
+
+		/**
+		 * @param idleTimeout events unused for longer and without holds are
+		 *                    evicted at the next sweep, can not be null. Defaults
+		 *                    to 10 minutes.
+		 * @throws NullPointerException if idleTimeout is null.
+		 * @return this builder
+		 */
+		public Builder idleTimeout(Duration idleTimeout) {
+			this.idleTimeout = Preconditions.checkNotNull(idleTimeout);
+			return this;
+		}
+
+		/**
+		 * @param sweepPeriod time between expiry sweeps, must be positive. Defaults
+		 *                    to 1 second.
+		 * @throws NullPointerException     if sweepPeriod is null.
+		 * @throws IllegalArgumentException if sweepPeriod is not positive.
+		 * @return this builder
+		 */
+		public Builder sweepPeriod(Duration sweepPeriod) {
+			Preconditions.checkArgument(!sweepPeriod.isNegative() && !sweepPeriod.isZero(),
+					"sweepPeriod must be positive");
+			this.sweepPeriod = sweepPeriod;
+			return this;
+		}
+
+		/**
+		 * @param metricsRegistry registry every loaded event's metrics are
+		 *                        published to under its event id, can not be
+		 *                        null. By default no metrics are recorded.
+		 * @throws NullPointerException if metricsRegistry is null.
+		 * @return this builder
+		 */
+		public Builder metrics(MetricsRegistry metricsRegistry) {
+			this.metricsRegistry = Preconditions.checkNotNull(metricsRegistry);
+			return this;
+		}
+
+		/**
+		 * @return a new ShardedTicketServiceRegistry with its threads started.
+		 */
+		public ShardedTicketServiceRegistry build() {
+			return new ShardedTicketServiceRegistry(this);
+		}
+	}
+}
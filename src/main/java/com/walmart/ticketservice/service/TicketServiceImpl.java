@@ -1,46 +1,119 @@
 package com.walmart.ticketservice.service;
 
 import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 import com.walmart.ticketservice.TicketService;
+import com.walmart.ticketservice.metrics.FailureReason;
+import com.walmart.ticketservice.metrics.MetricsRegistry;
+import com.walmart.ticketservice.metrics.TicketServiceMetrics;
+import com.walmart.ticketservice.metrics.impl.JmxMetricsRegistry;
 import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.TieredVenue;
+import com.walmart.ticketservice.model.TimeSource;
 import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.model.impl.ConfirmationCodec;
 import com.walmart.ticketservice.model.impl.FailedHold;
+import com.walmart.ticketservice.model.impl.HoldRequest;
+import com.walmart.ticketservice.model.impl.MonotonicTimeSource;
+import com.walmart.ticketservice.model.impl.ReserveRequest;
+import com.walmart.ticketservice.model.impl.ReserveResult;
 import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.repo.ReservationLedger;
 import com.walmart.ticketservice.repo.SuccessfulHoldRepository;
+import com.walmart.ticketservice.repo.impl.AppendOnlyReservationLedger;
 
 /**
  * Manages the issuing and maintenance of reservations. Checks for expired
  * reservations only when necessary. "Best seat" selection, storage and hold
  * duration are configurable.
+ * <p>
+ * By default every operation is serialized on a single lock, which is safe
+ * with any Venue and repository. In concurrent mode no service wide lock is
+ * taken. Seats are claimed directly from the Venue and a hold is owned by
+ * whichever caller successfully removes it from the repository, so both must
+ * be thread safe (for example {@link com.walmart.ticketservice.model.impl.AtomicSeatVenue}
+ * and {@link com.walmart.ticketservice.repo.impl.StripedHoldRepository}).
+ * <p>
+ * Services configured with {@link Builder#metrics(String)} must be closed to
+ * stop exposing their metrics.
  * 
  * @author John McCaulley jmccaull@gmu.edu
  */
-public final class TicketServiceImpl implements TicketService {
+public final class TicketServiceImpl implements TicketService, AutoCloseable {
 
 	private static final Logger LOG = LoggerFactory.getLogger(TicketServiceImpl.class);
 
+	private static final int ANY_TIER = -1;
+
+	// a random first id stays below this, leaving over a billion ids before the
+	// sequence could wrap past recovered ones
+	private static final int RANDOM_FIRST_ID_BOUND = Integer.MAX_VALUE / 2;
+
+	private static final SeatListener NO_LISTENER = new SeatListener() {
+
+		@Override
+		public void seatsTaken(int[] seats) {
+		}
+
+		@Override
+		public void seatsFreed(int[] seats) {
+		}
+	};
+
 	private final Venue venue;
 
-	private final Duration holdLimit;
+	private final long holdLimitNanos;
 
-	private final Random random = new Random();
+	private final IntSupplier holdIds;
 
 	private final SuccessfulHoldRepository repo;
 
+	private final Lock serialLock;
+
+	private final ExpiryPolicy expiryPolicy;
+
+	private final TicketServiceMetrics metrics;
+
+	private final String metricsName;
+
+	private final MetricsRegistry metricsRegistry;
+
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	private final CustomerLimiter limiter;
+
+	private final SeatListener seatListener;
+
+	private final ReservationLedger ledger;
+
+	private final TimeSource timeSource;
+
+	// seats not held or reserved, kept by deltas so concurrent updates commute
+	private final AtomicInteger seatsEstimate;
+
 	/**
 	 * Configure a ticket service with a Venue, hold time limit and storage. Will
 	 * query repository for expired reservations when performing operations.
-	 * Operations on the repository are synchronized. seatHoldIds are generated
-	 * using the default random.
+	 * Operations on the repository are synchronized. seatHoldIds are issued in
+	 * sequence from a random starting point, or from above the highest id the
+	 * repository already stores, so they do not repeat until 2^32 holds have
+	 * been issued.
 	 * 
 	 * @param venue      can not be null.
 	 * @param holdLimit  can not be null
@@ -48,91 +121,808 @@ public final class TicketServiceImpl implements TicketService {
 	 * @throws NullPointerException if any arg is null.
 	 */
 	public TicketServiceImpl(Venue venue, Duration holdLimit, SuccessfulHoldRepository repository) {
-		this.venue = Preconditions.checkNotNull(venue);
-		this.holdLimit = Preconditions.checkNotNull(holdLimit);
-		this.repo = Preconditions.checkNotNull(repository);
+		this(builder(venue, holdLimit, repository));
+	}
+
+	private TicketServiceImpl(Builder builder) {
+		this.venue = builder.venue;
+		this.holdLimitNanos = builder.holdLimit.toNanos();
+		this.repo = builder.repository;
+		this.serialLock = builder.concurrent ? null : new ReentrantLock();
+		this.expiryPolicy = builder.expiryPolicy;
+		this.timeSource = builder.timeSource;
+		this.limiter = builder.maxSeatsPerCustomer == Integer.MAX_VALUE && builder.holdsPerWindow == 0
+				? CustomerLimiter.unlimited()
+				: new CustomerLimiter(builder.maxSeatsPerCustomer, builder.holdsPerWindow, builder.holdWindow,
+						builder.timeSource);
+		this.seatListener = builder.seatListener;
+		this.ledger = builder.ledger != null ? builder.ledger
+				: AppendOnlyReservationLedger.inMemory(ConfirmationCodec.withRandomKey());
+		this.seatsEstimate = new AtomicInteger(venue.remainingSeats());
+		if (builder.holdIds != null) {
+			this.holdIds = builder.holdIds;
+		} else {
+			int lastId = repo.highestSeatHoldId().orElse(new Random().nextInt(RANDOM_FIRST_ID_BOUND));
+			this.holdIds = new AtomicInteger(lastId)::incrementAndGet;
+		}
+		this.metricsName = builder.metricsName;
+		this.metricsRegistry = builder.metricsRegistry;
+		if (builder.metricsName != null) {
+			this.metrics = new TicketServiceMetrics(venue::remainingSeats);
+			builder.metricsRegistry.register(builder.metricsName, metrics);
+		} else {
+			this.metrics = TicketServiceMetrics.disabled();
+		}
+	}
+
+	/**
+	 * Start configuring a ticket service. Defaults match
+	 * {@link #TicketServiceImpl(Venue, Duration, SuccessfulHoldRepository)}.
+	 * 
+	 * @param venue      can not be null.
+	 * @param holdLimit  can not be null
+	 * @param repository can not be null.
+	 * @throws NullPointerException if any arg is null.
+	 * @return a builder for further configuration.
+	 */
+	public static Builder builder(Venue venue, Duration holdLimit, SuccessfulHoldRepository repository) {
+		return new Builder(venue, holdLimit, repository);
+	}
+
+	/**
+	 * @return metrics recorded by this service, a disabled instance unless
+	 *         configured with {@link Builder#metrics(String)}.
+	 */
+	public TicketServiceMetrics metrics() {
+		return metrics;
+	}
+
+	/**
+	 * @return the ledger of confirmed reservations, which verifies the codes
+	 *         returned by {@link #reserveSeats(int, String)}.
+	 */
+	public ReservationLedger ledger() {
+		return ledger;
+	}
+
+	/**
+	 * @return true if the repository stores any hold, including expired ones
+	 *         not yet released.
+	 */
+	public boolean hasHolds() {
+		return repo.highestSeatHoldId().isPresent();
+	}
+
+	/**
+	 * Unregisters the metrics, so another service may be registered under the
+	 * same name. Calls after the first do nothing.
+	 */
+	@Override
+	public void close() {
+		if (metricsName != null && closed.compareAndSet(false, true)) {
+			metricsRegistry.unregister(metricsName);
+		}
 	}
 
 	@Override
 	public int numSeatsAvailable() {
 		int seats = 0;
-		synchronized (repo) {
-			removeExpiredReservations();
+		lock();
+		try {
+			if (expiryPolicy == ExpiryPolicy.LAZY) {
+				removeExpiredReservations();
+			} else {
+				expireOnRequest();
+			}
 			seats = venue.remainingSeats();
+		} finally {
+			unlock();
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("returning {} seats avaliable", seats);
 		}
-		LOG.debug("returning {} seats avaliable", seats);
 		return seats;
 	}
 
+	/**
+	 * Reads a counter updated by every hold and expiry sweep, taking no lock.
+	 * Stale by at most the holds that expired since the last sweep: until the
+	 * next operation under {@link ExpiryPolicy#ON_REQUEST}, until the next
+	 * {@link #releaseExpiredHolds()} under {@link ExpiryPolicy#BACKGROUND},
+	 * until seats run short under {@link ExpiryPolicy#LAZY}.
+	 */
+	@Override
+	public int estimateSeatsAvailable() {
+		return seatsEstimate.get();
+	}
+
 	@Override
 	public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
-		SeatHold reservation = null;
+		long start = metrics.start();
+		SeatHold reservation = validate(numSeats, customerEmail);
+		if (reservation == null) {
+			reservation = createReservation(numSeats, ANY_TIER, customerEmail);
+		}
+		metrics.holdCompleted(start, reservation);
+		return reservation;
+	}
+
+	private FailedHold validate(int numSeats, String customerEmail) {
+		FailedHold failure = null;
 		if (numSeats <= 0) {
 			LOG.error("numSeats {} < 0, returning failure", numSeats);
-			reservation = new FailedHold("numSeats must be > 0");
+			failure = new FailedHold("numSeats must be > 0");
 		} else if (customerEmail == null) {
 			LOG.error("customerEmail is null, returning failure");
-			reservation = new FailedHold("customerEmail is null");
+			failure = new FailedHold("customerEmail is null");
+		}
+		if (failure != null) {
+			metrics.failed(FailureReason.INVALID_REQUEST);
+		}
+		return failure;
+	}
+
+	/**
+	 * Requires the venue to be a {@link TieredVenue}.
+	 */
+	@Override
+	public SeatHold findAndHoldSeats(int numSeats, int maxPriceTier, String customerEmail) {
+		long start = metrics.start();
+		SeatHold reservation = null;
+		if (!(venue instanceof TieredVenue)) {
+			LOG.error("venue has no price tiers, returning failure");
+			metrics.failed(FailureReason.TIERS_UNSUPPORTED);
+			reservation = new FailedHold("price tiers are not supported");
+		} else if (maxPriceTier < 0) {
+			LOG.error("maxPriceTier {} < 0, returning failure", maxPriceTier);
+			metrics.failed(FailureReason.INVALID_REQUEST);
+			reservation = new FailedHold("maxPriceTier must be >= 0");
 		} else {
-			reservation = createReservation(numSeats, customerEmail);
+			reservation = validate(numSeats, customerEmail);
+			if (reservation == null) {
+				reservation = createReservation(numSeats, maxPriceTier, customerEmail);
+			}
 		}
+		metrics.holdCompleted(start, reservation);
 		return reservation;
 	}
 
-	private SeatHold createReservation(int numSeats, String customerEmail) {
-		SeatHold reservation = null;
-		synchronized (repo) {
-			removeExpiredReservations();
+	/**
+	 * Serves the whole wave under one lock acquisition and one expiry sweep.
+	 * Requests are admitted in order while seats remain, then the seats for all
+	 * admitted requests are taken from the Venue in a single call and split
+	 * between them. Venues that {@link Venue#placesGroups() place groups} are
+	 * asked once per request instead, so each hold stays together.
+	 */
+	@Override
+	public List<SeatHold> holdBatch(List<HoldRequest> requests) {
+		Preconditions.checkNotNull(requests);
+		long start = metrics.start();
+		SeatHold[] results = new SeatHold[requests.size()];
+		lock();
+		try {
+			expireOnRequest();
 			int remainingSeats = venue.remainingSeats();
+			if (requestedSeats(requests) > remainingSeats && expireWhenShort()) {
+				remainingSeats = venue.remainingSeats();
+			}
+			int admitted = 0;
+			for (int i = 0; i < results.length; i++) {
+				HoldRequest request = requests.get(i);
+				results[i] = validate(request.getNumSeats(), request.getCustomerEmail());
+				if (results[i] == null) {
+					results[i] = admit(request.getNumSeats(), request.getCustomerEmail());
+				}
+				if (results[i] == null && request.getNumSeats() > remainingSeats - admitted) {
+					LOG.error("Requested {} seats, only {} avalaible, returning failure", request.getNumSeats(),
+							remainingSeats - admitted);
+					limiter.refund(request.getCustomerEmail(), request.getNumSeats());
+					metrics.failed(FailureReason.SOLD_OUT);
+					results[i] = new FailedHold(String.format("Only %s seats avaliable", remainingSeats - admitted));
+				} else if (results[i] == null) {
+					admitted += request.getNumSeats();
+				}
+			}
+			if (admitted > 0) {
+				allocateBatch(requests, results, admitted);
+			}
+		} finally {
+			unlock();
+		}
+		for (SeatHold result : results) {
+			metrics.holdCompleted(start, result);
+		}
+		return Arrays.asList(results);
+	}
+
+	private static int requestedSeats(List<HoldRequest> requests) {
+		int requested = 0;
+		for (HoldRequest request : requests) {
+			requested += Math.max(0, request.getNumSeats());
+		}
+		return requested;
+	}
+
+	private void allocateBatch(List<HoldRequest> requests, SeatHold[] results, int admitted) {
+		int[] seats = venue.placesGroups() ? new int[0] : venue.getNSeats(admitted);
+		if (seats.length < admitted) {
+			// the venue places groups or another caller took seats, go one by one
+			venue.releaseSeats(seats);
+			for (int i = 0; i < results.length; i++) {
+				if (results[i] == null) {
+					HoldRequest request = requests.get(i);
+					results[i] = holdSeats(request.getNumSeats(), ANY_TIER, request.getCustomerEmail());
+					if (results[i] instanceof FailedHold) {
+						limiter.refund(request.getCustomerEmail(), request.getNumSeats());
+					}
+				}
+			}
+			return;
+		}
+		int offset = 0;
+		int i = 0;
+		try {
+			for (; i < results.length; i++) {
+				if (results[i] == null) {
+					HoldRequest request = requests.get(i);
+					int[] held = Arrays.copyOfRange(seats, offset, offset + request.getNumSeats());
+					offset += request.getNumSeats();
+					results[i] = recordHold(held, request.getCustomerEmail());
+				}
+			}
+		} catch (RuntimeException e) {
+			// recordHold returned its own seats, return those of the requests after it
+			venue.releaseSeats(Arrays.copyOfRange(seats, offset, seats.length));
+			for (i++; i < results.length; i++) {
+				if (results[i] == null) {
+					limiter.refund(requests.get(i).getCustomerEmail(), requests.get(i).getNumSeats());
+				}
+			}
+			throw e;
+		}
+	}
+
+	private SeatHold createReservation(int numSeats, int maxTier, String customerEmail) {
+		SeatHold reservation = admit(numSeats, customerEmail);
+		if (reservation != null) {
+			return reservation;
+		}
+		lock();
+		try {
+			expireOnRequest();
+			int remainingSeats = remainingSeats(maxTier);
+			if (remainingSeats < numSeats && expireWhenShort()) {
+				remainingSeats = remainingSeats(maxTier);
+			}
 			if (remainingSeats >= numSeats) {
-				int[] seats = venue.getNSeats(numSeats);
-				int seatHoldId = random.nextInt();
-				Instant expirationTime = Instant.now().plus(holdLimit);
-				reservation = new SuccessfulHold(expirationTime, seats, seatHoldId);
-				repo.add(customerEmail, (SuccessfulHold) reservation);
-				LOG.debug("hold created for {} for {} seats", customerEmail, numSeats);
+				reservation = holdSeats(numSeats, maxTier, customerEmail);
 			} else {
 				LOG.error("Requested {} seats, only {} avalaible, returning failure", numSeats, remainingSeats);
+				metrics.failed(FailureReason.SOLD_OUT);
 				reservation = new FailedHold(String.format("Only %s seats avaliable", remainingSeats));
 			}
+		} finally {
+			unlock();
+		}
+		if (reservation instanceof FailedHold) {
+			limiter.refund(customerEmail, numSeats);
 		}
 		return reservation;
 	}
 
+	/**
+	 * Charges the hold to the customer's limits before any seats are taken.
+	 * Under {@link ExpiryPolicy#LAZY} expired holds still count against the
+	 * customer's seat limit, so they are released and the charge retried
+	 * before refusing.
+	 * 
+	 * @return null if admitted, otherwise the failure to return.
+	 */
+	private FailedHold admit(int numSeats, String customerEmail) {
+		FailureReason refused = limiter.acquire(customerEmail, numSeats);
+		if (refused == FailureReason.SEAT_LIMIT && expiryPolicy == ExpiryPolicy.LAZY) {
+			boolean released;
+			lock();
+			try {
+				released = expireWhenShort();
+			} finally {
+				unlock();
+			}
+			if (released) {
+				refused = limiter.acquire(customerEmail, numSeats);
+			}
+		}
+		if (refused == null) {
+			return null;
+		}
+		LOG.error("Customer {} refused {} seats: {}", customerEmail, numSeats, refused);
+		metrics.failed(refused);
+		return new FailedHold(
+				refused == FailureReason.SEAT_LIMIT ? limiter.seatLimitMessage() : limiter.rateLimitMessage());
+	}
+
+	private int remainingSeats(int maxTier) {
+		return maxTier == ANY_TIER ? venue.remainingSeats() : ((TieredVenue) venue).remainingSeats(maxTier);
+	}
+
+	private SeatHold holdSeats(int numSeats, int maxTier, String customerEmail) {
+		int[] seats = maxTier == ANY_TIER ? venue.getNSeats(numSeats)
+				: ((TieredVenue) venue).getNSeats(numSeats, maxTier);
+		if (seats.length < numSeats) {
+			// lost a race with another caller, or the venue could not place the group
+			venue.releaseSeats(seats);
+			if (expireWhenShort()) {
+				// expired holds may have left room for the group
+				return holdSeats(numSeats, maxTier, customerEmail);
+			}
+			LOG.error("Requested {} seats, venue issued {}, returning failure", numSeats, seats.length);
+			int remainingSeats = remainingSeats(maxTier);
+			boolean soldOut = remainingSeats < numSeats;
+			metrics.failed(soldOut ? FailureReason.SOLD_OUT : FailureReason.NOT_TOGETHER);
+			return new FailedHold(soldOut ? String.format("Only %s seats avaliable", remainingSeats)
+					: String.format("%s seats are not avaliable together", numSeats));
+		}
+		return recordHold(seats, customerEmail);
+	}
+
+	private SuccessfulHold recordHold(int[] seats, String customerEmail) {
+		int seatHoldId = holdIds.getAsInt();
+		long expirationTime = timeSource.epochNanos() + holdLimitNanos;
+		SuccessfulHold reservation = new SuccessfulHold(expirationTime, seats, seatHoldId);
+		try {
+			repo.add(customerEmail, reservation);
+		} catch (RuntimeException e) {
+			// not stored, so nothing would ever return the seats
+			venue.releaseSeats(seats);
+			limiter.refund(customerEmail, seats.length);
+			throw e;
+		}
+		seatsEstimate.addAndGet(-seats.length);
+		seatListener.seatsTaken(seats);
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("hold created for {} for {} seats", customerEmail, seats.length);
+		}
+		return reservation;
+	}
+
+	/**
+	 * Records the reservation in the {@link #ledger()}, which issues a signed 24
+	 * character base32 code (see {@link ConfirmationCodec}).
+	 */
 	@Override
 	public String reserveSeats(int seatHoldId, String customerEmail) {
 		Preconditions.checkArgument(customerEmail != null, "customerEmail can not be null.");
+		long start = metrics.start();
 		String confirmationCode = null;
-		synchronized (repo) {
-			SuccessfulHold selected = repo.getByEmail(customerEmail).stream()
-					.filter(reservation -> seatHoldId == reservation.getSeatHoldId()).findFirst()
-					.orElseThrow(() -> new IllegalArgumentException(String
-							.format("Reservation for email: %s, id: %s does not exist", customerEmail, seatHoldId)));
-			LOG.debug("found reservation for seatHoldId {}, email {}", seatHoldId, customerEmail);
-			if (selected.isExpired()) {
-				LOG.error("Reservation for seatHoldId {}, email {} is expired", seatHoldId, customerEmail);
-				throw new IllegalStateException(
-						String.format("Reservation for email: %s, id: %s is expired", customerEmail, seatHoldId));
+		lock();
+		try {
+			confirmationCode = confirm(seatHoldId, customerEmail);
+		} finally {
+			unlock();
+			metrics.reserveCompleted(start, confirmationCode != null);
+		}
+		return confirmationCode;
+	}
+
+	/**
+	 * Reserves the whole wave under one lock acquisition.
+	 */
+	@Override
+	public List<ReserveResult> reserveBatch(List<ReserveRequest> requests) {
+		Preconditions.checkNotNull(requests);
+		long start = metrics.start();
+		ReserveResult[] results = new ReserveResult[requests.size()];
+		lock();
+		try {
+			for (int i = 0; i < results.length; i++) {
+				ReserveRequest request = requests.get(i);
+				if (request.getCustomerEmail() == null) {
+					metrics.failed(FailureReason.INVALID_REQUEST);
+					results[i] = ReserveResult.failed("customerEmail can not be null.");
+					continue;
+				}
+				try {
+					results[i] = ReserveResult.confirmed(confirm(request.getSeatHoldId(), request.getCustomerEmail()));
+				} catch (IllegalArgumentException | IllegalStateException e) {
+					results[i] = ReserveResult.failed(e.getMessage());
+				}
 			}
-			confirmationCode = geneateConfirmationCode(customerEmail, selected);
+		} finally {
+			unlock();
+		}
+		for (ReserveResult result : results) {
+			metrics.reserveCompleted(start, result.isConfirmed());
+		}
+		return Arrays.asList(results);
+	}
+
+	private String confirm(int seatHoldId, String customerEmail) {
+		SuccessfulHold selected = held(seatHoldId, customerEmail);
+		if (!repo.remove(customerEmail, selected)) {
+			throw noLongerHeld(seatHoldId, customerEmail);
+		}
+		String confirmationCode;
+		try {
+			confirmationCode = ledger.append(customerEmail, selected, timeSource.epochNanos()).getConfirmationCode();
+		} catch (RuntimeException e) {
+			// not recorded, so hand the hold back rather than lose its seats
+			repo.add(customerEmail, selected);
+			throw e;
+		}
+		limiter.release(customerEmail, selected.seatCount());
+		if (LOG.isDebugEnabled()) {
 			LOG.debug("reservation for seatHoldId {} email {} confirmed. Code: {}", seatHoldId, customerEmail,
 					confirmationCode);
-			repo.remove(customerEmail, selected);
 		}
 		return confirmationCode;
 	}
 
-	private String geneateConfirmationCode(String email, SuccessfulHold reservation) {
-		return String.format("%s:%s:%s", email, reservation.getSeats(), Instant.now());
+	/**
+	 * @return the unexpired hold with the id, which holds at least one seat.
+	 */
+	private SuccessfulHold held(int seatHoldId, String customerEmail) {
+		Optional<SuccessfulHold> found = repo.getById(seatHoldId, customerEmail);
+		if (!found.isPresent()) {
+			metrics.failed(FailureReason.HOLD_NOT_FOUND);
+			throw new IllegalArgumentException(
+					String.format("Reservation for email: %s, id: %s does not exist", customerEmail, seatHoldId));
+		}
+		SuccessfulHold selected = found.get();
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("found reservation for seatHoldId {}, email {}", seatHoldId, customerEmail);
+		}
+		if (selected.seatCount() == 0) {
+			// every seat released, found before the release removed it
+			throw noLongerHeld(seatHoldId, customerEmail);
+		}
+		if (selected.isExpiredAt(timeSource.epochNanos())) {
+			LOG.error("Reservation for seatHoldId {}, email {} is expired", seatHoldId, customerEmail);
+			metrics.failed(FailureReason.HOLD_EXPIRED);
+			throw new IllegalStateException(
+					String.format("Reservation for email: %s, id: %s is expired", customerEmail, seatHoldId));
+		}
+		return selected;
+	}
+
+	private IllegalStateException noLongerHeld(int seatHoldId, String customerEmail) {
+		LOG.error("Reservation for seatHoldId {}, email {} was released concurrently", seatHoldId, customerEmail);
+		metrics.failed(FailureReason.HOLD_RELEASED);
+		return new IllegalStateException(
+				String.format("Reservation for email: %s, id: %s is no longer held", customerEmail, seatHoldId));
 	}
 
-	private void removeExpiredReservations() {
-		Collection<Entry<String, SuccessfulHold>> expiredReservations = repo.getAllExpired();
-		LOG.debug("Found {} expired reservations", expiredReservations.size());
-		expiredReservations.forEach(entry -> {
-			SuccessfulHold expired = entry.getValue();
-			repo.remove(entry.getKey(), expired);
-			venue.releaseSeats(expired.getSeats());
-		});
+	/**
+	 * Replaces the hold in the repository, which indexes it by id and expiration.
+	 * At most the customer's own holds are visited, never those of other
+	 * customers.
+	 */
+	@Override
+	public SuccessfulHold extendHold(int seatHoldId, String customerEmail, Duration extension) {
+		Preconditions.checkArgument(customerEmail != null, "customerEmail can not be null.");
+		Preconditions.checkArgument(extension != null && !extension.isNegative() && !extension.isZero(),
+				String.format("extension must be positive, %s supplied", extension));
+		lock();
+		try {
+			SuccessfulHold current = held(seatHoldId, customerEmail);
+			SuccessfulHold extended = current
+					.withExpiration(current.getExpirationEpochNanos() + extension.toNanos());
+			if (!repo.replace(customerEmail, current, extended)) {
+				throw noLongerHeld(seatHoldId, customerEmail);
+			}
+			metrics.holdExtended();
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("hold {} for {} extended by {}", seatHoldId, customerEmail, extension);
+			}
+			return extended;
+		} finally {
+			unlock();
+		}
+	}
+
+	/**
+	 * Replaces the hold in the repository with one holding the remaining seats,
+	 * then removes it if none remain. At most the customer's own holds are
+	 * visited, never those of other customers.
+	 */
+	@Override
+	public SuccessfulHold releaseSeats(int seatHoldId, String customerEmail, int[] seats) {
+		Preconditions.checkArgument(customerEmail != null, "customerEmail can not be null.");
+		Preconditions.checkArgument(seats != null && seats.length > 0, "seats can not be null or empty.");
+		// copied so the caller can not change them after they are checked
+		int[] released = seats.clone();
+		lock();
+		try {
+			SuccessfulHold current = held(seatHoldId, customerEmail);
+			SuccessfulHold remaining = current.withoutSeats(released);
+			if (!repo.replace(customerEmail, current, remaining)) {
+				throw noLongerHeld(seatHoldId, customerEmail);
+			}
+			if (remaining.seatCount() == 0) {
+				// replaced first so a durable repository records the seats as freed
+				repo.remove(customerEmail, remaining);
+			}
+			venue.releaseSeats(released);
+			seatsEstimate.addAndGet(released.length);
+			limiter.release(customerEmail, released.length);
+			seatListener.seatsFreed(released);
+			metrics.seatsReleased(released.length, remaining.seatCount() == 0);
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("released {} seats of hold {} for {}", released.length, seatHoldId, customerEmail);
+			}
+			return remaining;
+		} finally {
+			unlock();
+		}
+	}
+
+	/**
+	 * Returns the seats of every expired hold to the Venue. Called on each
+	 * operation under {@link ExpiryPolicy#ON_REQUEST}, when seats run short
+	 * under {@link ExpiryPolicy#LAZY}, otherwise by an
+	 * {@link ExpiredHoldReaper}.
+	 * 
+	 * @return the number of holds released.
+	 */
+	public int releaseExpiredHolds() {
+		lock();
+		try {
+			return removeExpiredReservations();
+		} finally {
+			unlock();
+		}
+	}
+
+	private void expireOnRequest() {
+		if (expiryPolicy == ExpiryPolicy.ON_REQUEST) {
+			removeExpiredReservations();
+		}
+	}
+
+	/**
+	 * Under {@link ExpiryPolicy#LAZY}, releases expired holds because the Venue
+	 * could not supply the seats asked for.
+	 * 
+	 * @return true if any seats were returned to the Venue.
+	 */
+	private boolean expireWhenShort() {
+		return expiryPolicy == ExpiryPolicy.LAZY && removeExpiredReservations() > 0;
+	}
+
+	private int removeExpiredReservations() {
+		long start = metrics.start();
+		// draining removes the holds, so seats are returned exactly once
+		Collection<Entry<String, SuccessfulHold>> expiredReservations = repo.drainExpired(timeSource.epochNanos());
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Found {} expired reservations", expiredReservations.size());
+		}
+		if (!expiredReservations.isEmpty()) {
+			releaseAll(expiredReservations);
+		}
+		limiter.prune();
+		metrics.expiryCompleted(start, expiredReservations.size());
+		return expiredReservations.size();
+	}
+
+	/**
+	 * Returns the seats of all the holds to the Venue in one call.
+	 */
+	private void releaseAll(Collection<Entry<String, SuccessfulHold>> holds) {
+		List<int[]> seatGroups = new ArrayList<>(holds.size());
+		int freed = 0;
+		for (Entry<String, SuccessfulHold> entry : holds) {
+			int[] seats = entry.getValue().getSeats();
+			seatGroups.add(seats);
+			freed += seats.length;
+		}
+		venue.releaseAll(seatGroups);
+		seatsEstimate.addAndGet(freed);
+		int hold = 0;
+		for (Entry<String, SuccessfulHold> entry : holds) {
+			int[] seats = seatGroups.get(hold++);
+			limiter.release(entry.getKey(), seats.length);
+			seatListener.seatsFreed(seats);
+		}
+	}
+
+	private void lock() {
+		if (serialLock != null) {
+			long start = metrics.start();
+			serialLock.lock();
+			metrics.lockAcquired(start);
+		}
+	}
+
+	private void unlock() {
+		if (serialLock != null) {
+			serialLock.unlock();
+		}
+	}
+
+	/**
+	 * Configures optional behavior of a TicketServiceImpl.
+	 * 
+	 * @author John McCaulley jmccaull@gmu.edu
+	 */
+	public static final class Builder {
+
+		private final Venue venue;
+
+		private final Duration holdLimit;
+
+		private final SuccessfulHoldRepository repository;
+
+		private boolean concurrent;
+
+		private ExpiryPolicy expiryPolicy = ExpiryPolicy.ON_REQUEST;
+
+		private IntSupplier holdIds;
+
+		private String metricsName;
+
+		private MetricsRegistry metricsRegistry;
+
+		private int maxSeatsPerCustomer = Integer.MAX_VALUE;
+
+		private int holdsPerWindow;
+
+		private Duration holdWindow = Duration.ZERO;
+
+		private SeatListener seatListener = NO_LISTENER;
+
+		private ReservationLedger ledger;
+
+		private TimeSource timeSource = MonotonicTimeSource.system();
+
+		private Builder(Venue venue, Duration holdLimit, SuccessfulHoldRepository repository) {
+			this.venue = Preconditions.checkNotNull(venue);
+			this.holdLimit = Preconditions.checkNotNull(holdLimit);
+			this.repository = Preconditions.checkNotNull(repository);
+		}
+
+		/**
+		 * @param concurrent if true, operations are not serialized by the service.
+		 *                   The venue and repository must then be thread safe.
+		 *                   Defaults to false.
+		 * @return this builder
+		 */
+		public Builder concurrent(boolean concurrent) {
+			this.concurrent = concurrent;
+			return this;
+		}
+
+		/**
+		 * @param expiryPolicy can not be null. Defaults to
+		 *                     {@link ExpiryPolicy#ON_REQUEST}.
+		 * @throws NullPointerException if expiryPolicy is null.
+		 * @return this builder
+		 */
+		public Builder expiryPolicy(ExpiryPolicy expiryPolicy) {
+			this.expiryPolicy = Preconditions.checkNotNull(expiryPolicy);
+			return this;
+		}
+
+		/**
+		 * @param holdIds source of seatHoldIds, can not be null. Must be thread safe
+		 *                in concurrent mode and must not repeat an id while a hold
+		 *                with that id is outstanding. Defaults to a sequence from
+		 *                above the repository's highest stored id, or from a random
+		 *                non-negative starting point well below
+		 *                Integer.MAX_VALUE if it stores none.
+		 * @throws NullPointerException if holdIds is null.
+		 * @return this builder
+		 */
+		public Builder holdIds(IntSupplier holdIds) {
+			this.holdIds = Preconditions.checkNotNull(holdIds);
+			return this;
+		}
+
+		/**
+		 * Records metrics and exposes them over JMX.
+		 * 
+		 * @param name unique name of the service, can not be null
+		 * @throws NullPointerException if name is null.
+		 * @return this builder
+		 * @see JmxMetricsRegistry
+		 */
+		public Builder metrics(String name) {
+			return metrics(name, JmxMetricsRegistry.platform());
+		}
+
+		/**
+		 * Records metrics and registers them when the service is built. By default
+		 * no metrics are recorded.
+		 * 
+		 * @param name     unique name of the service, can not be null
+		 * @param registry can not be null
+		 * @throws NullPointerException if any arg is null.
+		 * @return this builder
+		 */
+		public Builder metrics(String name, MetricsRegistry registry) {
+			this.metricsName = Preconditions.checkNotNull(name);
+			this.metricsRegistry = Preconditions.checkNotNull(registry);
+			return this;
+		}
+
+		/**
+		 * Limits the seats one email may hold at once, counting holds until they are
+		 * reserved or expire. Holds beyond the limit fail with
+		 * {@link FailureReason#SEAT_LIMIT}. By default there is no limit.
+		 * 
+		 * @param maxSeats must be > 0
+		 * @throws IllegalArgumentException if maxSeats <= 0
+		 * @return this builder
+		 */
+		public Builder maxSeatsPerCustomer(int maxSeats) {
+			Preconditions.checkArgument(maxSeats > 0, String.format("maxSeats must be > 0, %s supplied", maxSeats));
+			this.maxSeatsPerCustomer = maxSeats;
+			return this;
+		}
+
+		/**
+		 * Limits how fast one email may place holds. A customer may place up to
+		 * holds at once, then one more each window / holds. Holds beyond the rate
+		 * fail with {@link FailureReason#RATE_LIMITED}. By default there is no
+		 * limit.
+		 * 
+		 * @param holds  must be > 0
+		 * @param window can not be null, must be at least holds nanoseconds
+		 * @throws NullPointerException     if window is null.
+		 * @throws IllegalArgumentException if holds <= 0 or window is too short.
+		 * @return this builder
+		 */
+		public Builder holdRate(int holds, Duration window) {
+			Preconditions.checkArgument(holds > 0, String.format("holds must be > 0, %s supplied", holds));
+			Preconditions.checkArgument(window.toNanos() >= holds,
+					String.format("window must be at least %s nanoseconds, %s supplied", holds, window));
+			this.holdsPerWindow = holds;
+			this.holdWindow = window;
+			return this;
+		}
+
+		/**
+		 * @param seatListener told of every seat held and freed, can not be null.
+		 *                     By default nothing is told.
+		 * @throws NullPointerException if seatListener is null.
+		 * @return this builder
+		 * @see SeatMap
+		 */
+		public Builder seatListener(SeatListener seatListener) {
+			this.seatListener = Preconditions.checkNotNull(seatListener);
+			return this;
+		}
+
+		/**
+		 * @param ledger records every confirmed reservation and issues its code,
+		 *               can not be null. Defaults to an in-memory
+		 *               {@link AppendOnlyReservationLedger} with a random key.
+		 * @throws NullPointerException if ledger is null.
+		 * @return this builder
+		 */
+		public Builder ledger(ReservationLedger ledger) {
+			this.ledger = Preconditions.checkNotNull(ledger);
+			return this;
+		}
+
+		/**
+		 * @param timeSource clock that hold deadlines and the hold rate are
+		 *                   measured by, can not be null. Defaults to
+		 *                   {@link MonotonicTimeSource#system()}.
+		 * @throws NullPointerException if timeSource is null.
+		 * @return this builder
+		 * @see com.walmart.ticketservice.model.impl.CoarseTimeSource
+		 */
+		public Builder timeSource(TimeSource timeSource) {
+			this.timeSource = Preconditions.checkNotNull(timeSource);
+			return this;
+		}
+
+		/**
+		 * @throws IllegalArgumentException if metrics are already registered under
+		 *                                  the configured name.
+		 * @return a new TicketServiceImpl.
+		 */
+		public TicketServiceImpl build() {
+			return new TicketServiceImpl(this);
+		}
 	}
 }
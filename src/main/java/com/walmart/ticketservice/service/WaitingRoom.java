@@ -0,0 +1,251 @@
+package com.walmart.ticketservice.service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.walmart.ticketservice.TicketService;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.impl.FailedHold;
+import com.walmart.ticketservice.model.impl.HoldRequest;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+
+/**
+ * A bounded first come, first served waiting room in front of a TicketService
+ * for on-sale spikes. Entering never blocks: a caller either gets a
+ * {@link Ticket} with its place in line or, once capacity callers are waiting,
+ * a ticket already refused with a FailedHold. Once per tick up to admitsPerTick
+ * tickets leave the front of the line and are served by one
+ * {@link TicketService#holdBatch(List)}, so the service sees a steady stream of
+ * batches in arrival order instead of a convoy of callers on its lock.
+ * <p>
+ * Results are completed on the tick thread, so dependent stages that block or
+ * do real work should use the async variants of CompletableFuture. A ticket
+ * whose result is cancelled gives up its place and holds nothing, even if its
+ * batch was already being held.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class WaitingRoom implements AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WaitingRoom.class);
+
+	private final TicketService delegate;
+
+	private final int capacity;
+
+	private final int admitsPerTick;
+
+	// guarded by this
+	private final Queue<Ticket> line = new ArrayDeque<>();
+
+	// guarded by this
+	private long entered;
+
+	private volatile long admitted;
+
+	private volatile boolean open = true;
+
+	private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("waiting-room-%d").setDaemon(true).build());
+
+	/**
+	 * @param delegate      serves admitted holds, can not be null
+	 * @param capacity      callers that may wait at once, must be > 0
+	 * @param admitsPerTick callers admitted per tick, must be > 0
+	 * @param tick          time between admissions, must be positive
+	 * @throws NullPointerException     if any arg is null.
+	 * @throws IllegalArgumentException if capacity, admitsPerTick or tick is not
+	 *                                  positive.
+	 */
+	public WaitingRoom(TicketService delegate, int capacity, int admitsPerTick, Duration tick) {
+		Preconditions.checkArgument(capacity > 0, String.format("capacity must be > 0, %s supplied", capacity));
+		Preconditions.checkArgument(admitsPerTick > 0,
+				String.format("admitsPerTick must be > 0, %s supplied", admitsPerTick));
+		Preconditions.checkArgument(!tick.isNegative() && !tick.isZero(), "tick must be positive");
+		this.delegate = Preconditions.checkNotNull(delegate);
+		this.capacity = capacity;
+		this.admitsPerTick = admitsPerTick;
+		long period = tick.toNanos();
+		ticker.scheduleAtFixedRate(this::admit, period, period, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Joins the back of the line.
+	 *
+	 * @param numSeats      the number of seats to find and hold once admitted
+	 * @param customerEmail unique identifier for the customer
+	 * @return a ticket whose result completes with the hold once admitted, or a
+	 *         refused ticket if the room is full or closed.
+	 */
+	public Ticket enter(int numSeats, String customerEmail) {
+		Ticket ticket = null;
+		boolean closed;
+		int waiting;
+		synchronized (this) {
+			closed = !open;
+			waiting = line.size();
+			if (!closed && waiting < capacity) {
+				ticket = new Ticket(this, ++entered, new HoldRequest(numSeats, customerEmail));
+				line.add(ticket);
+			}
+		}
+		if (ticket != null) {
+			return ticket;
+		}
+		if (closed) {
+			LOG.error("Waiting room is closed, refused {} seats for {}", numSeats, customerEmail);
+			return Ticket.refused(this, "the waiting room is closed");
+		}
+		LOG.error("Waiting room refused {} seats for {}, {} waiting", numSeats, customerEmail, waiting);
+		return Ticket.refused(this, "the waiting room is full");
+	}
+
+	/**
+	 * @return callers waiting to be admitted, including ones that have since
+	 *         cancelled.
+	 */
+	public synchronized int waiting() {
+		return line.size();
+	}
+
+	/**
+	 * Admits the next admitsPerTick tickets in one batch. Runs on the tick
+	 * thread, which must outlive any failure or no later tick would run.
+	 */
+	void admit() {
+		try {
+			admitBatch();
+		} catch (RuntimeException e) {
+			LOG.error("Waiting room tick failed, admitting on the next tick", e);
+		}
+	}
+
+	private void admitBatch() {
+		List<Ticket> batch = new ArrayList<>(Math.min(admitsPerTick, capacity));
+		synchronized (this) {
+			while (batch.size() < admitsPerTick && !line.isEmpty()) {
+				Ticket ticket = line.poll();
+				// cancelled tickets give up their place without using an admission
+				if (!ticket.result.isDone()) {
+					batch.add(ticket);
+				}
+				admitted = ticket.position;
+			}
+		}
+		if (batch.isEmpty()) {
+			return;
+		}
+		List<HoldRequest> requests = new ArrayList<>(batch.size());
+		for (Ticket ticket : batch) {
+			requests.add(ticket.request);
+		}
+		try {
+			List<SeatHold> holds = delegate.holdBatch(requests);
+			for (int i = 0; i < batch.size(); i++) {
+				// cancelled while its batch was being held
+				if (!batch.get(i).result.complete(holds.get(i))) {
+					release(batch.get(i).request, holds.get(i));
+				}
+			}
+		} catch (RuntimeException e) {
+			LOG.error("Failed to admit {} waiting callers", batch.size(), e);
+			for (Ticket ticket : batch) {
+				ticket.result.completeExceptionally(e);
+			}
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("admitted {} callers through position {}", batch.size(), admitted);
+		}
+	}
+
+	private void release(HoldRequest request, SeatHold hold) {
+		if (!(hold instanceof SuccessfulHold)) {
+			return;
+		}
+		SuccessfulHold held = (SuccessfulHold) hold;
+		try {
+			delegate.releaseSeats(held.getSeatHoldId(), request.getCustomerEmail(), held.getSeats());
+		} catch (RuntimeException e) {
+			LOG.error("Failed to release hold {} of a cancelled caller, it will expire", held.getSeatHoldId(), e);
+		}
+	}
+
+	/**
+	 * Stops admitting and refuses every caller still waiting.
+	 */
+	@Override
+	public void close() {
+		List<Ticket> waiting;
+		synchronized (this) {
+			open = false;
+			waiting = new ArrayList<>(line);
+			line.clear();
+		}
+		ticker.shutdownNow();
+		for (Ticket ticket : waiting) {
+			ticket.result.complete(new FailedHold("the waiting room is closed"));
+		}
+	}
+
+	/**
+	 * A caller's place in line.
+	 *
+	 * @author John McCaulley jmccaull@gmu.edu
+	 */
+	public static final class Ticket {
+
+		private final WaitingRoom room;
+
+		private final long position;
+
+		private final HoldRequest request;
+
+		private final CompletableFuture<SeatHold> result = new CompletableFuture<>();
+
+		private Ticket(WaitingRoom room, long position, HoldRequest request) {
+			this.room = room;
+			this.position = position;
+			this.request = request;
+		}
+
+		private static Ticket refused(WaitingRoom room, String reason) {
+			Ticket ticket = new Ticket(room, 0, null);
+			ticket.result.complete(new FailedHold(reason));
+			return ticket;
+		}
+
+		/**
+		 * @return order of arrival starting at 1, or 0 if the caller was refused.
+		 */
+		public long getPosition() {
+			return position;
+		}
+
+		/**
+		 * @return callers admitted before this one is, 0 once admitted or refused.
+		 */
+		public long ahead() {
+			return Math.max(0, position - room.admitted - 1);
+		}
+
+		/**
+		 * @return completed with the SuccessfulHold or FailedHold once admitted,
+		 *         or with a FailedHold if refused.
+		 */
+		public CompletableFuture<SeatHold> getResult() {
+			return result;
+		}
+	}
+}
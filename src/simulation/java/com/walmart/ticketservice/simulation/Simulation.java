@@ -0,0 +1,293 @@
+package com.walmart.ticketservice.simulation;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.TicketService;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.repo.SuccessfulHoldRepository;
+
+/**
+ * Replays a {@link TrafficProfile} against a TicketService in virtual time.
+ * Customers arrive, hold seats, then either walk away or reserve after a think
+ * time; holds nobody reserved within the hold limit expire. Events run one at a
+ * time in virtual time order on the calling thread, so the same profile always
+ * makes the same calls in the same order, and a run of millions of customers
+ * takes only as long as the calls themselves.
+ * <p>
+ * Expiry is left to the service: the clock moves just past each abandoned
+ * hold's deadline and the run asks for {@link TicketService#numSeatsAvailable()},
+ * so the service must be built with {@link #clock()} as its TimeSource, the
+ * profile's hold limit and an expiry policy that sweeps on that call. A hold
+ * the service fails to expire shows up as a leak.
+ * <p>
+ * Once every customer is done the run checks for leaks: the Venue, the
+ * service's counts and the repository must all agree that only reserved seats
+ * are gone, and no seat may be reserved twice.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class Simulation {
+
+	private static final Logger LOG = LoggerFactory.getLogger(Simulation.class);
+
+	private static final int ARRIVE = 0;
+
+	private static final int RESERVE = 1;
+
+	private static final int EXPIRE = 2;
+
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+	private final TrafficProfile profile;
+
+	private final VirtualClock clock = new VirtualClock();
+
+	private boolean ran;
+
+	/**
+	 * @param profile can not be null
+	 * @throws NullPointerException if profile is null.
+	 */
+	public Simulation(TrafficProfile profile) {
+		this.profile = Preconditions.checkNotNull(profile);
+	}
+
+	/**
+	 * @return the virtual time of this simulation.
+	 */
+	public VirtualClock clock() {
+		return clock;
+	}
+
+	/**
+	 * Runs the profile. A simulation runs once, as its clock can not go back.
+	 *
+	 * @param service    the service under test, can not be null
+	 * @param venue      the venue the service was built with, can not be null.
+	 *                   Must not have issued any seats yet.
+	 * @param repository the repository the service was built with, can not be
+	 *                   null
+	 * @throws NullPointerException if any arg is null.
+	 * @throws IllegalStateException if this simulation already ran.
+	 * @return what happened.
+	 */
+	public SimulationReport run(TicketService service, Venue venue, SuccessfulHoldRepository repository) {
+		Preconditions.checkNotNull(service);
+		Preconditions.checkNotNull(venue);
+		Preconditions.checkNotNull(repository);
+		Preconditions.checkState(!ran, "a simulation can only run once");
+		ran = true;
+		return new Run(service, venue, repository).execute();
+	}
+
+	private static String email(int customer) {
+		return "customer-" + customer;
+	}
+
+	/**
+	 * State of one run.
+	 */
+	private final class Run {
+
+		private final TicketService service;
+
+		private final Venue venue;
+
+		private final SuccessfulHoldRepository repository;
+
+		private final Random random = new Random(profile.getSeed());
+
+		private final PriorityQueue<Event> events = new PriorityQueue<>(
+				Comparator.comparingLong((Event event) -> event.time).thenComparingLong(event -> event.sequence));
+
+		private final long holdLimitNanos = profile.getHoldLimit().toNanos();
+
+		private final BitSet reserved = new BitSet();
+
+		private final SimulationReport.Builder report = new SimulationReport.Builder(profile);
+
+		private long sequence;
+
+		private long heldSeats;
+
+		private Run(TicketService service, Venue venue, SuccessfulHoldRepository repository) {
+			this.service = service;
+			this.venue = venue;
+			this.repository = repository;
+		}
+
+		private SimulationReport execute() {
+			int capacity = venue.remainingSeats();
+			report.capacity(capacity);
+			schedule(ARRIVE, 0, 0);
+			long start = System.nanoTime();
+			while (!events.isEmpty()) {
+				Event event = events.poll();
+				clock.advanceTo(event.time);
+				switch (event.type) {
+				case ARRIVE:
+					arrive(event);
+					break;
+				case RESERVE:
+					reserve(event);
+					break;
+				case EXPIRE:
+					expire(event);
+					break;
+				default:
+					throw new IllegalStateException(String.format("unknown event %s", event.type));
+				}
+			}
+			report.elapsed(clock.nanos(), System.nanoTime() - start);
+			checkLeaks(capacity);
+			return report.build();
+		}
+
+		private void arrive(Event event) {
+			int customer = event.customer;
+			// every draw happens whatever the outcome, so traffic never depends on
+			// the service under test
+			long nextArrival = (long) (-Math.log(1 - random.nextDouble()) / profile.getArrivalsPerSecond()
+					* NANOS_PER_SECOND);
+			int numSeats = profile.getMinSeats() + random.nextInt(profile.getMaxSeats() - profile.getMinSeats() + 1);
+			boolean abandons = random.nextDouble() < profile.getAbandonRatio();
+			long thinkNanos = (long) (-Math.log(1 - random.nextDouble()) * profile.getMeanThinkTime().toNanos());
+			if (customer + 1 < profile.getCustomers()) {
+				schedule(ARRIVE, clock.nanos() + nextArrival, customer + 1);
+			}
+			long start = System.nanoTime();
+			SeatHold result = service.findAndHoldSeats(numSeats, email(customer));
+			report.holdLatency().record(System.nanoTime() - start);
+			if (!(result instanceof SuccessfulHold)) {
+				report.failedHold();
+				report.fingerprint(customer, -1);
+				return;
+			}
+			SuccessfulHold hold = (SuccessfulHold) result;
+			report.held(hold.seatCount());
+			report.fingerprint(customer, hold.seatAt(0));
+			heldSeats += hold.seatCount();
+			report.peakHeld(heldSeats);
+			// the deadline is the last instant the hold is valid
+			long expiry = clock.nanos() + holdLimitNanos + 1;
+			Event next;
+			if (abandons) {
+				next = schedule(EXPIRE, expiry, customer);
+			} else if (thinkNanos <= holdLimitNanos) {
+				next = schedule(RESERVE, clock.nanos() + thinkNanos, customer);
+			} else {
+				next = schedule(EXPIRE, expiry, customer);
+				next.late = true;
+			}
+			next.hold = hold;
+			next.expiry = expiry;
+		}
+
+		private void reserve(Event event) {
+			SuccessfulHold hold = event.hold;
+			long start = System.nanoTime();
+			try {
+				service.reserveSeats(hold.getSeatHoldId(), email(event.customer));
+			} catch (IllegalArgumentException | IllegalStateException e) {
+				LOG.error("Customer {} failed to reserve hold {}", event.customer, hold.getSeatHoldId(), e);
+				report.reserveFailed();
+				// still held by the service, so let it expire
+				Event expire = schedule(EXPIRE, event.expiry, event.customer);
+				expire.hold = hold;
+				expire.expiry = event.expiry;
+				return;
+			} finally {
+				report.reserveLatency().record(System.nanoTime() - start);
+			}
+			for (int i = 0; i < hold.seatCount(); i++) {
+				if (reserved.get(hold.seatAt(i))) {
+					report.leak(String.format("seat %s was reserved twice", hold.seatAt(i)));
+				}
+				reserved.set(hold.seatAt(i));
+			}
+			heldSeats -= hold.seatCount();
+			report.reserved(hold.seatCount());
+			report.fingerprint(event.customer, -2);
+		}
+
+		private void expire(Event event) {
+			// the hold is past its deadline, so counting seats lets the service
+			// expire it
+			long start = System.nanoTime();
+			service.numSeatsAvailable();
+			report.expiryLatency().record(System.nanoTime() - start);
+			heldSeats -= event.hold.seatCount();
+			report.expired(event.late);
+		}
+
+		private void checkLeaks(int capacity) {
+			int expected = capacity - reserved.cardinality();
+			if (venue.remainingSeats() != expected) {
+				report.leak(String.format("venue has %s seats available, expected %s", venue.remainingSeats(),
+						expected));
+			}
+			if (service.numSeatsAvailable() != expected) {
+				report.leak(String.format("service reports %s seats available, expected %s",
+						service.numSeatsAvailable(), expected));
+			}
+			if (service.estimateSeatsAvailable() != expected) {
+				report.leak(String.format("service estimates %s seats available, expected %s",
+						service.estimateSeatsAvailable(), expected));
+			}
+			List<String> holders = new ArrayList<>();
+			for (int customer = 0; customer < profile.getCustomers(); customer++) {
+				if (!repository.getByEmail(email(customer)).isEmpty()) {
+					holders.add(email(customer));
+				}
+			}
+			if (!holders.isEmpty()) {
+				report.leak(String.format("%s customers still hold seats, first %s", holders.size(), holders.get(0)));
+			}
+		}
+
+		private Event schedule(int type, long time, int customer) {
+			Event event = new Event(type, time, sequence++, customer);
+			events.add(event);
+			return event;
+		}
+	}
+
+	/**
+	 * Something a customer does at a point in virtual time. Ties run in the
+	 * order they were scheduled.
+	 */
+	private static final class Event {
+
+		private final int type;
+
+		private final long time;
+
+		private final long sequence;
+
+		private final int customer;
+
+		private SuccessfulHold hold;
+
+		private long expiry;
+
+		private boolean late;
+
+		private Event(int type, long time, long sequence, int customer) {
+			this.type = type;
+			this.time = time;
+			this.sequence = sequence;
+			this.customer = customer;
+		}
+	}
+}
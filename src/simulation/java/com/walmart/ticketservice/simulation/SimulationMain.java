@@ -0,0 +1,132 @@
+package com.walmart.ticketservice.simulation;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.model.impl.AtomicSeatVenue;
+import com.walmart.ticketservice.model.impl.BitSetSeatVenue;
+import com.walmart.ticketservice.model.impl.ContiguousSeatVenue;
+import com.walmart.ticketservice.model.impl.LowestSeatPrefenceVenue;
+import com.walmart.ticketservice.repo.SuccessfulHoldRepository;
+import com.walmart.ticketservice.repo.impl.HoldRepoNoPersistence;
+import com.walmart.ticketservice.repo.impl.OffHeapHoldRepository;
+import com.walmart.ticketservice.repo.impl.StripedHoldRepository;
+import com.walmart.ticketservice.service.EventLoopTicketService;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+/**
+ * Runs one simulation and prints its report, exiting with status 1 if a leak
+ * was found.
+ * <p>
+ * Usage: {@code SimulationMain [key=value ...]} where the keys are venue
+ * (lowest, atomic, bitset, contiguous), capacity, repository (noPersistence,
+ * striped, offHeap), service (serial, concurrent, eventLoop), seed, customers,
+ * rate, minSeats, maxSeats, abandon, thinkMs and holdLimitMs.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class SimulationMain {
+
+	private static final int SEATS_PER_ROW = 50;
+
+	private SimulationMain() {
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			int split = arg.indexOf('=');
+			if (split <= 0) {
+				System.err.println("usage: SimulationMain [key=value ...]");
+				System.exit(1);
+			}
+			options.put(arg.substring(0, split), arg.substring(split + 1));
+		}
+		TrafficProfile.Builder profile = TrafficProfile.builder();
+		if (options.containsKey("seed")) {
+			profile.seed(Long.parseLong(options.get("seed")));
+		}
+		if (options.containsKey("customers")) {
+			profile.customers(Integer.parseInt(options.get("customers")));
+		}
+		if (options.containsKey("rate")) {
+			profile.arrivalsPerSecond(Double.parseDouble(options.get("rate")));
+		}
+		profile.seats(Integer.parseInt(options.getOrDefault("minSeats", "1")),
+				Integer.parseInt(options.getOrDefault("maxSeats", "4")));
+		if (options.containsKey("abandon")) {
+			profile.abandonRatio(Double.parseDouble(options.get("abandon")));
+		}
+		if (options.containsKey("thinkMs")) {
+			profile.meanThinkTime(Duration.ofMillis(Long.parseLong(options.get("thinkMs"))));
+		}
+		if (options.containsKey("holdLimitMs")) {
+			profile.holdLimit(Duration.ofMillis(Long.parseLong(options.get("holdLimitMs"))));
+		}
+		int capacity = Integer.parseInt(options.getOrDefault("capacity", "20000"));
+		Venue venue = venue(options.getOrDefault("venue", "lowest"), capacity);
+		SuccessfulHoldRepository repository = repository(options.getOrDefault("repository", "noPersistence"),
+				capacity);
+		TrafficProfile traffic = profile.build();
+		Simulation simulation = new Simulation(traffic);
+		// deadlines in virtual time, so the service expires holds itself once the
+		// simulation moves past them
+		TicketServiceImpl.Builder builder = TicketServiceImpl.builder(venue, traffic.getHoldLimit(), repository)
+				.timeSource(simulation.clock());
+		String service = options.getOrDefault("service", "serial");
+		SimulationReport report;
+		switch (service) {
+		case "serial":
+			report = simulation.run(builder.build(), venue, repository);
+			break;
+		case "concurrent":
+			report = simulation.run(builder.concurrent(true).build(), venue, repository);
+			break;
+		case "eventLoop":
+			EventLoopTicketService loop = new EventLoopTicketService(builder, 1024);
+			try {
+				report = simulation.run(loop, venue, repository);
+			} finally {
+				loop.close();
+			}
+			break;
+		default:
+			throw new IllegalArgumentException(String.format("unknown service type %s", service));
+		}
+		System.out.print(report);
+		if (!report.getLeaks().isEmpty()) {
+			System.exit(1);
+		}
+	}
+
+	private static Venue venue(String type, int capacity) {
+		switch (type) {
+		case "lowest":
+			return new LowestSeatPrefenceVenue(capacity);
+		case "atomic":
+			return new AtomicSeatVenue(capacity);
+		case "bitset":
+			return new BitSetSeatVenue(capacity);
+		case "contiguous":
+			return new ContiguousSeatVenue(Math.max(1, capacity / SEATS_PER_ROW), SEATS_PER_ROW, true);
+		default:
+			throw new IllegalArgumentException(String.format("unknown venue type %s", type));
+		}
+	}
+
+	private static SuccessfulHoldRepository repository(String type, int capacity) {
+		switch (type) {
+		case "noPersistence":
+			return new HoldRepoNoPersistence();
+		case "striped":
+			return new StripedHoldRepository();
+		case "offHeap":
+			// no hold needs more slots than it has seats, so this never fills
+			return new OffHeapHoldRepository(capacity + 1);
+		default:
+			throw new IllegalArgumentException(String.format("unknown repository type %s", type));
+		}
+	}
+}
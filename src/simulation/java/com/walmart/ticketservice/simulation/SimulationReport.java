@@ -0,0 +1,312 @@
+package com.walmart.ticketservice.simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.walmart.ticketservice.metrics.LatencyHistogram;
+
+/**
+ * Outcome of a {@link Simulation}: counts of what customers did, seat
+ * utilization, wall clock latency of each kind of call and any leaks found.
+ * The fingerprint covers every hold outcome in order, so two runs of the same
+ * profile against equivalent services report the same fingerprint.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class SimulationReport {
+
+	private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+	private final TrafficProfile profile;
+
+	private final int capacity;
+
+	private final long virtualNanos;
+
+	private final long wallNanos;
+
+	private final long holds;
+
+	private final long failedHolds;
+
+	private final long reservations;
+
+	private final long failedReservations;
+
+	private final long abandoned;
+
+	private final long late;
+
+	private final long heldSeats;
+
+	private final long reservedSeats;
+
+	private final long peakHeldSeats;
+
+	private final LatencyHistogram holdLatency;
+
+	private final LatencyHistogram reserveLatency;
+
+	private final LatencyHistogram expiryLatency;
+
+	private final long fingerprint;
+
+	private final List<String> leaks;
+
+	private SimulationReport(Builder builder) {
+		this.profile = builder.profile;
+		this.capacity = builder.capacity;
+		this.virtualNanos = builder.virtualNanos;
+		this.wallNanos = builder.wallNanos;
+		this.holds = builder.holds;
+		this.failedHolds = builder.failedHolds;
+		this.reservations = builder.reservations;
+		this.failedReservations = builder.failedReservations;
+		this.abandoned = builder.abandoned;
+		this.late = builder.late;
+		this.heldSeats = builder.heldSeats;
+		this.reservedSeats = builder.reservedSeats;
+		this.peakHeldSeats = builder.peakHeldSeats;
+		this.holdLatency = builder.holdLatency;
+		this.reserveLatency = builder.reserveLatency;
+		this.expiryLatency = builder.expiryLatency;
+		this.fingerprint = builder.fingerprint;
+		this.leaks = Collections.unmodifiableList(new ArrayList<>(builder.leaks));
+	}
+
+	public TrafficProfile getProfile() {
+		return profile;
+	}
+
+	/**
+	 * @return successful holds.
+	 */
+	public long getHolds() {
+		return holds;
+	}
+
+	/**
+	 * @return holds that returned a FailedHold.
+	 */
+	public long getFailedHolds() {
+		return failedHolds;
+	}
+
+	/**
+	 * @return holds reserved.
+	 */
+	public long getReservations() {
+		return reservations;
+	}
+
+	/**
+	 * @return reservations the service refused.
+	 */
+	public long getFailedReservations() {
+		return failedReservations;
+	}
+
+	/**
+	 * @return holds that expired because the customer walked away.
+	 */
+	public long getAbandoned() {
+		return abandoned;
+	}
+
+	/**
+	 * @return holds that expired because the customer took too long.
+	 */
+	public long getLate() {
+		return late;
+	}
+
+	/**
+	 * @return reserved seats as a fraction of the venue.
+	 */
+	public double getUtilization() {
+		return capacity == 0 ? 0 : (double) reservedSeats / capacity;
+	}
+
+	/**
+	 * @return most seats held but not reserved at one time, as a fraction of the
+	 *         venue.
+	 */
+	public double getPeakHeldFraction() {
+		return capacity == 0 ? 0 : (double) peakHeldSeats / capacity;
+	}
+
+	/**
+	 * @return calls to the service per second of wall clock time.
+	 */
+	public double getThroughput() {
+		long calls = holdLatency.count() + reserveLatency.count() + expiryLatency.count();
+		return wallNanos == 0 ? 0 : calls / (wallNanos / NANOS_PER_SECOND);
+	}
+
+	public long getVirtualNanos() {
+		return virtualNanos;
+	}
+
+	public long getWallNanos() {
+		return wallNanos;
+	}
+
+	public LatencyHistogram getHoldLatency() {
+		return holdLatency;
+	}
+
+	public LatencyHistogram getReserveLatency() {
+		return reserveLatency;
+	}
+
+	public LatencyHistogram getExpiryLatency() {
+		return expiryLatency;
+	}
+
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * @return a description of every leak found, empty if none.
+	 */
+	public List<String> getLeaks() {
+		return leaks;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder out = new StringBuilder();
+		out.append(String.format("profile      %s%n", profile));
+		out.append(String.format("time         %.1fs virtual, %.3fs wall%n", virtualNanos / NANOS_PER_SECOND,
+				wallNanos / NANOS_PER_SECOND));
+		out.append(String.format("holds        %s ok, %s failed, %s seats%n", holds, failedHolds, heldSeats));
+		out.append(String.format("outcomes     %s reserved, %s refused, %s abandoned, %s late%n", reservations,
+				failedReservations, abandoned, late));
+		out.append(String.format("seats        %s of %s reserved (%.1f%%), peak held %.1f%%%n", reservedSeats,
+				capacity, getUtilization() * 100, getPeakHeldFraction() * 100));
+		out.append(String.format("throughput   %.0f calls/s%n", getThroughput()));
+		appendLatency(out, "hold", holdLatency);
+		appendLatency(out, "reserve", reserveLatency);
+		appendLatency(out, "expiry", expiryLatency);
+		out.append(String.format("fingerprint  %016x%n", fingerprint));
+		out.append(String.format("leaks        %s%n", leaks.isEmpty() ? "none" : String.join("; ", leaks)));
+		return out.toString();
+	}
+
+	private static void appendLatency(StringBuilder out, String name, LatencyHistogram histogram) {
+		out.append(String.format("%-12s p50 %dns, p99 %dns, p99.9 %dns, max %dns (%s calls)%n", name,
+				histogram.valueAtPercentile(50), histogram.valueAtPercentile(99),
+				histogram.valueAtPercentile(99.9), histogram.max(), histogram.count()));
+	}
+
+	/**
+	 * Accumulates a report while a simulation runs.
+	 */
+	static final class Builder {
+
+		private final TrafficProfile profile;
+
+		private final LatencyHistogram holdLatency = new LatencyHistogram();
+
+		private final LatencyHistogram reserveLatency = new LatencyHistogram();
+
+		private final LatencyHistogram expiryLatency = new LatencyHistogram();
+
+		private final List<String> leaks = new ArrayList<>();
+
+		private int capacity;
+
+		private long virtualNanos;
+
+		private long wallNanos;
+
+		private long holds;
+
+		private long failedHolds;
+
+		private long reservations;
+
+		private long failedReservations;
+
+		private long abandoned;
+
+		private long late;
+
+		private long heldSeats;
+
+		private long reservedSeats;
+
+		private long peakHeldSeats;
+
+		private long fingerprint = 17;
+
+		Builder(TrafficProfile profile) {
+			this.profile = profile;
+		}
+
+		void capacity(int capacity) {
+			this.capacity = capacity;
+		}
+
+		void elapsed(long virtualNanos, long wallNanos) {
+			this.virtualNanos = virtualNanos;
+			this.wallNanos = wallNanos;
+		}
+
+		void held(int seats) {
+			holds++;
+			heldSeats += seats;
+		}
+
+		void failedHold() {
+			failedHolds++;
+		}
+
+		void reserved(int seats) {
+			reservations++;
+			reservedSeats += seats;
+		}
+
+		void reserveFailed() {
+			failedReservations++;
+		}
+
+		void expired(boolean wasLate) {
+			if (wasLate) {
+				late++;
+			} else {
+				abandoned++;
+			}
+		}
+
+		void peakHeld(long held) {
+			peakHeldSeats = Math.max(peakHeldSeats, held);
+		}
+
+		void fingerprint(int customer, int outcome) {
+			fingerprint = (fingerprint * 31 + customer) * 31 + outcome;
+		}
+
+		void leak(String description) {
+			leaks.add(description);
+		}
+
+		LatencyHistogram holdLatency() {
+			return holdLatency;
+		}
+
+		LatencyHistogram reserveLatency() {
+			return reserveLatency;
+		}
+
+		LatencyHistogram expiryLatency() {
+			return expiryLatency;
+		}
+
+		SimulationReport build() {
+			return new SimulationReport(this);
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package com.walmart.ticketservice.simulation;
+
+import java.time.Duration;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The traffic a {@link Simulation} replays: how many customers arrive and how
+ * fast, how many seats each wants, how many walk away from their hold and how
+ * long the rest take to reserve. Every random choice is drawn from the seed, so
+ * a profile always produces the same traffic.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class TrafficProfile {
+
+	private final long seed;
+
+	private final int customers;
+
+	private final double arrivalsPerSecond;
+
+	private final int minSeats;
+
+	private final int maxSeats;
+
+	private final double abandonRatio;
+
+	private final Duration meanThinkTime;
+
+	private final Duration holdLimit;
+
+	private TrafficProfile(Builder builder) {
+		this.seed = builder.seed;
+		this.customers = builder.customers;
+		this.arrivalsPerSecond = builder.arrivalsPerSecond;
+		this.minSeats = builder.minSeats;
+		this.maxSeats = builder.maxSeats;
+		this.abandonRatio = builder.abandonRatio;
+		this.meanThinkTime = builder.meanThinkTime;
+		this.holdLimit = builder.holdLimit;
+	}
+
+	/**
+	 * @return a builder starting from 10,000 customers arriving at 1,000 per
+	 *         second for 1 to 4 seats, a quarter abandoning, the rest taking 30
+	 *         seconds on average against a two minute hold limit.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getCustomers() {
+		return customers;
+	}
+
+	public double getArrivalsPerSecond() {
+		return arrivalsPerSecond;
+	}
+
+	public int getMinSeats() {
+		return minSeats;
+	}
+
+	public int getMaxSeats() {
+		return maxSeats;
+	}
+
+	public double getAbandonRatio() {
+		return abandonRatio;
+	}
+
+	public Duration getMeanThinkTime() {
+		return meanThinkTime;
+	}
+
+	public Duration getHoldLimit() {
+		return holdLimit;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"seed=%s customers=%s rate=%s/s seats=%s..%s abandon=%s think=%sms holdLimit=%sms", seed,
+				customers, arrivalsPerSecond, minSeats, maxSeats, abandonRatio, meanThinkTime.toMillis(),
+				holdLimit.toMillis());
+	}
+
+	/**
+	 * Configures a TrafficProfile.
+	 *
+	 * @author John McCaulley jmccaull@gmu.edu
+	 */
+	public static final class Builder {
+
+		private long seed = 1;
+
+		private int customers = 10_000;
+
+		private double arrivalsPerSecond = 1_000;
+
+		private int minSeats = 1;
+
+		private int maxSeats = 4;
+
+		private double abandonRatio = 0.25;
+
+		private Duration meanThinkTime = Duration.ofSeconds(30);
+
+		private Duration holdLimit = Duration.ofMinutes(2);
+
+		private Builder() {
+		}
+
+		/**
+		 * @param seed drives every random choice
+		 * @return this builder
+		 */
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * @param customers number of arrivals, must be > 0
+		 * @throws IllegalArgumentException if customers <= 0
+		 * @return this builder
+		 */
+		public Builder customers(int customers) {
+			Preconditions.checkArgument(customers > 0, String.format("customers must be > 0, %s supplied", customers));
+			this.customers = customers;
+			return this;
+		}
+
+		/**
+		 * @param arrivalsPerSecond mean of the Poisson arrival process in virtual
+		 *                          time, must be > 0
+		 * @throws IllegalArgumentException if arrivalsPerSecond <= 0
+		 * @return this builder
+		 */
+		public Builder arrivalsPerSecond(double arrivalsPerSecond) {
+			Preconditions.checkArgument(arrivalsPerSecond > 0,
+					String.format("arrivalsPerSecond must be > 0, %s supplied", arrivalsPerSecond));
+			this.arrivalsPerSecond = arrivalsPerSecond;
+			return this;
+		}
+
+		/**
+		 * Each customer wants a uniformly chosen number of seats.
+		 *
+		 * @param minSeats must be > 0
+		 * @param maxSeats must be >= minSeats
+		 * @throws IllegalArgumentException if the range is empty or not positive.
+		 * @return this builder
+		 */
+		public Builder seats(int minSeats, int maxSeats) {
+			Preconditions.checkArgument(minSeats > 0 && maxSeats >= minSeats,
+					String.format("seats must be a positive range, %s..%s supplied", minSeats, maxSeats));
+			this.minSeats = minSeats;
+			this.maxSeats = maxSeats;
+			return this;
+		}
+
+		/**
+		 * @param abandonRatio fraction of customers that never reserve their hold,
+		 *                     between 0 and 1
+		 * @throws IllegalArgumentException if abandonRatio is out of range.
+		 * @return this builder
+		 */
+		public Builder abandonRatio(double abandonRatio) {
+			Preconditions.checkArgument(abandonRatio >= 0 && abandonRatio <= 1,
+					String.format("abandonRatio must be between 0 and 1, %s supplied", abandonRatio));
+			this.abandonRatio = abandonRatio;
+			return this;
+		}
+
+		/**
+		 * @param meanThinkTime mean of the exponential time customers who do not
+		 *                      abandon take to reserve, can not be null or
+		 *                      negative. Customers slower than the hold limit
+		 *                      find their hold expired.
+		 * @throws NullPointerException     if meanThinkTime is null.
+		 * @throws IllegalArgumentException if meanThinkTime is negative.
+		 * @return this builder
+		 */
+		public Builder meanThinkTime(Duration meanThinkTime) {
+			Preconditions.checkArgument(!meanThinkTime.isNegative(), "meanThinkTime can not be negative");
+			this.meanThinkTime = meanThinkTime;
+			return this;
+		}
+
+		/**
+		 * @param holdLimit how long a hold lasts in virtual time, must be positive
+		 * @throws NullPointerException     if holdLimit is null.
+		 * @throws IllegalArgumentException if holdLimit is not positive.
+		 * @return this builder
+		 */
+		public Builder holdLimit(Duration holdLimit) {
+			Preconditions.checkArgument(!holdLimit.isNegative() && !holdLimit.isZero(), "holdLimit must be positive");
+			this.holdLimit = holdLimit;
+			return this;
+		}
+
+		public TrafficProfile build() {
+			return new TrafficProfile(this);
+		}
+	}
+}
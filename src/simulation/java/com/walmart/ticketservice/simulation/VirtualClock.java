@@ -0,0 +1,46 @@
+package com.walmart.ticketservice.simulation;
+
+import java.time.Instant;
+
+import com.google.common.base.Preconditions;
+import com.walmart.ticketservice.model.TimeSource;
+import com.walmart.ticketservice.model.impl.EpochNanos;
+
+/**
+ * Simulated time, moved forward only by the event loop of a
+ * {@link Simulation}. Starts at a fixed instant so runs are reproducible.
+ * Services built with it as their TimeSource keep their hold deadlines in
+ * simulated time. Only the event loop may move it; any thread may read it.
+ *
+ * @author John McCaulley jmccaull@gmu.edu
+ */
+public final class VirtualClock implements TimeSource {
+
+	private static final Instant EPOCH = Instant.parse("2018-01-01T00:00:00Z");
+
+	private static final long EPOCH_NANOS = EpochNanos.of(EPOCH);
+
+	private volatile long nanos;
+
+	/**
+	 * @return nanoseconds since the simulation started.
+	 */
+	public long nanos() {
+		return nanos;
+	}
+
+	@Override
+	public long epochNanos() {
+		return EPOCH_NANOS + nanos;
+	}
+
+	/**
+	 * @param nanos time to move to, can not be earlier than now
+	 * @throws IllegalArgumentException if nanos is in the past.
+	 */
+	void advanceTo(long nanos) {
+		Preconditions.checkArgument(nanos >= this.nanos,
+				String.format("can not move back from %s to %s", this.nanos, nanos));
+		this.nanos = nanos;
+	}
+}
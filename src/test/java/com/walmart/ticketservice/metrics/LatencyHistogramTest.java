@@ -0,0 +1,48 @@
+package com.walmart.ticketservice.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+	@Test
+	void shouldBoundEveryValueByItsBucket() {
+		Random random = new Random(7);
+		for (int i = 0; i < 100_000; i++) {
+			long value = (random.nextLong() >>> 1) >>> random.nextInt(Long.SIZE - 1);
+			int bucket = LatencyHistogram.bucket(value);
+			long highest = LatencyHistogram.highestValue(bucket);
+			assertTrue(value <= highest, () -> String.format("%s above bucket %s", value, bucket));
+			assertTrue(highest - value <= value / 32, () -> String.format("%s imprecise", value));
+			assertTrue(bucket == 0 || LatencyHistogram.highestValue(bucket - 1) < value);
+		}
+	}
+
+	@Test
+	void shouldReportPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long value = 1; value <= 1000; value++) {
+			histogram.record(value * 1000);
+		}
+		assertAll(() -> assertEquals(1000, histogram.count()),
+				() -> assertEquals(1_000_000, histogram.max()),
+				() -> assertEquals(500_500, histogram.mean(), 0.001),
+				() -> assertEquals(500_000, histogram.valueAtPercentile(50), 500_000 / 32),
+				() -> assertEquals(990_000, histogram.valueAtPercentile(99), 990_000 / 32),
+				() -> assertEquals(1_000_000, histogram.valueAtPercentile(100)),
+				() -> assertThrows(IllegalArgumentException.class, () -> histogram.valueAtPercentile(101)));
+	}
+
+	@Test
+	void shouldReportZeroWhenEmpty() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertAll(() -> assertEquals(0, histogram.count()), () -> assertEquals(0, histogram.valueAtPercentile(99)),
+				() -> assertEquals(0.0, histogram.mean()));
+	}
+}
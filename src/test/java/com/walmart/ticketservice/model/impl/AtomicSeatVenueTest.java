@@ -0,0 +1,90 @@
+package com.walmart.ticketservice.model.impl;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.walmart.ticketservice.model.Venue;
+
+class AtomicSeatVenueTest {
+
+	private final static int VENUE_SIZE = 130;
+
+	private Venue venue;
+
+	@BeforeEach
+	void initVenue() {
+		venue = new AtomicSeatVenue(VENUE_SIZE);
+	}
+
+	@Test
+	void reservesCorrectSeats() {
+		int[] seats = venue.getNSeats(VENUE_SIZE * 2);
+		assertTrue(seats.length == VENUE_SIZE);
+		assertTrue(venue.remainingSeats() == 0);
+		assertTrue(venue.getNSeats(1).length == 0);
+		venue.releaseSeats(seats);
+		assertTrue(venue.remainingSeats() == VENUE_SIZE);
+	}
+
+	@Test
+	void shouldPreferLowestSeats() {
+		int[] seats = venue.getNSeats(70);
+		assertAll(() -> assertEquals(1, seats[0]), () -> assertEquals(70, seats[69]));
+		venue.releaseSeats(new int[] { 65, 2 });
+		assertArrayEquals(new int[] { 2, 65, 71 }, venue.getNSeats(3));
+	}
+
+	@Test
+	void shouldListAvailableSeats() {
+		venue.getNSeats(70);
+		venue.releaseSeats(new int[] { 65, 2 });
+		BitSet expected = new BitSet();
+		expected.set(2);
+		expected.set(65);
+		expected.set(71, VENUE_SIZE + 1);
+		assertEquals(expected, venue.availableSeats());
+	}
+
+	@Test
+	void shouldReleaseAll() {
+		int[] first = venue.getNSeats(70);
+		int[] second = venue.getNSeats(3);
+		venue.releaseAll(Arrays.asList(second, new int[] { 65, 2 }));
+		assertEquals(VENUE_SIZE - 68, venue.remainingSeats());
+		Throwable e = assertThrows(IllegalArgumentException.class,
+				() -> venue.releaseAll(Arrays.asList(new int[] { first[0] }, new int[] { first[0] })));
+		assertEquals("supplied seat 1 never issued, can not return", e.getMessage());
+		assertArrayEquals(new int[] { 2, 65, 71 }, venue.getNSeats(3));
+	}
+
+	@Test
+	void shouldThrowExcpetion() {
+		Throwable e = assertThrows(IllegalArgumentException.class, () -> venue.releaseSeats(new int[] { 3 }));
+		assertEquals("supplied seat 3 never issued, can not return", e.getMessage());
+		int[] seats = venue.getNSeats(1);
+		venue.releaseSeats(seats);
+		Throwable e2 = assertThrows(IllegalArgumentException.class, () -> venue.releaseSeats(seats));
+		assertEquals("supplied seat 1 never issued, can not return", e2.getMessage());
+	}
+
+	@Test
+	void shouldKeepSeatsWhenReleaseFails() {
+		venue.getNSeats(70);
+		Throwable e = assertThrows(IllegalArgumentException.class, () -> venue.releaseSeats(new int[] { 1, 65, 1 }));
+		assertAll(() -> assertEquals("supplied seat 1 never issued, can not return", e.getMessage()),
+				() -> assertEquals(VENUE_SIZE - 70, venue.remainingSeats()),
+				() -> assertEquals(71, venue.availableSeats().nextSetBit(0)));
+		venue.releaseSeats(new int[] { 65, 1 });
+		assertArrayEquals(new int[] { 1, 65, 71 }, venue.getNSeats(3));
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.walmart.ticketservice.model.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.walmart.ticketservice.model.Venue;
+
+class BitSetSeatVenueTest {
+
+	private final static int VENUE_SIZE = 200;
+
+	private Venue venue;
+
+	@BeforeEach
+	void initVenue() {
+		venue = new BitSetSeatVenue(VENUE_SIZE);
+	}
+
+	@Test
+	void reservesCorrectSeats() {
+		int[] seats = venue.getNSeats(VENUE_SIZE + 1);
+		assertTrue(seats.length == VENUE_SIZE);
+		assertTrue(venue.remainingSeats() == 0);
+		venue.releaseSeats(seats);
+		assertTrue(venue.remainingSeats() == VENUE_SIZE);
+	}
+
+	@Test
+	void shouldReturnLowestSeats() {
+		int[] seats = venue.getNSeats(150);
+		assertArrayEquals(new int[] { 1, 2, 3 }, new int[] { seats[0], seats[1], seats[2] });
+		venue.releaseSeats(new int[] { 130, 2, 70 });
+		assertArrayEquals(new int[] { 2, 70, 130, 151 }, venue.getNSeats(4));
+	}
+
+	@Test
+	void shouldThrowExcpetion() {
+		Throwable e = assertThrows(IllegalArgumentException.class, () -> venue.releaseSeats(new int[] { 3 }));
+		assertEquals("supplied seat 3 never issued, can not return", e.getMessage());
+		venue.getNSeats(5);
+		Throwable e2 = assertThrows(IllegalArgumentException.class, () -> venue.releaseSeats(new int[] { 4, 4 }));
+		assertEquals("supplied seat 4 never issued, can not return", e2.getMessage());
+		assertEquals(VENUE_SIZE - 5, venue.remainingSeats());
+	}
+
+}
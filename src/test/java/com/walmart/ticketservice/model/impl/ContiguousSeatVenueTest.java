@@ -0,0 +1,48 @@
+package com.walmart.ticketservice.model.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.walmart.ticketservice.model.Venue;
+
+class ContiguousSeatVenueTest {
+
+	private static final int ROWS = 3;
+
+	private static final int SEATS_PER_ROW = 5;
+
+	@Test
+	void shouldKeepGroupsInOneRow() {
+		Venue venue = new ContiguousSeatVenue(ROWS, SEATS_PER_ROW, false);
+		assertArrayEquals(new int[] { 1, 2, 3 }, venue.getNSeats(3));
+		// only 2 left in the first row, the group moves to the second
+		assertArrayEquals(new int[] { 6, 7, 8 }, venue.getNSeats(3));
+		assertArrayEquals(new int[] { 4, 5 }, venue.getNSeats(2));
+		venue.releaseSeats(new int[] { 2, 7 });
+		assertArrayEquals(new int[] { 11, 12, 13, 14 }, venue.getNSeats(4));
+		assertArrayEquals(new int[] { 2 }, venue.getNSeats(1));
+	}
+
+	@Test
+	void shouldFallBackToScatteredSeats() {
+		Venue together = new ContiguousSeatVenue(ROWS, SEATS_PER_ROW, false);
+		assertEquals(0, together.getNSeats(SEATS_PER_ROW + 1).length);
+		assertEquals(ROWS * SEATS_PER_ROW, together.remainingSeats());
+		Venue scattered = new ContiguousSeatVenue(ROWS, SEATS_PER_ROW, true);
+		int[] seats = scattered.getNSeats(SEATS_PER_ROW + 1);
+		assertArrayEquals(new int[] { 1, 2, 3, 4, 5, 6 }, seats);
+		assertTrue(scattered.remainingSeats() == ROWS * SEATS_PER_ROW - seats.length);
+	}
+
+	@Test
+	void shouldThrowExcpetion() {
+		Venue venue = new ContiguousSeatVenue(ROWS, SEATS_PER_ROW, true);
+		Throwable e = assertThrows(IllegalArgumentException.class, () -> venue.releaseSeats(new int[] { 3 }));
+		assertEquals("supplied seat 3 never issued, can not return", e.getMessage());
+	}
+
+}
@@ -5,6 +5,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.BitSet;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -29,7 +31,8 @@ class LowestSeatVenueTest {
 		venue.releaseSeats(seats);
 		assertTrue(venue.remainingSeats() == VENUE_SIZE);
 		seats = venue.getNSeats(10);
-		assertTrue(venue.remainingSeats() == VENUE_SIZE);
+		assertTrue(seats.length == VENUE_SIZE);
+		assertTrue(venue.remainingSeats() == 0);
 	}
 
 	@Test
@@ -43,10 +46,30 @@ class LowestSeatVenueTest {
 				() -> assertTrue(moreSeats[2] == 5));
 	}
 
+	@Test
+	void shouldListAvailableSeats() {
+		venue.getNSeats(4);
+		venue.releaseSeats(new int[] { 2 });
+		BitSet expected = new BitSet();
+		expected.set(2);
+		expected.set(5, VENUE_SIZE + 1);
+		assertEquals(expected, venue.availableSeats());
+	}
+
 	@Test
 	void shouldThrowExcpetion() {
 		Throwable e = assertThrows(IllegalArgumentException.class, () -> venue.releaseSeats(new int[] { 3 }));
 		assertEquals("supplied seat 3 never issued, can not return", e.getMessage());
 	}
 
+	@Test
+	void shouldRejectRepeatedSeats() {
+		venue.getNSeats(4);
+		Throwable e = assertThrows(IllegalArgumentException.class, () -> venue.releaseSeats(new int[] { 1, 3, 3 }));
+		assertAll(() -> assertEquals("supplied seat 3 never issued, can not return", e.getMessage()),
+				// nothing was returned, so the lowest free seat is still 5
+				() -> assertEquals(VENUE_SIZE - 4, venue.remainingSeats()),
+				() -> assertEquals(5, venue.getNSeats(1)[0]));
+	}
+
 }
@@ -0,0 +1,49 @@
+package com.walmart.ticketservice.model.impl;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.walmart.ticketservice.model.TieredVenue;
+
+class ScoredSeatVenueTest {
+
+	private TieredVenue venue;
+
+	@BeforeEach
+	void initVenue() {
+		// seats 1-3 premium floor, 4-6 mid level, 7-9 cheap upper level
+		VenueLayout layout = VenueLayout.builder().addRow(0, 0, 2, 9f, 10f, 9f).addRow(1, 0, 1, 6f, 7f, 6f)
+				.addRow(2, 3, 0, 1f, 2f, 3f).build();
+		venue = new ScoredSeatVenue(layout);
+	}
+
+	@Test
+	void shouldIssueBestSeatsWithinTier() {
+		assertEquals(3, venue.remainingSeats(0));
+		assertArrayEquals(new int[] { 9, 8 }, venue.getNSeats(2, 0));
+		assertArrayEquals(new int[] { 5, 4, 6, 7 }, venue.getNSeats(4, 1));
+		assertAll(() -> assertEquals(0, venue.remainingSeats(1)), () -> assertEquals(3, venue.remainingSeats()));
+		venue.releaseSeats(new int[] { 8 });
+		assertArrayEquals(new int[] { 2, 1, 3, 8 }, venue.getNSeats(10));
+	}
+
+	@Test
+	void shouldDescribeLayout() {
+		VenueLayout layout = ((ScoredSeatVenue) venue).getLayout();
+		assertAll(() -> assertEquals(9, layout.capacity()), () -> assertEquals(3, layout.tiers()),
+				() -> assertEquals(1, layout.levelOf(5)), () -> assertEquals(3, layout.sectionOf(7)),
+				() -> assertEquals(2, layout.rowOf(9)), () -> assertEquals(2, layout.tierOf(3)));
+	}
+
+	@Test
+	void shouldThrowExcpetion() {
+		Throwable e = assertThrows(IllegalArgumentException.class, () -> venue.releaseSeats(new int[] { 3 }));
+		assertEquals("supplied seat 3 never issued, can not return", e.getMessage());
+	}
+
+}
@@ -0,0 +1,36 @@
+package com.walmart.ticketservice.model.impl;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+class SuccessfulHoldTest {
+
+	@Test
+	void shouldReadSeatsWithoutCopying() {
+		SuccessfulHold run = new SuccessfulHold(0L, new int[] { 7, 8, 9 }, 1);
+		SuccessfulHold scattered = new SuccessfulHold(0L, new int[] { 9, 3, 4 }, 2);
+		assertAll(() -> assertEquals(3, run.seatCount()), () -> assertEquals(8, run.seatAt(1)),
+				() -> assertArrayEquals(new int[] { 7, 8, 9 }, run.getSeats()),
+				() -> assertEquals(3, scattered.seatAt(1)),
+				() -> assertArrayEquals(new int[] { 9, 3, 4 }, scattered.getSeats()),
+				() -> assertThrows(IndexOutOfBoundsException.class, () -> run.seatAt(3)));
+	}
+
+	@Test
+	void shouldKeepExpirationInEpochNanos() {
+		Instant expiration = Instant.ofEpochSecond(1_500_000_000L, 123_456_789);
+		SuccessfulHold hold = new SuccessfulHold(expiration, new int[] { 1 }, 1);
+		assertAll(() -> assertEquals(expiration, hold.getExpiration()),
+				() -> assertEquals(1_500_000_000_123_456_789L, hold.getExpirationEpochNanos()),
+				() -> assertFalse(hold.isExpiredAt(expiration)),
+				() -> assertTrue(hold.isExpiredAt(expiration.plusNanos(1))));
+	}
+}
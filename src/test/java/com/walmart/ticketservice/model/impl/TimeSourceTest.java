@@ -0,0 +1,63 @@
+package com.walmart.ticketservice.model.impl;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+class TimeSourceTest {
+
+	private static final Instant START = Instant.parse("2018-01-01T00:00:00Z");
+
+	@Test
+	void shouldOnlyMoveWhenAdvanced() {
+		ManualTimeSource clock = new ManualTimeSource(START);
+		assertEquals(START, clock.instant());
+		clock.advance(Duration.ofMillis(1500));
+		assertAll(() -> assertEquals(EpochNanos.of(START) + 1_500_000_000L, clock.epochNanos()),
+				() -> assertEquals(START.plusMillis(1500), clock.instant()),
+				() -> assertThrows(IllegalArgumentException.class, () -> clock.advance(Duration.ofNanos(-1))));
+	}
+
+	@Test
+	void shouldCacheUntilTicked() {
+		ManualTimeSource source = new ManualTimeSource(START);
+		try (CoarseTimeSource coarse = new CoarseTimeSource(source, Duration.ofHours(1))) {
+			source.advance(Duration.ofMinutes(1));
+			// the ticker has not run yet, so the start is still cached
+			assertEquals(START, coarse.instant());
+		}
+		assertThrows(IllegalArgumentException.class, () -> new CoarseTimeSource(source, Duration.ZERO));
+	}
+
+	@Test
+	void shouldAdvanceEachTick() throws InterruptedException {
+		ManualTimeSource source = new ManualTimeSource(START);
+		Instant later = START.plus(Duration.ofMinutes(1));
+		try (CoarseTimeSource coarse = new CoarseTimeSource(source, Duration.ofMillis(1))) {
+			source.advance(Duration.ofMinutes(1));
+			long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+			while (!coarse.instant().equals(later) && System.nanoTime() < deadline) {
+				Thread.sleep(1);
+			}
+			assertEquals(later, coarse.instant());
+		}
+	}
+
+	@Test
+	void shouldNotGoBackwards() {
+		MonotonicTimeSource clock = MonotonicTimeSource.system();
+		long previous = clock.epochNanos();
+		for (int i = 0; i < 1000; i++) {
+			long now = clock.epochNanos();
+			assertTrue(now >= previous);
+			previous = now;
+		}
+		assertTrue(Math.abs(clock.epochNanos() - EpochNanos.now()) < Duration.ofMinutes(1).toNanos());
+	}
+}
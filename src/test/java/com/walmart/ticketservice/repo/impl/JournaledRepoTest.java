@@ -0,0 +1,208 @@
+package com.walmart.ticketservice.repo.impl;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.walmart.ticketservice.TicketService;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.model.impl.LowestSeatPrefenceVenue;
+import com.walmart.ticketservice.model.impl.ManualTimeSource;
+import com.walmart.ticketservice.model.impl.Reservation;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.repo.ReservationLedger;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+class JournaledRepoTest {
+
+	private static final int VENUE_SIZE = 100;
+
+	private static final String EMAIL_ONE = "emailOne";
+
+	private static final String EMAIL_TWO = "emailTwo";
+
+	private Path directory;
+
+	@BeforeEach
+	void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("hold-journal");
+	}
+
+	@AfterEach
+	void deleteDirectory() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+
+	@Test
+	void shouldRecoverHoldsAndSeats() throws IOException {
+		Venue venue = new LowestSeatPrefenceVenue(VENUE_SIZE);
+		Instant later = Instant.now().plus(Duration.ofDays(1));
+		// small segments force several rolls and snapshots
+		try (JournaledHoldRepository repo = JournaledHoldRepository.open(directory, new HoldRepoNoPersistence(), 128,
+				4)) {
+			for (int id = 1; id <= 20; id++) {
+				repo.add(id % 2 == 0 ? EMAIL_ONE : EMAIL_TWO, new SuccessfulHold(later, venue.getNSeats(2), id));
+			}
+			SuccessfulHold reserved = repo.getById(4, EMAIL_ONE).get();
+			assertTrue(repo.remove(EMAIL_ONE, reserved));
+			SuccessfulHold expiring = new SuccessfulHold(Instant.now(), venue.getNSeats(3), 21);
+			repo.add(EMAIL_TWO, expiring);
+			assertEquals(1, repo.drainExpired(Instant.now().plusMillis(1)).size());
+			venue.releaseSeats(expiring.getSeats());
+		}
+		try (JournaledHoldRepository recovered = JournaledHoldRepository.open(directory, new HoldRepoNoPersistence(),
+				128, 4)) {
+			Venue restored = recovered.restoreVenue(new LowestSeatPrefenceVenue(VENUE_SIZE));
+			assertAll(() -> assertEquals(venue.remainingSeats(), restored.remainingSeats()),
+					() -> assertEquals(10, recovered.getByEmail(EMAIL_TWO).size()),
+					() -> assertEquals(9, recovered.getByEmail(EMAIL_ONE).size()),
+					() -> assertFalse(recovered.getById(4, EMAIL_ONE).isPresent()),
+					() -> assertFalse(recovered.getById(21, EMAIL_TWO).isPresent()),
+					() -> assertArrayEquals(new int[] { 5, 6 }, recovered.getById(3, EMAIL_TWO).get().getSeats()),
+					() -> assertArrayEquals(venue.getNSeats(5), restored.getNSeats(5)));
+		}
+	}
+
+	@Test
+	void shouldRecoverReleasedSeats() throws IOException {
+		Instant later = Instant.now().plus(Duration.ofDays(1));
+		try (JournaledHoldRepository repo = JournaledHoldRepository.open(directory, new HoldRepoNoPersistence(), 128,
+				4)) {
+			SuccessfulHold hold = new SuccessfulHold(later, new int[] { 1, 2, 3, 4 }, 1);
+			repo.add(EMAIL_ONE, hold);
+			assertTrue(repo.replace(EMAIL_ONE, hold, hold.withoutSeats(new int[] { 2, 3 })));
+		}
+		try (JournaledHoldRepository recovered = JournaledHoldRepository.open(directory, new HoldRepoNoPersistence(),
+				128, 4)) {
+			Venue restored = recovered.restoreVenue(new LowestSeatPrefenceVenue(VENUE_SIZE));
+			assertAll(() -> assertEquals(VENUE_SIZE - 2, restored.remainingSeats()),
+					() -> assertArrayEquals(new int[] { 1, 4 }, recovered.getById(1, EMAIL_ONE).get().getSeats()),
+					() -> assertArrayEquals(new int[] { 2, 3 }, restored.getNSeats(2)));
+		}
+	}
+
+	@Test
+	void shouldIssueIdsAboveRecoveredHolds() throws IOException {
+		Instant later = Instant.now().plus(Duration.ofDays(1));
+		try (JournaledHoldRepository repo = JournaledHoldRepository.open(directory, new HoldRepoNoPersistence(), 128,
+				4)) {
+			repo.add(EMAIL_ONE, new SuccessfulHold(later, new int[] { 1, 2 }, 9));
+			repo.add(EMAIL_TWO, new SuccessfulHold(later, new int[] { 3 }, -4));
+		}
+		try (JournaledHoldRepository recovered = JournaledHoldRepository.open(directory, new HoldRepoNoPersistence(),
+				128, 4)) {
+			Venue venue = recovered.restoreVenue(new LowestSeatPrefenceVenue(VENUE_SIZE));
+			TicketService service = TicketServiceImpl.builder(venue, Duration.ofMinutes(1), recovered).build();
+			assertEquals(10, ((SuccessfulHold) service.findAndHoldSeats(2, EMAIL_TWO)).getSeatHoldId());
+			// an id that is taken fails the hold without keeping its seats
+			TicketService colliding = TicketServiceImpl.builder(venue, Duration.ofMinutes(1), recovered)
+					.holdIds(() -> 9).build();
+			assertThrows(IllegalArgumentException.class, () -> colliding.findAndHoldSeats(2, EMAIL_TWO));
+			assertEquals(VENUE_SIZE - 5, venue.remainingSeats());
+		}
+	}
+
+	@Test
+	void shouldForceEventsThatWaitedTooLong() throws IOException, InterruptedException {
+		Instant later = Instant.now().plus(Duration.ofDays(1));
+		try (JournaledHoldRepository repo = JournaledHoldRepository.open(directory, new HoldRepoNoPersistence(), 4096,
+				100, Duration.ofMillis(200))) {
+			repo.add(EMAIL_ONE, new SuccessfulHold(later, new int[] { 1 }, 1));
+			repo.drainExpired(Instant.now());
+			assertEquals(1, repo.pendingEvents());
+			Thread.sleep(250);
+			// a quiet sweep still forces the event
+			repo.drainExpired(Instant.now());
+			assertEquals(0, repo.pendingEvents());
+		}
+	}
+
+	@Test
+	void shouldKeepHoldsTheJournalRefused() throws IOException {
+		ManualTimeSource clock = new ManualTimeSource(Instant.now());
+		Venue venue = new LowestSeatPrefenceVenue(VENUE_SIZE);
+		try (JournaledHoldRepository repo = JournaledHoldRepository.open(directory, new HoldRepoNoPersistence(), 128,
+				4)) {
+			TicketService service = TicketServiceImpl.builder(venue, Duration.ofMinutes(1), repo).timeSource(clock)
+					.build();
+			// too large for a segment, so neither the journal nor memory keeps it
+			assertThrows(IllegalArgumentException.class, () -> service.findAndHoldSeats(40, EMAIL_ONE));
+			assertAll(() -> assertTrue(repo.getByEmail(EMAIL_ONE).isEmpty()),
+					() -> assertEquals(VENUE_SIZE, venue.remainingSeats()));
+			SuccessfulHold hold = (SuccessfulHold) service.findAndHoldSeats(10, EMAIL_TWO);
+			assertEquals(1, hold.seatAt(0));
+			clock.advance(Duration.ofMinutes(2));
+			assertEquals(VENUE_SIZE, service.numSeatsAvailable());
+		}
+		try (JournaledHoldRepository recovered = JournaledHoldRepository.open(directory, new HoldRepoNoPersistence(),
+				128, 4)) {
+			assertAll(() -> assertTrue(recovered.getByEmail(EMAIL_ONE).isEmpty()),
+					() -> assertTrue(recovered.getByEmail(EMAIL_TWO).isEmpty()),
+					() -> assertEquals(VENUE_SIZE,
+							recovered.restoreVenue(new LowestSeatPrefenceVenue(VENUE_SIZE)).remainingSeats()));
+		}
+	}
+
+	@Test
+	void shouldRecoverReservationTheLedgerRejected() throws IOException {
+		ReservationLedger failing = new ReservationLedger() {
+
+			@Override
+			public Reservation append(String email, SuccessfulHold reservation, long reservedEpochNanos) {
+				throw new UncheckedIOException(new IOException("ledger is full"));
+			}
+
+			@Override
+			public Optional<Reservation> verify(String confirmationCode) {
+				return Optional.empty();
+			}
+
+			@Override
+			public int size() {
+				return 0;
+			}
+		};
+		SuccessfulHold hold;
+		try (JournaledHoldRepository repo = JournaledHoldRepository.open(directory, new HoldRepoNoPersistence(), 128,
+				4)) {
+			TicketService service = TicketServiceImpl
+					.builder(new LowestSeatPrefenceVenue(VENUE_SIZE), Duration.ofMinutes(1), repo).ledger(failing)
+					.build();
+			hold = (SuccessfulHold) service.findAndHoldSeats(3, EMAIL_ONE);
+			assertThrows(UncheckedIOException.class, () -> service.reserveSeats(hold.getSeatHoldId(), EMAIL_ONE));
+		}
+		try (JournaledHoldRepository recovered = JournaledHoldRepository.open(directory, new HoldRepoNoPersistence(),
+				128, 4)) {
+			Venue restored = recovered.restoreVenue(new LowestSeatPrefenceVenue(VENUE_SIZE));
+			assertEquals(VENUE_SIZE - 3, restored.remainingSeats());
+			TicketService service = TicketServiceImpl.builder(restored, Duration.ofMinutes(1), recovered).build();
+			service.releaseSeats(hold.getSeatHoldId(), EMAIL_ONE, hold.getSeats());
+			assertEquals(VENUE_SIZE, service.numSeatsAvailable());
+		}
+		// the seats handed back are not reserved once released
+		try (JournaledHoldRepository recovered = JournaledHoldRepository.open(directory, new HoldRepoNoPersistence(),
+				128, 4)) {
+			assertEquals(VENUE_SIZE, recovered.restoreVenue(new LowestSeatPrefenceVenue(VENUE_SIZE)).remainingSeats());
+		}
+	}
+
+}
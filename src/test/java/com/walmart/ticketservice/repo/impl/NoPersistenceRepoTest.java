@@ -1,7 +1,9 @@
 package com.walmart.ticketservice.repo.impl;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Duration;
@@ -14,6 +16,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.walmart.ticketservice.model.impl.EpochNanos;
 import com.walmart.ticketservice.model.impl.SuccessfulHold;
 import com.walmart.ticketservice.repo.SuccessfulHoldRepository;
 
@@ -61,10 +64,36 @@ class NoPersistenceRepoTest {
 
 	@Test
 	void shouldFindOneExpired() {
-		Collection<Entry<String, SuccessfulHold>> allExpired = repo.getAllExpired();
+		Collection<Entry<String, SuccessfulHold>> allExpired = repo
+				.getAllExpired(EpochNanos.of(Instant.now().plusMillis(1)));
 		assertTrue(allExpired.size() == 1);
 		Entry<String, SuccessfulHold> expired = allExpired.stream().findFirst().orElse(null);
 		assertAll(() -> expired.getKey().equals(EMAIL_ONE), () -> expired.getValue().equals(reservationOne));
 	}
 
+	@Test
+	void shouldDrainExpiredOnce() {
+		Instant later = Instant.now().plusMillis(1);
+		Collection<Entry<String, SuccessfulHold>> drained = repo.drainExpired(later);
+		assertEquals(1, drained.size());
+		Entry<String, SuccessfulHold> expired = drained.iterator().next();
+		assertAll(() -> assertEquals(EMAIL_ONE, expired.getKey()),
+				() -> assertTrue(expired.getValue() == reservationOne),
+				() -> assertFalse(repo.getByEmail(EMAIL_ONE).contains(reservationOne)),
+				() -> assertTrue(repo.drainExpired(later).isEmpty()));
+		Collection<Entry<String, SuccessfulHold>> nextDay = repo.drainExpired(later.plus(Duration.ofDays(2)));
+		assertAll(() -> assertEquals(2, nextDay.size()), () -> assertTrue(repo.getByEmail(EMAIL_ONE).isEmpty()));
+	}
+
+	@Test
+	void shouldFindById() {
+		int id = reservationTwo.getSeatHoldId();
+		assertAll(() -> assertTrue(repo.getById(id, EMAIL_ONE).get() == reservationTwo),
+				() -> assertFalse(repo.getById(id, EMAIL_TWO).isPresent()));
+		Throwable e = assertThrows(IllegalArgumentException.class, () -> repo.add(EMAIL_TWO, reservationTwo));
+		assertEquals(String.format("reservation with id %s already exists", id), e.getMessage());
+		repo.remove(EMAIL_ONE, reservationTwo);
+		assertFalse(repo.getById(id, EMAIL_ONE).isPresent());
+	}
+
 }
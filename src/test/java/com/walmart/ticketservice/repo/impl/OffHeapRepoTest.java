@@ -0,0 +1,115 @@
+package com.walmart.ticketservice.repo.impl;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map.Entry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.walmart.ticketservice.model.impl.EpochNanos;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+
+class OffHeapRepoTest {
+
+	private static final String EMAIL_ONE = "emailOne";
+
+	private static final String EMAIL_TWO = "emailTwo";
+
+	private final Instant now = Instant.now();
+
+	private final SuccessfulHold expired = new SuccessfulHold(now.minusSeconds(1), new int[] { 1, 2, 3 }, 1);
+
+	private final SuccessfulHold scattered = new SuccessfulHold(now.plus(Duration.ofDays(1)),
+			new int[] { 9, 4, 7 }, 2);
+
+	private final SuccessfulHold other = new SuccessfulHold(now.plus(Duration.ofDays(1)), new int[] { 5 }, 3);
+
+	private OffHeapHoldRepository repo;
+
+	@BeforeEach
+	void createRepo() {
+		repo = new OffHeapHoldRepository(8);
+		repo.add(EMAIL_ONE, expired);
+		repo.add(EMAIL_ONE, scattered);
+		repo.add(EMAIL_TWO, other);
+	}
+
+	@Test
+	void shouldCopyReservationsOut() {
+		SuccessfulHold found = repo.getById(2, EMAIL_ONE).get();
+		assertAll(() -> assertArrayEquals(scattered.getSeats(), found.getSeats()),
+				() -> assertEquals(scattered.getExpirationEpochNanos(), found.getExpirationEpochNanos()),
+				() -> assertEquals(2, repo.getByEmail(EMAIL_ONE).size()),
+				() -> assertFalse(repo.getById(2, EMAIL_TWO).isPresent()),
+				() -> assertTrue(repo.getByEmail("unknown").isEmpty()));
+		Throwable e = assertThrows(IllegalArgumentException.class, () -> repo.add(EMAIL_TWO, scattered));
+		assertEquals("reservation with id 2 already exists", e.getMessage());
+	}
+
+	@Test
+	void shouldRemoveOnce() {
+		assertAll(() -> assertTrue(repo.remove(EMAIL_ONE, scattered)),
+				() -> assertFalse(repo.remove(EMAIL_ONE, scattered)),
+				() -> assertFalse(repo.remove(EMAIL_ONE, other)),
+				() -> assertFalse(repo.getById(2, EMAIL_ONE).isPresent()),
+				() -> assertEquals(1, repo.getByEmail(EMAIL_ONE).size()));
+	}
+
+	@Test
+	void shouldDrainExpiredOnce() {
+		assertEquals(1, repo.getAllExpired(EpochNanos.of(now)).size());
+		Instant later = now.plusMillis(1);
+		Collection<Entry<String, SuccessfulHold>> drained = repo.drainExpired(later);
+		assertEquals(1, drained.size());
+		Entry<String, SuccessfulHold> entry = drained.iterator().next();
+		assertAll(() -> assertEquals(EMAIL_ONE, entry.getKey()),
+				() -> assertEquals(1, entry.getValue().getSeatHoldId()),
+				() -> assertTrue(repo.drainExpired(later).isEmpty()));
+		assertEquals(2, repo.drainExpired(later.plus(Duration.ofDays(2))).size());
+		assertAll(() -> assertTrue(repo.getByEmail(EMAIL_ONE).isEmpty()),
+				() -> assertTrue(repo.getByEmail(EMAIL_TWO).isEmpty()));
+	}
+
+	@Test
+	void shouldReplaceOnce() {
+		SuccessfulHold extended = scattered.withExpiration(scattered.getExpirationEpochNanos() + 1);
+		assertTrue(repo.replace(EMAIL_ONE, scattered, extended));
+		SuccessfulHold released = extended.withoutSeats(new int[] { 4 });
+		assertAll(() -> assertFalse(repo.replace(EMAIL_ONE, scattered, extended)),
+				() -> assertFalse(repo.remove(EMAIL_ONE, scattered)),
+				() -> assertEquals(extended.getExpirationEpochNanos(),
+						repo.getById(2, EMAIL_ONE).get().getExpirationEpochNanos()),
+				() -> assertTrue(repo.replace(EMAIL_ONE, extended, released)),
+				// a stale copy with the old seats no longer matches
+				() -> assertFalse(repo.remove(EMAIL_ONE, extended)),
+				() -> assertArrayEquals(new int[] { 9, 7 }, repo.getById(2, EMAIL_ONE).get().getSeats()),
+				() -> assertEquals(3, repo.drainExpired(now.plus(Duration.ofDays(2))).size()));
+	}
+
+	@Test
+	void shouldSpillScatteredSeatsAndReuseSlots() {
+		int[] seats = new int[30];
+		for (int i = 0; i < seats.length; i++) {
+			seats[i] = 2 * i;
+		}
+		// one slot with 7 seats inline and two continuations
+		SuccessfulHold large = new SuccessfulHold(now.plus(Duration.ofDays(1)), seats, 4);
+		repo.add(EMAIL_TWO, large);
+		assertArrayEquals(seats, repo.getById(4, EMAIL_TWO).get().getSeats());
+		SuccessfulHold full = new SuccessfulHold(now, seats, 5);
+		Throwable e = assertThrows(IllegalStateException.class, () -> repo.add(EMAIL_TWO, full));
+		assertEquals("no room for 30 seats, 2 slots free", e.getMessage());
+		assertTrue(repo.remove(EMAIL_TWO, large));
+		repo.add(EMAIL_TWO, full);
+		assertArrayEquals(seats, repo.getById(5, EMAIL_TWO).get().getSeats());
+	}
+}
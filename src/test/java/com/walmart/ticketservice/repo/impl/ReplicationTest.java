@@ -0,0 +1,102 @@
+package com.walmart.ticketservice.repo.impl;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.walmart.ticketservice.TicketService;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.model.impl.ConfirmationCodec;
+import com.walmart.ticketservice.model.impl.LowestSeatPrefenceVenue;
+import com.walmart.ticketservice.model.impl.ManualTimeSource;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+class ReplicationTest {
+
+	private static final int VENUE_SIZE = 20;
+
+	private static final String EMAIL_ONE = "emailOne";
+
+	private static final String EMAIL_TWO = "emailTwo";
+
+	@Test
+	void shouldFailOverToStandby() throws InterruptedException {
+		ManualTimeSource clock = new ManualTimeSource(Instant.now());
+		HotStandby standby = new HotStandby(new HoldRepoNoPersistence());
+		SuccessfulHold reserved;
+		SuccessfulHold kept;
+		try (InProcessReplicationTransport transport = new InProcessReplicationTransport(standby)) {
+			TicketService primary = TicketServiceImpl
+					.builder(new LowestSeatPrefenceVenue(VENUE_SIZE), Duration.ofMinutes(1),
+							new ReplicatedHoldRepository(new HoldRepoNoPersistence(), transport))
+					.timeSource(clock).build();
+			SuccessfulHold expiring = (SuccessfulHold) primary.findAndHoldSeats(3, EMAIL_TWO);
+			clock.advance(Duration.ofSeconds(30));
+			reserved = (SuccessfulHold) primary.findAndHoldSeats(4, EMAIL_ONE);
+			primary.reserveSeats(reserved.getSeatHoldId(), EMAIL_ONE);
+			SuccessfulHold partial = (SuccessfulHold) primary.findAndHoldSeats(4, EMAIL_ONE);
+			kept = primary.releaseSeats(partial.getSeatHoldId(), EMAIL_ONE, new int[] { 9, 10 });
+			SuccessfulHold cancelled = (SuccessfulHold) primary.findAndHoldSeats(2, EMAIL_TWO);
+			primary.releaseSeats(cancelled.getSeatHoldId(), EMAIL_TWO, cancelled.getSeats());
+			clock.advance(Duration.ofSeconds(31));
+			// sweeps the first hold
+			assertEquals(VENUE_SIZE - 6, primary.numSeatsAvailable());
+			transport.flush();
+			assertAll(() -> assertEquals(9, standby.applied()),
+					() -> assertFalse(standby.repository().getById(expiring.getSeatHoldId(), EMAIL_TWO).isPresent()));
+		}
+
+		Venue venue = standby.promote(new LowestSeatPrefenceVenue(VENUE_SIZE));
+		TicketService promoted = TicketServiceImpl.builder(venue, Duration.ofMinutes(1), standby.repository())
+				.timeSource(clock).build();
+		assertAll(() -> assertEquals(VENUE_SIZE - 6, promoted.numSeatsAvailable()),
+				() -> assertArrayEquals(kept.getSeats(),
+						standby.repository().getById(kept.getSeatHoldId(), EMAIL_ONE).get().getSeats()),
+				() -> assertThrows(IllegalStateException.class, () -> standby.receive(new byte[0])));
+		assertEquals(ConfirmationCodec.CODE_LENGTH, promoted.reserveSeats(kept.getSeatHoldId(), EMAIL_ONE).length());
+		// released and expired seats are free again, reserved ones are not
+		BitSet seats = new BitSet();
+		IntStream.of(reserved.getSeats()).forEach(seats::set);
+		IntStream.of(kept.getSeats()).forEach(seats::set);
+		IntStream.of(((SuccessfulHold) promoted.findAndHoldSeats(VENUE_SIZE - 6, EMAIL_TWO)).getSeats())
+				.forEach(seat -> assertFalse(seats.get(seat)));
+	}
+
+	@Test
+	void shouldKeepServingWhenTheStandbyFallsBehind() {
+		ManualTimeSource clock = new ManualTimeSource(Instant.now());
+		AtomicInteger sent = new AtomicInteger();
+		ReplicatedHoldRepository repo = new ReplicatedHoldRepository(new HoldRepoNoPersistence(), event -> {
+			if (sent.incrementAndGet() > 1) {
+				throw new UncheckedIOException(new IOException("standby is gone"));
+			}
+		});
+		Venue venue = new LowestSeatPrefenceVenue(VENUE_SIZE);
+		TicketService primary = TicketServiceImpl.builder(venue, Duration.ofMinutes(1), repo).timeSource(clock)
+				.build();
+		primary.findAndHoldSeats(3, EMAIL_ONE);
+		SuccessfulHold unsent = (SuccessfulHold) primary.findAndHoldSeats(4, EMAIL_TWO);
+		assertAll(() -> assertFalse(repo.inStep()),
+				() -> assertTrue(repo.getById(unsent.getSeatHoldId(), EMAIL_TWO).isPresent()),
+				() -> assertEquals(VENUE_SIZE - 7, venue.remainingSeats()));
+		// the primary keeps the holds, so they expire normally
+		assertArrayEquals(new int[] { 8, 9 }, ((SuccessfulHold) primary.findAndHoldSeats(2, EMAIL_ONE)).getSeats());
+		clock.advance(Duration.ofMinutes(2));
+		assertAll(() -> assertEquals(VENUE_SIZE, primary.numSeatsAvailable()), () -> assertEquals(2, sent.get()),
+				() -> assertEquals(5, repo.droppedEvents()));
+	}
+}
@@ -0,0 +1,102 @@
+package com.walmart.ticketservice.repo.impl;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.walmart.ticketservice.model.impl.ConfirmationCodec;
+import com.walmart.ticketservice.model.impl.Reservation;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+
+class ReservationLedgerTest {
+
+	private static final byte[] KEY = new byte[32];
+
+	static {
+		Arrays.fill(KEY, (byte) 7);
+	}
+
+	private Path directory;
+
+	@BeforeEach
+	void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("reservation-ledger");
+	}
+
+	@AfterEach
+	void deleteDirectory() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+
+	@Test
+	void shouldRejectForgedCodes() {
+		ConfirmationCodec codec = new ConfirmationCodec(KEY);
+		String code = codec.encode(5, -3);
+		char[] tampered = code.toCharArray();
+		tampered[3] = tampered[3] == 'A' ? 'B' : 'A';
+		assertAll(() -> assertEquals(ConfirmationCodec.CODE_LENGTH, code.length()),
+				() -> assertEquals((5L << 32) | (-3 & 0xFFFFFFFFL), codec.decode(code)),
+				() -> assertEquals(codec.decode(code), codec.decode(code.toLowerCase())),
+				() -> assertEquals(ConfirmationCodec.INVALID, codec.decode(new String(tampered))),
+				() -> assertEquals(ConfirmationCodec.INVALID, codec.decode(code.substring(1))),
+				() -> assertEquals(ConfirmationCodec.INVALID, ConfirmationCodec.withRandomKey().decode(code)));
+	}
+
+	@Test
+	void shouldVerifyOnlyIssuedCodes() {
+		ConfirmationCodec codec = new ConfirmationCodec(KEY);
+		AppendOnlyReservationLedger ledger = AppendOnlyReservationLedger.inMemory(codec);
+		Reservation first = ledger.append("emailOne", new SuccessfulHold(Instant.now(), new int[] { 1, 2 }, 1));
+		assertAll(() -> assertEquals(1, ledger.size()),
+				() -> assertEquals("emailOne", ledger.verify(first.getConfirmationCode()).get().getEmail()),
+				() -> assertFalse(first.getConfirmationCode().contains("email")),
+				// signed, but never issued by this ledger
+				() -> assertFalse(ledger.verify(codec.encode(1, 2)).isPresent()),
+				() -> assertFalse(ledger.verify(codec.encode(0, 2)).isPresent()),
+				() -> assertFalse(ledger.verify("not a code").isPresent()));
+	}
+
+	@Test
+	void shouldReloadAndDropTornRecords() throws IOException {
+		Path file = directory.resolve("reservations");
+		String code;
+		try (AppendOnlyReservationLedger ledger = AppendOnlyReservationLedger.open(file,
+				new ConfirmationCodec(KEY), 2)) {
+			ledger.append("emailOne", new SuccessfulHold(Instant.now(), new int[] { 1, 2 }, 1));
+			code = ledger.append("emailTwo", new SuccessfulHold(Instant.now(), new int[] { 3 }, 2))
+					.getConfirmationCode();
+		}
+		long intact = Files.size(file);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 0, 0, 0, 40, 1, 2, 3 }));
+		}
+		try (AppendOnlyReservationLedger ledger = AppendOnlyReservationLedger.open(file,
+				new ConfirmationCodec(KEY), 1)) {
+			Reservation reloaded = ledger.verify(code).get();
+			assertAll(() -> assertEquals(2, ledger.size()), () -> assertEquals(intact, Files.size(file)),
+					() -> assertEquals("emailTwo", reloaded.getEmail()),
+					() -> assertArrayEquals(new int[] { 3 }, reloaded.getSeats()));
+			Reservation third = ledger.append("emailOne", new SuccessfulHold(Instant.now(), new int[] { 4 }, 3));
+			assertTrue(ledger.verify(third.getConfirmationCode()).isPresent());
+		}
+	}
+}
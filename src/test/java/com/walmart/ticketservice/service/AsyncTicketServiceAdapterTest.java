@@ -0,0 +1,82 @@
+package com.walmart.ticketservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.Test;
+
+import com.walmart.ticketservice.TicketService;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.impl.ConfirmationCodec;
+import com.walmart.ticketservice.model.impl.FailedHold;
+import com.walmart.ticketservice.model.impl.LowestSeatPrefenceVenue;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.repo.impl.HoldRepoNoPersistence;
+
+class AsyncTicketServiceAdapterTest {
+
+	@Test
+	void shouldCompleteWithServiceResults() throws Exception {
+		TicketService ticketService = new TicketServiceImpl(new LowestSeatPrefenceVenue(10), Duration.ofMinutes(1),
+				new HoldRepoNoPersistence());
+		try (AsyncTicketServiceAdapter async = new AsyncTicketServiceAdapter(ticketService, 4)) {
+			SuccessfulHold hold = (SuccessfulHold) async.findAndHoldSeatsAsync(3, "email").get();
+			assertAll(() -> assertEquals(7, async.numSeatsAvailableAsync().get().intValue()),
+					() -> assertEquals(ConfirmationCodec.CODE_LENGTH,
+							async.reserveSeatsAsync(hold.getSeatHoldId(), "email").get().length()),
+					() -> assertEquals(IllegalArgumentException.class,
+							assertThrows(ExecutionException.class, () -> async.reserveSeatsAsync(-1, "email").get())
+									.getCause().getClass()));
+		}
+	}
+
+	@Test
+	void shouldRejectBeyondBound() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		TicketService blocked = new TicketService() {
+
+			@Override
+			public int numSeatsAvailable() {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return 1;
+			}
+
+			@Override
+			public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+				throw new UnsupportedOperationException("holds are not supported");
+			}
+
+			@Override
+			public String reserveSeats(int seatHoldId, String customerEmail) {
+				throw new UnsupportedOperationException();
+			}
+		};
+		try (AsyncTicketServiceAdapter async = new AsyncTicketServiceAdapter(blocked, 2)) {
+			CompletableFuture<Integer> first = async.numSeatsAvailableAsync();
+			CompletableFuture<Integer> second = async.numSeatsAvailableAsync();
+			SeatHold rejected = async.findAndHoldSeatsAsync(1, "email").get();
+			assertAll(() -> assertEquals("too many requests in flight", ((FailedHold) rejected).failureCode()),
+					() -> assertTrue(assertThrows(ExecutionException.class,
+							() -> async.reserveSeatsAsync(1, "email").get())
+									.getCause() instanceof RejectedExecutionException));
+			release.countDown();
+			assertEquals(2, first.get() + second.get());
+			assertEquals(2, async.availablePermits());
+			// a hold that throws still completes with a FailedHold
+			assertEquals("holds are not supported",
+					((FailedHold) async.findAndHoldSeatsAsync(1, "email").get()).failureCode());
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.walmart.ticketservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+import com.walmart.ticketservice.metrics.FailureReason;
+import com.walmart.ticketservice.model.impl.ManualTimeSource;
+
+class CustomerLimiterTest {
+
+	@Test
+	void shouldForgetRefusedCustomers() {
+		CustomerLimiter limiter = new CustomerLimiter(4, 0, Duration.ZERO, new ManualTimeSource(Instant.now()));
+		for (int i = 0; i < 100; i++) {
+			assertEquals(FailureReason.SEAT_LIMIT, limiter.acquire("email" + i, 5));
+		}
+		assertEquals(0, limiter.trackedCustomers());
+		assertNull(limiter.acquire("email", 3));
+		assertAll(() -> assertEquals(FailureReason.SEAT_LIMIT, limiter.acquire("email", 2)),
+				() -> assertEquals(1, limiter.trackedCustomers()));
+		limiter.release("email", 3);
+		assertEquals(0, limiter.trackedCustomers());
+	}
+
+	@Test
+	void shouldRememberRateLimitedCustomers() {
+		ManualTimeSource clock = new ManualTimeSource(Instant.now());
+		CustomerLimiter limiter = new CustomerLimiter(Integer.MAX_VALUE, 1, Duration.ofMinutes(1), clock);
+		assertNull(limiter.acquire("email", 1));
+		limiter.release("email", 1);
+		// refused for its rate, so the bucket must be kept
+		assertAll(() -> assertEquals(FailureReason.RATE_LIMITED, limiter.acquire("email", 1)),
+				() -> assertEquals(1, limiter.trackedCustomers()));
+		clock.advance(Duration.ofMinutes(1));
+		limiter.prune();
+		assertEquals(0, limiter.trackedCustomers());
+	}
+}
@@ -0,0 +1,96 @@
+package com.walmart.ticketservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.impl.BitSetSeatVenue;
+import com.walmart.ticketservice.model.impl.ConfirmationCodec;
+import com.walmart.ticketservice.model.impl.FailedHold;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.repo.impl.HoldRepoNoPersistence;
+
+class EventLoopTicketServiceTest {
+
+	private static final int VENUE_SIZE = 2_000;
+
+	private static final int THREADS = 8;
+
+	private static final int HOLDS_PER_THREAD = 1_000;
+
+	@Test
+	void shouldConserveSeatsWithUnsynchronizedRepository() throws Exception {
+		EventLoopTicketService ticketService = new EventLoopTicketService(
+				TicketServiceImpl.builder(new BitSetSeatVenue(VENUE_SIZE), Duration.ofMillis(2),
+						new HoldRepoNoPersistence()), 64);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<List<int[]>>> results = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			String email = "email" + t;
+			Random random = new Random(t);
+			Callable<List<int[]>> worker = () -> {
+				List<int[]> reserved = new ArrayList<>();
+				for (int i = 0; i < HOLDS_PER_THREAD; i++) {
+					SeatHold hold = ticketService.findAndHoldSeats(1 + random.nextInt(4), email);
+					if (hold instanceof SuccessfulHold && random.nextBoolean()) {
+						SuccessfulHold held = (SuccessfulHold) hold;
+						try {
+							ticketService.reserveSeats(held.getSeatHoldId(), email);
+							reserved.add(held.getSeats());
+						} catch (IllegalArgumentException | IllegalStateException expired) {
+							// expired before the reservation reached the loop
+						}
+					}
+				}
+				return reserved;
+			};
+			results.add(executor.submit(worker));
+		}
+		BitSet sold = new BitSet();
+		for (Future<List<int[]>> result : results) {
+			for (int[] seats : result.get()) {
+				for (int seat : seats) {
+					assertTrue(!sold.get(seat), String.format("seat %s reserved twice", seat));
+					sold.set(seat);
+				}
+			}
+		}
+		executor.shutdown();
+		Thread.sleep(5);
+		int remaining = ticketService.numSeatsAvailableAsync().get();
+		ticketService.close();
+		assertEquals(VENUE_SIZE, remaining + sold.cardinality());
+	}
+
+	@Test
+	void shouldRejectCommandsOnceClosed() throws Exception {
+		EventLoopTicketService ticketService = new EventLoopTicketService(
+				TicketServiceImpl.builder(new BitSetSeatVenue(10), Duration.ofMinutes(1), new HoldRepoNoPersistence()),
+				4);
+		SuccessfulHold hold = (SuccessfulHold) ticketService.findAndHoldSeats(3, "email");
+		assertAll(() -> assertEquals(7, ticketService.numSeatsAvailable()),
+				() -> assertThrows(IllegalArgumentException.class, () -> ticketService.reserveSeats(-1, "email")),
+				() -> assertEquals(ConfirmationCodec.CODE_LENGTH,
+						ticketService.reserveSeats(hold.getSeatHoldId(), "email").length()));
+		ticketService.close();
+		assertAll(() -> assertThrows(IllegalStateException.class, () -> ticketService.findAndHoldSeats(1, "email")),
+				() -> assertEquals("ticket service is closed",
+						((FailedHold) ticketService.findAndHoldSeatsAsync(1, "email").get()).failureCode()),
+				() -> assertTrue(ticketService.reserveSeatsAsync(hold.getSeatHoldId(), "email")
+						.isCompletedExceptionally()));
+	}
+}
@@ -0,0 +1,60 @@
+package com.walmart.ticketservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.walmart.ticketservice.TicketService;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.model.impl.LowestSeatPrefenceVenue;
+import com.walmart.ticketservice.model.impl.ManualTimeSource;
+import com.walmart.ticketservice.model.impl.SeatMapDelta;
+import com.walmart.ticketservice.model.impl.SeatMapSnapshot;
+import com.walmart.ticketservice.repo.impl.HoldRepoNoPersistence;
+
+class SeatMapTest {
+
+	@Test
+	void shouldPublishCoalescedDeltas() {
+		Venue venue = new LowestSeatPrefenceVenue(10);
+		// published by hand below
+		SeatMap seatMap = new SeatMap(venue, Duration.ofHours(1));
+		ManualTimeSource clock = new ManualTimeSource(Instant.now());
+		TicketService service = TicketServiceImpl.builder(venue, Duration.ofMillis(1), new HoldRepoNoPersistence())
+				.seatListener(seatMap).timeSource(clock).build();
+		List<SeatMapDelta> deltas = new ArrayList<>();
+		SeatMapSnapshot initial = seatMap.subscribe(deltas::add);
+		assertAll(() -> assertEquals(0, initial.getVersion()), () -> assertEquals(10, initial.availableCount()));
+
+		service.findAndHoldSeats(3, "email");
+		seatMap.publish();
+		assertEquals(1, deltas.size());
+		assertAll(() -> assertEquals(0, deltas.get(0).getPreviousVersion()),
+				() -> assertArrayEquals(new int[] { 1, 2, 3 }, deltas.get(0).getTaken()),
+				() -> assertEquals(0, deltas.get(0).getFreed().length));
+
+		clock.advance(Duration.ofMillis(5));
+		// releases 1 to 3 then holds 1 and 2 again, within one tick
+		service.findAndHoldSeats(2, "email");
+		seatMap.publish();
+		seatMap.publish();
+		assertEquals(2, deltas.size());
+		assertAll(() -> assertEquals(2, deltas.get(1).getVersion()),
+				() -> assertEquals(0, deltas.get(1).getTaken().length),
+				() -> assertArrayEquals(new int[] { 3 }, deltas.get(1).getFreed()));
+
+		SeatMapSnapshot current = seatMap.snapshot();
+		assertAll(() -> assertEquals(2, current.getVersion()), () -> assertEquals(8, current.availableCount()),
+				() -> assertFalse(current.isAvailable(2)), () -> assertTrue(current.isAvailable(3)));
+		seatMap.close();
+	}
+}
@@ -0,0 +1,103 @@
+package com.walmart.ticketservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Test;
+
+import com.walmart.ticketservice.AsyncTicketService;
+import com.walmart.ticketservice.model.impl.BitSetSeatVenue;
+import com.walmart.ticketservice.model.impl.ConfirmationCodec;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.repo.impl.HoldRepoNoPersistence;
+
+class ShardedTicketServiceRegistryTest {
+
+	@Test
+	void shouldLoadAndEvictEventsLazily() throws Exception {
+		List<String> loaded = Collections.synchronizedList(new ArrayList<>());
+		List<String> unloaded = Collections.synchronizedList(new ArrayList<>());
+		EventLoader loader = new EventLoader() {
+
+			@Override
+			public TicketServiceImpl.Builder load(String eventId) {
+				if (eventId.startsWith("missing")) {
+					throw new IllegalArgumentException("no event " + eventId);
+				}
+				loaded.add(eventId);
+				return TicketServiceImpl.builder(new BitSetSeatVenue(10), Duration.ofMinutes(1),
+						new HoldRepoNoPersistence());
+			}
+
+			@Override
+			public void unloaded(String eventId, TicketServiceImpl service) {
+				unloaded.add(eventId);
+			}
+		};
+		ShardedTicketServiceRegistry registry = ShardedTicketServiceRegistry.builder(loader).shards(1)
+				.maxEventsPerShard(2).build();
+		AsyncTicketService first = registry.event("first");
+		AsyncTicketService second = registry.event("second");
+		SuccessfulHold hold = (SuccessfulHold) first.findAndHoldSeatsAsync(4, "email").get();
+		second.findAndHoldSeatsAsync(1, "email").get();
+		assertAll(() -> assertEquals(6, first.numSeatsAvailableAsync().get().intValue()),
+				() -> assertEquals(9, second.numSeatsAvailableAsync().get().intValue()),
+				() -> assertEquals(ConfirmationCodec.CODE_LENGTH,
+						first.reserveSeatsAsync(hold.getSeatHoldId(), "email").get().length()),
+				() -> assertEquals(2, registry.loadedEvents()));
+		// second is now least recently used, but still holds a seat
+		registry.event("third").numSeatsAvailableAsync().get();
+		assertAll(() -> assertEquals(2, registry.loadedEvents()),
+				() -> assertEquals(Collections.singletonList("first"), unloaded),
+				() -> assertEquals(9, second.numSeatsAvailableAsync().get().intValue()),
+				() -> assertEquals(10, first.numSeatsAvailableAsync().get().intValue()),
+				() -> assertEquals(4, loaded.size()));
+		ExecutionException missing = assertThrows(ExecutionException.class,
+				() -> registry.event("missing").numSeatsAvailableAsync().get());
+		assertEquals(IllegalArgumentException.class, missing.getCause().getClass());
+		registry.close();
+		assertEquals(4, unloaded.size());
+	}
+
+	@Test
+	void shouldNotEvictEventsWithHolds() throws Exception {
+		ShardedTicketServiceRegistry registry = ShardedTicketServiceRegistry
+				.builder(eventId -> TicketServiceImpl.builder(new BitSetSeatVenue(10), Duration.ofMinutes(1),
+						new HoldRepoNoPersistence()))
+				.shards(1).maxEventsPerShard(1).build();
+		AsyncTicketService busy = registry.event("busy");
+		SuccessfulHold hold = (SuccessfulHold) busy.findAndHoldSeatsAsync(3, "email").get();
+		registry.event("other").numSeatsAvailableAsync().get();
+		// over the cap rather than losing the hold
+		assertAll(() -> assertEquals(2, registry.loadedEvents()),
+				() -> assertEquals(7, busy.numSeatsAvailableAsync().get().intValue()));
+		busy.reserveSeatsAsync(hold.getSeatHoldId(), "email").get();
+		// both are cold once the hold is reserved, so the next load evicts them
+		registry.event("third").numSeatsAvailableAsync().get();
+		assertAll(() -> assertEquals(1, registry.loadedEvents()),
+				() -> assertEquals(10, busy.numSeatsAvailableAsync().get().intValue()));
+		registry.close();
+	}
+
+	@Test
+	void shouldEvictIdleEvents() throws Exception {
+		ShardedTicketServiceRegistry registry = ShardedTicketServiceRegistry
+				.builder(eventId -> TicketServiceImpl.builder(new BitSetSeatVenue(10), Duration.ofMillis(1),
+						new HoldRepoNoPersistence()))
+				.shards(2).idleTimeout(Duration.ZERO).sweepPeriod(Duration.ofMillis(5)).build();
+		registry.event("idle").findAndHoldSeatsAsync(2, "email").get();
+		for (int i = 0; i < 200 && registry.loadedEvents() > 0; i++) {
+			Thread.sleep(5);
+		}
+		assertEquals(0, registry.loadedEvents());
+		registry.close();
+	}
+}
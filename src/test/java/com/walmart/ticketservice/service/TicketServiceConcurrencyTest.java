@@ -0,0 +1,86 @@
+package com.walmart.ticketservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.walmart.ticketservice.TicketService;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.model.impl.AtomicSeatVenue;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.repo.impl.StripedHoldRepository;
+
+class TicketServiceConcurrencyTest {
+
+	private static final int VENUE_SIZE = 5_000;
+
+	private static final int THREADS = 8;
+
+	private static final int HOLDS_PER_THREAD = 2_000;
+
+	@Test
+	void shouldConserveSeatsUnderContention() throws Exception {
+		Venue venue = new AtomicSeatVenue(VENUE_SIZE);
+		TicketService ticketService = TicketServiceImpl
+				.builder(venue, Duration.ofMillis(2), new StripedHoldRepository()).concurrent(true).build();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<List<int[]>>> results = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			String email = "email" + t;
+			Random random = new Random(t);
+			Callable<List<int[]>> worker = () -> {
+				List<int[]> reserved = new ArrayList<>();
+				for (int i = 0; i < HOLDS_PER_THREAD; i++) {
+					SeatHold hold = ticketService.findAndHoldSeats(1 + random.nextInt(4), email);
+					if (hold instanceof SuccessfulHold && random.nextBoolean()) {
+						SuccessfulHold held = (SuccessfulHold) hold;
+						try {
+							ticketService.reserveSeats(held.getSeatHoldId(), email);
+							reserved.add(held.getSeats());
+						} catch (IllegalStateException expired) {
+							// lost to an expiry sweep, seats went back to the venue
+						} catch (IllegalArgumentException swept) {
+							// drained by another thread's sweep, any other bad argument is a bug
+							if (!swept.getMessage().endsWith("does not exist")) {
+								throw swept;
+							}
+						}
+					}
+				}
+				return reserved;
+			};
+			results.add(executor.submit(worker));
+		}
+		BitSet sold = new BitSet();
+		int soldCount = 0;
+		for (Future<List<int[]>> result : results) {
+			for (int[] seats : result.get()) {
+				for (int seat : seats) {
+					assertTrue(!sold.get(seat), String.format("seat %s reserved twice", seat));
+					sold.set(seat);
+					soldCount++;
+				}
+			}
+		}
+		executor.shutdown();
+		Thread.sleep(5);
+		int remaining = ticketService.numSeatsAvailable();
+		int reservedCount = soldCount;
+		assertAll(() -> assertEquals(VENUE_SIZE, remaining + reservedCount),
+				() -> assertEquals(remaining, venue.getNSeats(VENUE_SIZE).length));
+	}
+
+}
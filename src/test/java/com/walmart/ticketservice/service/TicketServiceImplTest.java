@@ -1,21 +1,40 @@
 package com.walmart.ticketservice.service;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.lang.management.ManagementFactory;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import com.walmart.ticketservice.TicketService;
+import com.walmart.ticketservice.metrics.FailureReason;
+import com.walmart.ticketservice.metrics.MetricsRegistry;
+import com.walmart.ticketservice.metrics.TicketServiceMetrics;
 import com.walmart.ticketservice.model.SeatHold;
 import com.walmart.ticketservice.model.Venue;
+import com.walmart.ticketservice.model.impl.ConfirmationCodec;
 import com.walmart.ticketservice.model.impl.FailedHold;
+import com.walmart.ticketservice.model.impl.HoldRequest;
 import com.walmart.ticketservice.model.impl.LowestSeatPrefenceVenue;
+import com.walmart.ticketservice.model.impl.ManualTimeSource;
+import com.walmart.ticketservice.model.impl.ReserveRequest;
+import com.walmart.ticketservice.model.impl.ReserveResult;
+import com.walmart.ticketservice.model.impl.ScoredSeatVenue;
 import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.model.impl.VenueLayout;
 import com.walmart.ticketservice.repo.SuccessfulHoldRepository;
 import com.walmart.ticketservice.repo.impl.HoldRepoNoPersistence;
 
@@ -27,6 +46,17 @@ class TicketServiceImplTest {
 
 	private static final String EMAIL_TWO = "emailTwo";
 
+	private static final MetricsRegistry NO_REGISTRY = new MetricsRegistry() {
+
+		@Override
+		public void register(String name, TicketServiceMetrics metrics) {
+		}
+
+		@Override
+		public void unregister(String name) {
+		}
+	};
+
 	private static TicketService ticketService;
 
 	@BeforeAll
@@ -51,22 +81,22 @@ class TicketServiceImplTest {
 	}
 
 	@Test
-	void shouldThrowException() throws InterruptedException {
+	void shouldThrowException() {
 		Throwable e = assertThrows(IllegalArgumentException.class, () -> ticketService.reserveSeats(1, null));
 		assertEquals("customerEmail can not be null.", e.getMessage());
 		Throwable e2 = assertThrows(IllegalArgumentException.class, () -> ticketService.reserveSeats(1, EMAIL_ONE));
 		assertEquals("Reservation for email: emailOne, id: 1 does not exist", e2.getMessage());
 		Venue venue = new LowestSeatPrefenceVenue(VENUE_SIZE);
 		SuccessfulHoldRepository repository = new HoldRepoNoPersistence();
-		ticketService = new TicketServiceImpl(venue, Duration.ZERO, repository);
+		ManualTimeSource clock = new ManualTimeSource(Instant.now());
+		ticketService = TicketServiceImpl.builder(venue, Duration.ZERO, repository).timeSource(clock).build();
 		SuccessfulHold reservation = (SuccessfulHold) ticketService.findAndHoldSeats(1, EMAIL_ONE);
 		Throwable e3 = assertThrows(IllegalArgumentException.class,
 				() -> ticketService.reserveSeats(reservation.getSeatHoldId(), EMAIL_TWO));
 		String errorMessage = String.format("Reservation for email: %s, id: %s does not exist", EMAIL_TWO,
 				reservation.getSeatHoldId());
 		assertEquals(errorMessage, e3.getMessage());
-		// Test runs too fast for this to eval correctly
-		Thread.sleep(1);
+		clock.advance(Duration.ofNanos(1));
 		Throwable e4 = assertThrows(IllegalStateException.class,
 				() -> ticketService.reserveSeats(reservation.getSeatHoldId(), EMAIL_ONE));
 		String errorMessage2 = String.format("Reservation for email: %s, id: %s is expired", EMAIL_ONE,
@@ -81,4 +111,216 @@ class TicketServiceImplTest {
 		ticketService.reserveSeats(hold.getSeatHoldId(), EMAIL_ONE);
 	}
 
+	@Test
+	void shouldReleaseExpiredInBackground() throws InterruptedException {
+		Venue venue = new LowestSeatPrefenceVenue(VENUE_SIZE);
+		ManualTimeSource clock = new ManualTimeSource(Instant.now());
+		TicketServiceImpl service = TicketServiceImpl.builder(venue, Duration.ZERO, new HoldRepoNoPersistence())
+				.expiryPolicy(ExpiryPolicy.BACKGROUND).timeSource(clock).build();
+		service.findAndHoldSeats(VENUE_SIZE, EMAIL_ONE);
+		clock.advance(Duration.ofNanos(1));
+		assertEquals(0, service.numSeatsAvailable());
+		ExpiredHoldReaper reaper = new ExpiredHoldReaper(service, Duration.ofMillis(1));
+		try {
+			for (int i = 0; i < 1000 && service.numSeatsAvailable() == 0; i++) {
+				Thread.sleep(1);
+			}
+		} finally {
+			reaper.close();
+		}
+		assertEquals(VENUE_SIZE, service.numSeatsAvailable());
+	}
+
+	@Test
+	void shouldHoldWithinPriceTier() {
+		VenueLayout layout = VenueLayout.builder().addRow(0, 0, 1, 5f, 5f).addRow(1, 0, 0, 1f, 2f).build();
+		TicketService tiered = new TicketServiceImpl(new ScoredSeatVenue(layout), Duration.ofMinutes(1),
+				new HoldRepoNoPersistence());
+		SeatHold cheap = tiered.findAndHoldSeats(2, 0, EMAIL_ONE);
+		assertArrayEquals(new int[] { 4, 3 }, ((SuccessfulHold) cheap).getSeats());
+		SeatHold none = tiered.findAndHoldSeats(1, 0, EMAIL_ONE);
+		assertEquals("Only 0 seats avaliable", ((FailedHold) none).failureCode());
+		SeatHold unsupported = new TicketServiceImpl(new LowestSeatPrefenceVenue(VENUE_SIZE), Duration.ofMinutes(1),
+				new HoldRepoNoPersistence()).findAndHoldSeats(1, 0, EMAIL_ONE);
+		assertEquals("price tiers are not supported", ((FailedHold) unsupported).failureCode());
+	}
+
+	@Test
+	void shouldHoldAndReserveBatch() {
+		TicketService batched = new TicketServiceImpl(new LowestSeatPrefenceVenue(VENUE_SIZE), Duration.ofMinutes(1),
+				new HoldRepoNoPersistence());
+		List<SeatHold> holds = batched.holdBatch(Arrays.asList(new HoldRequest(3, EMAIL_ONE),
+				new HoldRequest(0, EMAIL_ONE), new HoldRequest(8, EMAIL_TWO), new HoldRequest(7, EMAIL_TWO)));
+		assertArrayEquals(new int[] { 1, 2, 3 }, ((SuccessfulHold) holds.get(0)).getSeats());
+		assertEquals("numSeats must be > 0", ((FailedHold) holds.get(1)).failureCode());
+		assertEquals("Only 7 seats avaliable", ((FailedHold) holds.get(2)).failureCode());
+		assertArrayEquals(new int[] { 4, 5, 6, 7, 8, 9, 10 }, ((SuccessfulHold) holds.get(3)).getSeats());
+		int firstId = ((SuccessfulHold) holds.get(0)).getSeatHoldId();
+		List<ReserveResult> results = batched.reserveBatch(Arrays.asList(new ReserveRequest(firstId, EMAIL_ONE),
+				new ReserveRequest(firstId, EMAIL_ONE), new ReserveRequest(firstId, null)));
+		assertAll(() -> assertTrue(results.get(0).isConfirmed()), () -> assertFalse(results.get(1).isConfirmed()),
+				() -> assertEquals("customerEmail can not be null.", results.get(2).failureCode()));
+	}
+
+	@Test
+	void shouldRecordMetrics() throws Exception {
+		TicketServiceImpl measured = TicketServiceImpl
+				.builder(new LowestSeatPrefenceVenue(VENUE_SIZE), Duration.ofMinutes(1), new HoldRepoNoPersistence())
+				.metrics("metrics-test").build();
+		ObjectName name = new ObjectName("com.walmart.ticketservice:type=TicketService,name=\"metrics-test\"");
+		try {
+			SeatHold hold = measured.findAndHoldSeats(4, EMAIL_ONE);
+			measured.findAndHoldSeats(VENUE_SIZE, EMAIL_ONE);
+			measured.reserveSeats(((SuccessfulHold) hold).getSeatHoldId(), EMAIL_ONE);
+			assertThrows(IllegalArgumentException.class, () -> measured.reserveSeats(-1, EMAIL_ONE));
+			TicketServiceMetrics metrics = measured.metrics();
+			assertAll(() -> assertEquals(2, metrics.holdLatency().count()),
+					() -> assertEquals(1, metrics.holds()), () -> assertEquals(1, metrics.reservations()),
+					() -> assertEquals(0, metrics.outstandingHolds()),
+					() -> assertEquals(1, metrics.failures(FailureReason.SOLD_OUT)),
+					() -> assertEquals(1, metrics.failures(FailureReason.HOLD_NOT_FOUND)),
+					() -> assertEquals(6, metrics.seatsAvailable()));
+			assertEquals(6, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "SeatsAvailable"));
+			CompositeData reserveLatency = (CompositeData) ManagementFactory.getPlatformMBeanServer()
+					.getAttribute(name, "ReserveLatency");
+			assertEquals(2L, reserveLatency.get("count"));
+		} finally {
+			measured.close();
+		}
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+	}
+
+	@Test
+	void shouldEstimateSeatsWithoutSweeping() {
+		ManualTimeSource clock = new ManualTimeSource(Instant.now());
+		TicketService expiring = TicketServiceImpl
+				.builder(new LowestSeatPrefenceVenue(VENUE_SIZE), Duration.ofMillis(1), new HoldRepoNoPersistence())
+				.timeSource(clock).build();
+		expiring.findAndHoldSeats(4, EMAIL_ONE);
+		assertEquals(6, expiring.estimateSeatsAvailable());
+		clock.advance(Duration.ofMillis(5));
+		// the expired hold is only counted once a sweep releases it
+		assertEquals(6, expiring.estimateSeatsAvailable());
+		assertEquals(VENUE_SIZE, expiring.numSeatsAvailable());
+		assertEquals(VENUE_SIZE, expiring.estimateSeatsAvailable());
+	}
+
+	@Test
+	void shouldExpireLazily() {
+		ManualTimeSource clock = new ManualTimeSource(Instant.now());
+		TicketService lazy = TicketServiceImpl
+				.builder(new LowestSeatPrefenceVenue(VENUE_SIZE), Duration.ofMillis(1), new HoldRepoNoPersistence())
+				.expiryPolicy(ExpiryPolicy.LAZY).timeSource(clock).build();
+		lazy.findAndHoldSeats(4, EMAIL_ONE);
+		lazy.findAndHoldSeats(2, EMAIL_TWO);
+		clock.advance(Duration.ofMillis(5));
+		// enough seats remain, so the expired holds are left alone
+		assertTrue(lazy.findAndHoldSeats(3, EMAIL_TWO) instanceof SuccessfulHold);
+		assertEquals(1, lazy.estimateSeatsAvailable());
+		// running short releases both expired holds at once
+		assertTrue(lazy.findAndHoldSeats(7, EMAIL_ONE) instanceof SuccessfulHold);
+		assertEquals(0, lazy.estimateSeatsAvailable());
+		clock.advance(Duration.ofMillis(5));
+		assertEquals(VENUE_SIZE, lazy.numSeatsAvailable());
+	}
+
+	@Test
+	void shouldExpireLazilyAtTheSeatLimit() {
+		ManualTimeSource clock = new ManualTimeSource(Instant.now());
+		TicketService lazy = TicketServiceImpl
+				.builder(new LowestSeatPrefenceVenue(VENUE_SIZE), Duration.ofMillis(1), new HoldRepoNoPersistence())
+				.expiryPolicy(ExpiryPolicy.LAZY).maxSeatsPerCustomer(4).timeSource(clock).build();
+		assertTrue(lazy.findAndHoldSeats(4, EMAIL_ONE) instanceof SuccessfulHold);
+		assertTrue(lazy.findAndHoldSeats(1, EMAIL_ONE) instanceof FailedHold);
+		clock.advance(Duration.ofMillis(5));
+		// plenty of seats remain, but the expired hold still counted against the limit
+		assertTrue(lazy.findAndHoldSeats(4, EMAIL_ONE) instanceof SuccessfulHold);
+		assertEquals(VENUE_SIZE - 4, lazy.estimateSeatsAvailable());
+	}
+
+	@Test
+	void shouldLimitCustomers() {
+		TicketService limited = TicketServiceImpl
+				.builder(new LowestSeatPrefenceVenue(VENUE_SIZE), Duration.ofMinutes(1), new HoldRepoNoPersistence())
+				.maxSeatsPerCustomer(3).holdRate(2, Duration.ofHours(1)).build();
+		SuccessfulHold first = (SuccessfulHold) limited.findAndHoldSeats(2, EMAIL_ONE);
+		SeatHold tooMany = limited.findAndHoldSeats(2, EMAIL_ONE);
+		assertAll(() -> assertTrue(tooMany instanceof FailedHold),
+				() -> assertEquals("A customer may hold at most 3 seats", ((FailedHold) tooMany).failureCode()),
+				() -> assertTrue(limited.findAndHoldSeats(1, EMAIL_ONE) instanceof SuccessfulHold));
+		// reserving gives the seats back, but not the holds already placed
+		limited.reserveSeats(first.getSeatHoldId(), EMAIL_ONE);
+		SeatHold tooFast = limited.findAndHoldSeats(1, EMAIL_ONE);
+		assertAll(() -> assertTrue(tooFast instanceof FailedHold),
+				() -> assertEquals("A customer may place at most 2 holds per 3600000ms",
+						((FailedHold) tooFast).failureCode()),
+				() -> assertTrue(limited.findAndHoldSeats(3, EMAIL_TWO) instanceof SuccessfulHold));
+		// a hold that fails for lack of seats is not charged
+		assertTrue(limited.findAndHoldSeats(3, "emailThree") instanceof SuccessfulHold);
+		assertTrue(limited.findAndHoldSeats(3, "emailFour") instanceof FailedHold);
+		assertTrue(limited.findAndHoldSeats(1, "emailFour") instanceof SuccessfulHold);
+	}
+
+	@Test
+	void shouldFollowInjectedClock() {
+		// far from the system clock, so nothing here can depend on it
+		ManualTimeSource clock = new ManualTimeSource(Instant.parse("2030-01-01T00:00:00Z"));
+		TicketService service = TicketServiceImpl
+				.builder(new LowestSeatPrefenceVenue(VENUE_SIZE), Duration.ofMinutes(1), new HoldRepoNoPersistence())
+				.holdRate(1, Duration.ofHours(1)).timeSource(clock).build();
+		SuccessfulHold hold = (SuccessfulHold) service.findAndHoldSeats(2, EMAIL_ONE);
+		assertEquals(clock.instant().plus(Duration.ofMinutes(1)), hold.getExpiration());
+		clock.advance(Duration.ofMinutes(1));
+		// a hold is still valid at its deadline
+		assertEquals(VENUE_SIZE - 2, service.numSeatsAvailable());
+		assertTrue(service.findAndHoldSeats(1, EMAIL_ONE) instanceof FailedHold);
+		clock.advance(Duration.ofNanos(1));
+		assertAll(() -> assertEquals(VENUE_SIZE, service.numSeatsAvailable()),
+				() -> assertThrows(IllegalArgumentException.class,
+						() -> service.reserveSeats(hold.getSeatHoldId(), EMAIL_ONE)));
+		clock.advance(Duration.ofHours(1));
+		SuccessfulHold next = (SuccessfulHold) service.findAndHoldSeats(1, EMAIL_ONE);
+		assertEquals(ConfirmationCodec.CODE_LENGTH, service.reserveSeats(next.getSeatHoldId(), EMAIL_ONE).length());
+	}
+
+	@Test
+	void shouldExtendAndReleaseSeats() {
+		HoldRepoNoPersistence repo = new HoldRepoNoPersistence();
+		TicketServiceImpl service = TicketServiceImpl
+				.builder(new LowestSeatPrefenceVenue(VENUE_SIZE), Duration.ofMinutes(1), repo)
+				.maxSeatsPerCustomer(3).metrics("release-test", NO_REGISTRY).build();
+		SuccessfulHold hold = (SuccessfulHold) service.findAndHoldSeats(3, EMAIL_ONE);
+		SuccessfulHold extended = service.extendHold(hold.getSeatHoldId(), EMAIL_ONE, Duration.ofHours(1));
+		assertAll(() -> assertEquals(hold.getExpiration().plus(Duration.ofHours(1)), extended.getExpiration()),
+				() -> assertArrayEquals(hold.getSeats(), extended.getSeats()),
+				() -> assertThrows(IllegalArgumentException.class,
+						() -> service.extendHold(hold.getSeatHoldId(), EMAIL_ONE, Duration.ZERO)));
+
+		SuccessfulHold remaining = service.releaseSeats(hold.getSeatHoldId(), EMAIL_ONE, new int[] { 2 });
+		Throwable e = assertThrows(IllegalArgumentException.class,
+				() -> service.releaseSeats(hold.getSeatHoldId(), EMAIL_ONE, new int[] { 2 }));
+		assertAll(() -> assertArrayEquals(new int[] { 1, 3 }, remaining.getSeats()),
+				() -> assertEquals(extended.getExpiration(), remaining.getExpiration()),
+				() -> assertEquals(String.format("seat 2 is not in hold %s", hold.getSeatHoldId()), e.getMessage()),
+				() -> assertEquals(VENUE_SIZE - 2, service.numSeatsAvailable()),
+				() -> assertEquals(VENUE_SIZE - 2, service.estimateSeatsAvailable()),
+				// the released seat no longer counts against the customer
+				() -> assertTrue(service.findAndHoldSeats(1, EMAIL_ONE) instanceof SuccessfulHold));
+
+		SuccessfulHold cancelled = service.releaseSeats(hold.getSeatHoldId(), EMAIL_ONE, new int[] { 3, 1 });
+		assertAll(() -> assertEquals(0, cancelled.seatCount()), () -> assertEquals(VENUE_SIZE - 1,
+				service.numSeatsAvailable()),
+				() -> assertThrows(IllegalArgumentException.class,
+						() -> service.reserveSeats(hold.getSeatHoldId(), EMAIL_ONE)));
+		TicketServiceMetrics metrics = service.metrics();
+		assertAll(() -> assertEquals(1, metrics.extensions()), () -> assertEquals(1, metrics.releases()),
+				() -> assertEquals(3, metrics.releasedSeats()), () -> assertEquals(1, metrics.outstandingHolds()));
+
+		// a full release empties the hold before removing it, a reserve in between
+		// must not confirm it
+		SuccessfulHold other = (SuccessfulHold) service.findAndHoldSeats(2, EMAIL_TWO);
+		repo.replace(EMAIL_TWO, other, other.withoutSeats(other.getSeats()));
+		assertThrows(IllegalStateException.class, () -> service.reserveSeats(other.getSeatHoldId(), EMAIL_TWO));
+	}
+
 }
@@ -0,0 +1,143 @@
+package com.walmart.ticketservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.walmart.ticketservice.TicketService;
+import com.walmart.ticketservice.model.SeatHold;
+import com.walmart.ticketservice.model.impl.FailedHold;
+import com.walmart.ticketservice.model.impl.HoldRequest;
+import com.walmart.ticketservice.model.impl.LowestSeatPrefenceVenue;
+import com.walmart.ticketservice.model.impl.SuccessfulHold;
+import com.walmart.ticketservice.repo.impl.HoldRepoNoPersistence;
+
+class WaitingRoomTest {
+
+	@Test
+	void shouldAdmitInArrivalOrder() {
+		TicketServiceImpl service = new TicketServiceImpl(new LowestSeatPrefenceVenue(10), Duration.ofMinutes(1),
+				new HoldRepoNoPersistence());
+		// admitted by hand below
+		WaitingRoom room = new WaitingRoom(service, 3, 2, Duration.ofHours(1));
+		WaitingRoom.Ticket first = room.enter(2, "emailOne");
+		WaitingRoom.Ticket cancelled = room.enter(2, "emailTwo");
+		WaitingRoom.Ticket third = room.enter(3, "emailThree");
+		WaitingRoom.Ticket refused = room.enter(1, "emailFour");
+		assertAll(() -> assertEquals(1, first.getPosition()), () -> assertEquals(2, third.ahead()),
+				() -> assertEquals(0, refused.getPosition()),
+				() -> assertEquals("the waiting room is full",
+						((FailedHold) refused.getResult().getNow(null)).failureCode()),
+				() -> assertEquals(3, room.waiting()));
+
+		cancelled.getResult().cancel(false);
+		room.admit();
+		SeatHold firstHold = first.getResult().getNow(null);
+		SeatHold thirdHold = third.getResult().getNow(null);
+		assertAll(() -> assertArrayEquals(new int[] { 1, 2 }, ((SuccessfulHold) firstHold).getSeats()),
+				// the cancelled caller's place went to the next in line
+				() -> assertArrayEquals(new int[] { 3, 4, 5 }, ((SuccessfulHold) thirdHold).getSeats()),
+				() -> assertEquals(0, third.ahead()), () -> assertEquals(0, room.waiting()));
+
+		WaitingRoom.Ticket late = room.enter(1, "emailFour");
+		room.close();
+		assertAll(() -> assertEquals(4, late.getPosition()),
+				() -> assertEquals("the waiting room is closed",
+						((FailedHold) late.getResult().getNow(null)).failureCode()),
+				() -> assertFalse(room.enter(1, "emailFour").getResult().getNow(null) instanceof SuccessfulHold),
+				() -> assertEquals(5, service.numSeatsAvailable()));
+	}
+
+	@Test
+	void shouldReleaseHoldsOfCallersCancelledWhileHeld() {
+		TicketServiceImpl service = new TicketServiceImpl(new LowestSeatPrefenceVenue(10), Duration.ofMinutes(1),
+				new HoldRepoNoPersistence());
+		List<WaitingRoom.Ticket> tickets = new ArrayList<>();
+		// cancels the first caller after its batch has left the line
+		TicketService cancelling = new TicketService() {
+
+			@Override
+			public int numSeatsAvailable() {
+				return service.numSeatsAvailable();
+			}
+
+			@Override
+			public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+				return service.findAndHoldSeats(numSeats, customerEmail);
+			}
+
+			@Override
+			public String reserveSeats(int seatHoldId, String customerEmail) {
+				return service.reserveSeats(seatHoldId, customerEmail);
+			}
+
+			@Override
+			public SuccessfulHold releaseSeats(int seatHoldId, String customerEmail, int[] seats) {
+				return service.releaseSeats(seatHoldId, customerEmail, seats);
+			}
+
+			@Override
+			public List<SeatHold> holdBatch(List<HoldRequest> requests) {
+				tickets.get(0).getResult().cancel(false);
+				return service.holdBatch(requests);
+			}
+		};
+		try (WaitingRoom room = new WaitingRoom(cancelling, 2, 2, Duration.ofHours(1))) {
+			tickets.add(room.enter(3, "emailOne"));
+			WaitingRoom.Ticket second = room.enter(2, "emailTwo");
+			room.admit();
+			assertAll(() -> assertTrue(tickets.get(0).getResult().isCancelled()),
+					() -> assertTrue(second.getResult().getNow(null) instanceof SuccessfulHold),
+					() -> assertEquals(8, service.numSeatsAvailable()));
+		}
+	}
+
+	@Test
+	void shouldKeepTickingAfterFailedBatch() {
+		AtomicInteger batches = new AtomicInteger();
+		TicketService failing = new TicketService() {
+
+			@Override
+			public int numSeatsAvailable() {
+				return 0;
+			}
+
+			@Override
+			public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+				throw new IllegalStateException("unavailable");
+			}
+
+			@Override
+			public String reserveSeats(int seatHoldId, String customerEmail) {
+				throw new IllegalStateException("unavailable");
+			}
+
+			@Override
+			public List<SeatHold> holdBatch(List<HoldRequest> requests) {
+				batches.incrementAndGet();
+				// fewer results than requests
+				return Collections.emptyList();
+			}
+		};
+		try (WaitingRoom room = new WaitingRoom(failing, 2, 1, Duration.ofMillis(1))) {
+			WaitingRoom.Ticket first = room.enter(1, "emailOne");
+			WaitingRoom.Ticket second = room.enter(1, "emailTwo");
+			assertAll(() -> assertThrows(ExecutionException.class, () -> first.getResult().get(5, TimeUnit.SECONDS)),
+					() -> assertThrows(ExecutionException.class, () -> second.getResult().get(5, TimeUnit.SECONDS)),
+					() -> assertEquals(2, batches.get()));
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package com.walmart.ticketservice.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.walmart.ticketservice.model.impl.LowestSeatPrefenceVenue;
+import com.walmart.ticketservice.repo.impl.HoldRepoNoPersistence;
+import com.walmart.ticketservice.service.TicketServiceImpl;
+
+class SimulationTest {
+
+	private static final int CAPACITY = 1000;
+
+	@Test
+	void shouldRepeatRunsWithTheSameSeed() {
+		SimulationReport first = run(7);
+		SimulationReport second = run(7);
+		assertAll(() -> assertEquals(first.getFingerprint(), second.getFingerprint()),
+				() -> assertEquals(first.getReservations(), second.getReservations()),
+				// the service expired the holds itself and nothing leaked
+				() -> assertTrue(first.getAbandoned() > 0), () -> assertTrue(first.getLate() > 0),
+				() -> assertTrue(first.getLeaks().isEmpty(), first.getLeaks().toString()),
+				() -> assertTrue(second.getLeaks().isEmpty(), second.getLeaks().toString()));
+	}
+
+	private static SimulationReport run(long seed) {
+		TrafficProfile profile = TrafficProfile.builder().seed(seed).customers(2000).build();
+		Simulation simulation = new Simulation(profile);
+		LowestSeatPrefenceVenue venue = new LowestSeatPrefenceVenue(CAPACITY);
+		HoldRepoNoPersistence repository = new HoldRepoNoPersistence();
+		TicketServiceImpl service = TicketServiceImpl.builder(venue, profile.getHoldLimit(), repository)
+				.timeSource(simulation.clock()).build();
+		return simulation.run(service, venue, repository);
+	}
+}